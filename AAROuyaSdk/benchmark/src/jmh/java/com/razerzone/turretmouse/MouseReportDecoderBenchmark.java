@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.razerzone.turretmouse;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares MouseReportDecoder with the bit string decoding TurretMouseService
+ * used before it, kept here as the baseline. Run with -prof gc to see the
+ * garbage per report.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MouseReportDecoderBenchmark {
+
+	private static final int REPORT_COUNT = 64;
+
+	private final byte[][] mRazerReports = new byte[REPORT_COUNT][];
+
+	private final byte[][] mLenovoReports = new byte[REPORT_COUNT][];
+
+	private int mIndex = 0;
+
+	@Setup
+	public void setup() {
+		for (int index = 0; index < REPORT_COUNT; ++index) {
+			// deltas on both sides of zero
+			int x = (index * 37) - 1000;
+			int y = 700 - (index * 23);
+			mRazerReports[index] = new byte[] {
+				(byte) (index & 1), 0, 0, (byte) ((index % 3) - 1),
+				(byte) x, (byte) (x >> 8), (byte) y, (byte) (y >> 8)
+			};
+			mLenovoReports[index] = new byte[] {
+				(byte) x, (byte) (((y & 0x0F) << 4) | ((x >> 8) & 0x0F)), (byte) (y >> 4)
+			};
+		}
+	}
+
+	@Benchmark
+	public void razerBitwise(Blackhole blackhole) {
+		byte[] report = mRazerReports[mIndex++ & (REPORT_COUNT - 1)];
+		blackhole.consume(MouseReportDecoder.getRazerDeltaX(report));
+		blackhole.consume(MouseReportDecoder.getRazerDeltaY(report));
+	}
+
+	@Benchmark
+	public void razerStrings(Blackhole blackhole) {
+		byte[] report = mRazerReports[mIndex++ & (REPORT_COUNT - 1)];
+		blackhole.consume(decodeString(toBinary(new byte[]{report[5]}) + toBinary(new byte[]{report[4]})));
+		blackhole.consume(decodeString(toBinary(new byte[]{report[7]}) + toBinary(new byte[]{report[6]})));
+	}
+
+	@Benchmark
+	public void lenovoBitwise(Blackhole blackhole) {
+		byte[] report = mLenovoReports[mIndex++ & (REPORT_COUNT - 1)];
+		blackhole.consume(MouseReportDecoder.getLenovoDeltaX(report));
+		blackhole.consume(MouseReportDecoder.getLenovoDeltaY(report));
+	}
+
+	@Benchmark
+	public void lenovoStrings(Blackhole blackhole) {
+		byte[] report = mLenovoReports[mIndex++ & (REPORT_COUNT - 1)];
+		String mixedByte = toBinary(new byte[]{report[1]});
+		blackhole.consume(decodeString(mixedByte.substring(4, 8) + toBinary(new byte[]{report[0]})));
+		blackhole.consume(decodeString(toBinary(new byte[]{report[2]}) + mixedByte.substring(0, 4)));
+	}
+
+	// the former TurretMouseService decoding
+	private static int decodeString(String bits) {
+		char sign = bits.charAt(0);
+		if (sign == '1') {
+			bits = flipBits(bits);
+		}
+		int value = Integer.parseInt(bits.substring(1, bits.length()), 2);
+		return sign == '1' ? -value : value;
+	}
+
+	private static String toBinary(byte[] bytes) {
+		StringBuilder sb = new StringBuilder(bytes.length * Byte.SIZE);
+		for (int i = 0; i < Byte.SIZE * bytes.length; i++) {
+			sb.append((bytes[i / Byte.SIZE] << i % Byte.SIZE & 0x80) == 0 ? '0' : '1');
+		}
+		return sb.toString();
+	}
+
+	private static String flipBits(String bitString) {
+		String newString = "1";
+		for (int i = 1; i < bitString.length(); i++) {
+			newString = newString + (bitString.charAt(i) == '0' ? "1" : "0");
+		}
+		return newString;
+	}
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.razerzone.turretmouse;
+
+import android.os.Handler;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures decoding of Razer HID reports in TurretMouseService. The stub
+ * Handler runs posted work inline, so each call covers the decode, the
+ * cursor update and the mouse receiver callback.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TurretReportBenchmark {
+
+	private static final int REPORT_COUNT = 16;
+
+	private TurretMouseService mService;
+
+	private byte[][] mReports;
+
+	private int mReportIndex = 0;
+
+	@Setup
+	public void setup(final Blackhole blackhole) throws Exception {
+		mService = new TurretMouseService();
+		// onCreate would start the processing thread, hand it an inline handler instead
+		Field processingHandler = TurretMouseService.class.getDeclaredField("mProcessingHandler");
+		processingHandler.setAccessible(true);
+		processingHandler.set(mService, new Handler());
+		// the first resolution scales a 0 by 0 position, so place the cursor afterwards
+		mService.setDisplayResolution(1920, 1080);
+		mService.setCursorPosition(960, 540);
+		mService.setMouseReceiver(new TurretMouseService.mouseReceiver() {
+			@Override
+			public void onMouseAction(int[] mouseInfo) {
+				blackhole.consume(mouseInfo);
+			}
+		});
+
+		// movement in both directions, 16 bit two's complement deltas
+		mReports = new byte[REPORT_COUNT][];
+		for (int index = 0; index < REPORT_COUNT; ++index) {
+			int dx = (index & 1) == 0 ? index * 3 : -index * 3;
+			int dy = (index & 2) == 0 ? -index : index;
+			mReports[index] = new byte[] {
+				(byte) (index & 1), 0, 0, (byte) ((index & 4) == 0 ? 0 : -1),
+				(byte) dx, (byte) (dx >> 8), (byte) dy, (byte) (dy >> 8)
+			};
+		}
+	}
+
+	@Benchmark
+	public void parseRazerReport() {
+		byte[] report = mReports[mReportIndex];
+		mReportIndex = (mReportIndex + 1) & (REPORT_COUNT - 1);
+		mService.parseRazerReport(report);
+	}
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tv.ouya.sdk;
+
+import android.app.Activity;
+import android.view.InputDevice;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import tv.ouya.console.api.OuyaController;
+
+/**
+ * Measures OuyaInputView from the view callback to the JNI boundary. The
+ * native methods are overridden to feed a Blackhole, so the numbers cover
+ * state tracking, change detection and packing but not lib-ouya-ndk.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InputViewBenchmark {
+
+	// device 1 is player 1 in the stub OuyaController
+	private static final int DEVICE_ID = 1;
+
+	private static final int EVENT_COUNT = 64;
+
+	/** true for the single batched JNI call, false for one call per value */
+	@Param({"true", "false"})
+	public boolean nativeBatch;
+
+	private BenchmarkInputView mInputView;
+
+	private MotionEvent[] mMovingEvents;
+
+	private MotionEvent mIdleEvent;
+
+	private KeyEvent mKeyDown;
+
+	private KeyEvent mKeyUp;
+
+	private KeyEvent mKeyRepeat;
+
+	private int mEventIndex = 0;
+
+	static class BenchmarkInputView extends OuyaInputView {
+		Blackhole mBlackhole;
+
+		BenchmarkInputView(Activity activity) {
+			super(activity);
+		}
+
+		@Override
+		public void dispatchGenericMotionEventNative(int deviceId, int axis, float value) {
+			mBlackhole.consume(value);
+		}
+
+		@Override
+		public void dispatchKeyEventNative(int deviceId, int keyCode, int action) {
+			mBlackhole.consume(keyCode);
+		}
+
+		@Override
+		public void dispatchControllerStateNative(int deviceId, float[] axes, int axisMask, int dpadMask) {
+			mBlackhole.consume(axisMask);
+		}
+	}
+
+	@Setup
+	public void setup(Blackhole blackhole) {
+		OuyaInputView.sNativeInitialized = true;
+		OuyaInputView.sNativeBatchSupported = nativeBatch;
+		mInputView = new BenchmarkInputView(new Activity());
+		mInputView.mBlackhole = blackhole;
+
+		// a stick sweeping a circle, every event moves both sticks and the triggers
+		mMovingEvents = new MotionEvent[EVENT_COUNT];
+		for (int index = 0; index < EVENT_COUNT; ++index) {
+			double angle = 2 * Math.PI * index / EVENT_COUNT;
+			float x = (float) Math.cos(angle);
+			float y = (float) Math.sin(angle);
+			mMovingEvents[index] = createMotionEvent(x, y, -y, x, (x + 1f) / 2f, (y + 1f) / 2f);
+		}
+		mIdleEvent = createMotionEvent(0.25f, 0.25f, 0f, 0f, 0f, 0f);
+		mKeyDown = new KeyEvent(0, 0, KeyEvent.ACTION_DOWN, OuyaController.BUTTON_O, 0, 0,
+			DEVICE_ID, 0, 0, InputDevice.SOURCE_GAMEPAD);
+		mKeyUp = new KeyEvent(0, 0, KeyEvent.ACTION_UP, OuyaController.BUTTON_O, 0, 0,
+			DEVICE_ID, 0, 0, InputDevice.SOURCE_GAMEPAD);
+		mKeyRepeat = new KeyEvent(0, 0, KeyEvent.ACTION_DOWN, OuyaController.BUTTON_A, 1, 0,
+			DEVICE_ID, 0, 0, InputDevice.SOURCE_GAMEPAD);
+	}
+
+	private static MotionEvent createMotionEvent(float lsX, float lsY, float rsX, float rsY, float l2, float r2) {
+		MotionEvent.PointerProperties[] properties = { new MotionEvent.PointerProperties() };
+		MotionEvent.PointerCoords coords = new MotionEvent.PointerCoords();
+		coords.setAxisValue(OuyaController.AXIS_LS_X, lsX);
+		coords.setAxisValue(OuyaController.AXIS_LS_Y, lsY);
+		coords.setAxisValue(OuyaController.AXIS_RS_X, rsX);
+		coords.setAxisValue(OuyaController.AXIS_RS_Y, rsY);
+		coords.setAxisValue(OuyaController.AXIS_L2, l2);
+		coords.setAxisValue(OuyaController.AXIS_R2, r2);
+		return MotionEvent.obtain(0, 0, MotionEvent.ACTION_MOVE, 1, properties,
+			new MotionEvent.PointerCoords[] { coords }, 0, 0, 0, 0, DEVICE_ID, 0,
+			InputDevice.SOURCE_JOYSTICK, 0);
+	}
+
+	@Benchmark
+	public boolean motionMoving() {
+		MotionEvent event = mMovingEvents[mEventIndex];
+		mEventIndex = (mEventIndex + 1) & (EVENT_COUNT - 1);
+		return mInputView.onGenericMotionEvent(event);
+	}
+
+	/**
+	 * The same event over and over, every value is suppressed as unchanged.
+	 */
+	@Benchmark
+	public boolean motionIdle() {
+		return mInputView.onGenericMotionEvent(mIdleEvent);
+	}
+
+	@Benchmark
+	public boolean keyDownUp() {
+		return mInputView.onKeyDown(OuyaController.BUTTON_O, mKeyDown) &
+			mInputView.onKeyUp(OuyaController.BUTTON_O, mKeyUp);
+	}
+
+	/**
+	 * Auto-repeat of a held button, dropped before reaching native.
+	 */
+	@Benchmark
+	public boolean keyRepeat() {
+		return mInputView.onKeyDown(OuyaController.BUTTON_A, mKeyRepeat);
+	}
+}
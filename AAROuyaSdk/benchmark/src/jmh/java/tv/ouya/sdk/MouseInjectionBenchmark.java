@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tv.ouya.sdk;
+
+import com.unity3d.player.UnityPlayer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the Turret mouse callback in MainActivity, which builds a
+ * MotionEvent for Unity and pushes the mouse info to the native plugin.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MouseInjectionBenchmark {
+
+	private BenchmarkActivity mActivity;
+
+	private final int[] mMouseInfo = new int[6];
+
+	private int mStep = 0;
+
+	static class BenchmarkActivity extends MainActivity {
+		Blackhole mBlackhole;
+
+		@Override
+		public void setTurretMouseInfoNative(int index, int value) {
+			mBlackhole.consume(value);
+		}
+
+		@Override
+		public void setTurretMouseInfoBulkNative(int mask, int buttons, int deltaX, int deltaY, int wheel, int x, int y) {
+			mBlackhole.consume(mask ^ buttons ^ deltaX ^ deltaY ^ wheel ^ x ^ y);
+		}
+	}
+
+	@Setup
+	public void setup(Blackhole blackhole) {
+		mActivity = new BenchmarkActivity();
+		mActivity.mBlackhole = blackhole;
+		mActivity.mUnityPlayer = new UnityPlayer(mActivity);
+	}
+
+	@Benchmark
+	public void onMouseAction() {
+		int step = ++mStep;
+		mMouseInfo[0] = step & 1;
+		mMouseInfo[1] = 1;
+		mMouseInfo[2] = -1;
+		mMouseInfo[3] = 0;
+		mMouseInfo[4] = step & 1023;
+		mMouseInfo[5] = step & 511;
+		mActivity.mMouseReceiver.onMouseAction(mMouseInfo);
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.app;
+
+import android.view.ContextThemeWrapper;
+import android.view.View;
+import android.widget.FrameLayout;
+
+/**
+ * Benchmark stub, the content view is an empty FrameLayout.
+ */
+public class Activity extends ContextThemeWrapper {
+	private final FrameLayout mContent = new FrameLayout(this);
+
+	public View findViewById(int id) {
+		return mContent;
+	}
+
+	public void takeKeyEvents(boolean get) {
+	}
+}
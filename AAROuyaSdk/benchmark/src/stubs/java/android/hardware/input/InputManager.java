@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.hardware.input;
+
+import android.os.Handler;
+
+public final class InputManager {
+	public interface InputDeviceListener {
+		void onInputDeviceAdded(int deviceId);
+
+		void onInputDeviceRemoved(int deviceId);
+
+		void onInputDeviceChanged(int deviceId);
+	}
+
+	public void registerInputDeviceListener(InputDeviceListener listener, Handler handler) {
+	}
+
+	public void unregisterInputDeviceListener(InputDeviceListener listener) {
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+/**
+ * Benchmark stub that runs messages inline on the posting thread, or on
+ * the thread looping its Looper when that is not the main looper.
+ */
+public class Handler {
+	public interface Callback {
+		boolean handleMessage(Message msg);
+	}
+
+	private final Looper mLooper;
+
+	private final Callback mCallback;
+
+	public Handler() {
+		this(Looper.myLooper(), null);
+	}
+
+	public Handler(Looper looper) {
+		this(looper, null);
+	}
+
+	public Handler(Looper looper, Callback callback) {
+		mLooper = looper;
+		mCallback = callback;
+	}
+
+	public final Looper getLooper() {
+		return mLooper;
+	}
+
+	public void handleMessage(Message msg) {
+	}
+
+	public void dispatchMessage(Message msg) {
+		if (null != mCallback && mCallback.handleMessage(msg)) {
+			return;
+		}
+		handleMessage(msg);
+	}
+
+	public final boolean post(Runnable r) {
+		if (mLooper.isInline()) {
+			r.run();
+			return true;
+		}
+		return mLooper.enqueue(r);
+	}
+
+	public final boolean postDelayed(Runnable r, long delayMillis) {
+		return post(r);
+	}
+
+	public final boolean sendEmptyMessage(int what) {
+		final Message msg = Message.obtain();
+		msg.what = what;
+		return post(new Runnable() {
+			public void run() {
+				dispatchMessage(msg);
+			}
+		});
+	}
+
+	public final void removeCallbacks(Runnable r) {
+		mLooper.remove(r);
+	}
+}
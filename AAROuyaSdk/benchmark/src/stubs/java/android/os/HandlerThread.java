@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+/**
+ * Benchmark stub, a thread looping a queued Looper.
+ */
+public class HandlerThread extends Thread {
+	private Looper mLooper = null;
+
+	public HandlerThread(String name) {
+		super(name);
+	}
+
+	public HandlerThread(String name, int priority) {
+		super(name);
+	}
+
+	@Override
+	public void run() {
+		Looper.prepare();
+		synchronized (this) {
+			mLooper = Looper.myLooper();
+			notifyAll();
+		}
+		Looper.loop();
+	}
+
+	public Looper getLooper() {
+		synchronized (this) {
+			while (isAlive() && null == mLooper) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return null;
+				}
+			}
+			return mLooper;
+		}
+	}
+
+	public boolean quit() {
+		Looper looper = getLooper();
+		if (null == looper) {
+			return false;
+		}
+		looper.quit();
+		return true;
+	}
+
+	public boolean quitSafely() {
+		Looper looper = getLooper();
+		if (null == looper) {
+			return false;
+		}
+		looper.quitSafely();
+		return true;
+	}
+}
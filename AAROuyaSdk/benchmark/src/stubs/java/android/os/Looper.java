@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.os;
+
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Benchmark stub. The main looper runs messages inline on the posting
+ * thread, a looper prepared on another thread queues them for loop().
+ */
+public final class Looper {
+	private static final Looper sMainLooper = new Looper(null);
+
+	private static final ThreadLocal<Looper> sThreadLooper = new ThreadLocal<Looper>();
+
+	private static final Runnable QUIT = new Runnable() {
+		public void run() {
+		}
+	};
+
+	// null for the main looper
+	private final LinkedBlockingQueue<Runnable> mQueue;
+
+	private volatile boolean mQuitting = false;
+
+	private Looper(LinkedBlockingQueue<Runnable> queue) {
+		mQueue = queue;
+	}
+
+	public static Looper getMainLooper() {
+		return sMainLooper;
+	}
+
+	public static Looper myLooper() {
+		Looper looper = sThreadLooper.get();
+		return null != looper ? looper : sMainLooper;
+	}
+
+	public static void prepare() {
+		sThreadLooper.set(new Looper(new LinkedBlockingQueue<Runnable>()));
+	}
+
+	public static void loop() {
+		LinkedBlockingQueue<Runnable> queue = myLooper().mQueue;
+		if (null == queue) {
+			return;
+		}
+		for (;;) {
+			Runnable r;
+			try {
+				r = queue.take();
+			} catch (InterruptedException e) {
+				continue;
+			}
+			if (r == QUIT) {
+				return;
+			}
+			r.run();
+		}
+	}
+
+	public void quit() {
+		if (null != mQueue) {
+			mQueue.clear();
+			quitSafely();
+		}
+	}
+
+	public void quitSafely() {
+		if (null != mQueue) {
+			mQuitting = true;
+			mQueue.add(QUIT);
+		}
+	}
+
+	boolean isInline() {
+		return null == mQueue;
+	}
+
+	// false once the looper is quitting, like Android
+	boolean enqueue(Runnable r) {
+		if (mQuitting) {
+			return false;
+		}
+		mQueue.add(r);
+		return true;
+	}
+
+	void remove(Runnable r) {
+		if (null != mQueue) {
+			mQueue.remove(r);
+		}
+	}
+}
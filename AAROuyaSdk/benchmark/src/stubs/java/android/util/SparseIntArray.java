@@ -0,0 +1,89 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.util;
+
+import java.util.Arrays;
+
+/**
+ * Benchmark stub with the same sorted-array lookup as the platform class.
+ */
+public class SparseIntArray {
+	private int[] mKeys = new int[10];
+	private int[] mValues = new int[10];
+	private int mSize = 0;
+
+	public int indexOfKey(int key) {
+		return Arrays.binarySearch(mKeys, 0, mSize, key);
+	}
+
+	public int indexOfValue(int value) {
+		for (int index = 0; index < mSize; ++index) {
+			if (mValues[index] == value) {
+				return index;
+			}
+		}
+		return -1;
+	}
+
+	public int get(int key, int valueIfKeyNotFound) {
+		int index = indexOfKey(key);
+		return index >= 0 ? mValues[index] : valueIfKeyNotFound;
+	}
+
+	public int valueAt(int index) {
+		return mValues[index];
+	}
+
+	public int keyAt(int index) {
+		return mKeys[index];
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	public void put(int key, int value) {
+		int index = indexOfKey(key);
+		if (index >= 0) {
+			mValues[index] = value;
+			return;
+		}
+		index = ~index;
+		if (mSize == mKeys.length) {
+			mKeys = Arrays.copyOf(mKeys, mSize * 2);
+			mValues = Arrays.copyOf(mValues, mSize * 2);
+		}
+		System.arraycopy(mKeys, index, mKeys, index + 1, mSize - index);
+		System.arraycopy(mValues, index, mValues, index + 1, mSize - index);
+		mKeys[index] = key;
+		mValues[index] = value;
+		++mSize;
+	}
+
+	public void delete(int key) {
+		int index = indexOfKey(key);
+		if (index >= 0) {
+			System.arraycopy(mKeys, index + 1, mKeys, index, mSize - index - 1);
+			System.arraycopy(mValues, index + 1, mValues, index, mSize - index - 1);
+			--mSize;
+		}
+	}
+
+	public void clear() {
+		mSize = 0;
+	}
+}
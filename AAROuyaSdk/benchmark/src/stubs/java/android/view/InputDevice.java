@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.view;
+
+/**
+ * Benchmark stub, no devices are attached.
+ */
+public final class InputDevice {
+	public static InputDevice getDevice(int id) {
+		return null;
+	}
+
+	public String getName() {
+		return "";
+	}
+
+	public int getSources() {
+		return 0;
+	}
+
+	public int getVendorId() {
+		return 0;
+	}
+
+	public int getProductId() {
+		return 0;
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.view;
+
+public class KeyEvent extends InputEvent {
+	private final long mDownTime;
+	private final long mEventTime;
+	private final int mAction;
+	private final int mKeyCode;
+	private final int mRepeatCount;
+	private final int mMetaState;
+	private final int mDeviceId;
+	private final int mScanCode;
+	private final int mFlags;
+	private final int mSource;
+
+	public KeyEvent(long downTime, long eventTime, int action, int code, int repeat,
+			int metaState, int deviceId, int scancode, int flags, int source) {
+		mDownTime = downTime;
+		mEventTime = eventTime;
+		mAction = action;
+		mKeyCode = code;
+		mRepeatCount = repeat;
+		mMetaState = metaState;
+		mDeviceId = deviceId;
+		mScanCode = scancode;
+		mFlags = flags;
+		mSource = source;
+	}
+
+	public final int getAction() {
+		return mAction;
+	}
+
+	public final int getKeyCode() {
+		return mKeyCode;
+	}
+
+	public final int getRepeatCount() {
+		return mRepeatCount;
+	}
+
+	public final int getFlags() {
+		return mFlags;
+	}
+
+	public final long getDownTime() {
+		return mDownTime;
+	}
+
+	@Override
+	public final int getDeviceId() {
+		return mDeviceId;
+	}
+
+	@Override
+	public final int getSource() {
+		return mSource;
+	}
+
+	@Override
+	public final long getEventTime() {
+		return mEventTime;
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.view;
+
+/**
+ * Benchmark stub holding a single pointer and no history. Recycled events
+ * are pooled like the framework's, so obtain only allocates when the pool
+ * is empty.
+ */
+public final class MotionEvent extends InputEvent {
+	private static final int AXIS_COUNT = 48;
+
+	private static final int MAX_RECYCLED = 10;
+
+	private static final Object sRecyclerLock = new Object();
+	private static int sRecyclerUsed = 0;
+	private static MotionEvent sRecyclerTop = null;
+
+	private MotionEvent mNext;
+
+	private long mEventTime;
+	private int mAction;
+	private int mButtonState;
+	private int mDeviceId;
+	private int mSource;
+	private final float[] mAxes = new float[AXIS_COUNT];
+
+	public static final class PointerCoords {
+		public float x;
+		public float y;
+		public float pressure;
+		public float size;
+		public float touchMajor;
+		public float touchMinor;
+		public float toolMajor;
+		public float toolMinor;
+		public float orientation;
+
+		private final float[] mAxes = new float[AXIS_COUNT];
+
+		public void setAxisValue(int axis, float value) {
+			mAxes[axis] = value;
+		}
+
+		public float getAxisValue(int axis) {
+			return mAxes[axis];
+		}
+	}
+
+	public static final class PointerProperties {
+		public int id;
+		public int toolType;
+	}
+
+	private MotionEvent() {
+	}
+
+	public static MotionEvent obtain(long downTime, long eventTime, int action, int pointerCount,
+			PointerProperties[] pointerProperties, PointerCoords[] pointerCoords, int metaState,
+			int buttonState, float xPrecision, float yPrecision, int deviceId, int edgeFlags,
+			int source, int flags) {
+		MotionEvent event;
+		synchronized (sRecyclerLock) {
+			event = sRecyclerTop;
+			if (null == event) {
+				event = new MotionEvent();
+			} else {
+				sRecyclerTop = event.mNext;
+				--sRecyclerUsed;
+				event.mNext = null;
+			}
+		}
+		event.mEventTime = eventTime;
+		event.mAction = action;
+		event.mButtonState = buttonState;
+		event.mDeviceId = deviceId;
+		event.mSource = source;
+		System.arraycopy(pointerCoords[0].mAxes, 0, event.mAxes, 0, AXIS_COUNT);
+		return event;
+	}
+
+	public void recycle() {
+		synchronized (sRecyclerLock) {
+			if (sRecyclerUsed < MAX_RECYCLED) {
+				++sRecyclerUsed;
+				mNext = sRecyclerTop;
+				sRecyclerTop = this;
+			}
+		}
+	}
+
+	public final int getAction() {
+		return mAction;
+	}
+
+	public final int getButtonState() {
+		return mButtonState;
+	}
+
+	public final float getAxisValue(int axis) {
+		return mAxes[axis];
+	}
+
+	public final int getHistorySize() {
+		return 0;
+	}
+
+	public final float getHistoricalAxisValue(int axis, int pos) {
+		return mAxes[axis];
+	}
+
+	public final long getHistoricalEventTime(int pos) {
+		return mEventTime;
+	}
+
+	@Override
+	public final int getDeviceId() {
+		return mDeviceId;
+	}
+
+	@Override
+	public final int getSource() {
+		return mSource;
+	}
+
+	@Override
+	public final long getEventTime() {
+		return mEventTime;
+	}
+}
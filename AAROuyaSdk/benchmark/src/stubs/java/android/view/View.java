@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package android.view;
+
+import android.content.Context;
+import android.util.AttributeSet;
+
+public class View {
+	private final Context mContext;
+
+	public View(Context context) {
+		mContext = context;
+	}
+
+	public View(Context context, AttributeSet attrs) {
+		mContext = context;
+	}
+
+	public View(Context context, AttributeSet attrs, int defStyleAttr) {
+		mContext = context;
+	}
+
+	public final Context getContext() {
+		return mContext;
+	}
+
+	public void setFocusable(boolean focusable) {
+	}
+
+	public final boolean requestFocus() {
+		return true;
+	}
+
+	public void setKeepScreenOn(boolean keepScreenOn) {
+	}
+
+	public boolean dispatchGenericMotionEvent(MotionEvent event) {
+		return onGenericMotionEvent(event);
+	}
+
+	public boolean dispatchKeyEvent(KeyEvent event) {
+		return false;
+	}
+
+	public boolean onGenericMotionEvent(MotionEvent event) {
+		return false;
+	}
+
+	public boolean onKeyDown(int keyCode, KeyEvent event) {
+		return false;
+	}
+
+	public boolean onKeyUp(int keyCode, KeyEvent event) {
+		return false;
+	}
+}
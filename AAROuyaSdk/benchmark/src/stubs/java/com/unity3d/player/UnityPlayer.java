@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.unity3d.player;
+
+import android.content.ContextWrapper;
+import android.view.InputEvent;
+import android.widget.FrameLayout;
+
+/**
+ * Benchmark stub, injected events are discarded.
+ */
+public class UnityPlayer extends FrameLayout {
+	public UnityPlayer(ContextWrapper context) {
+		super(context);
+	}
+
+	public boolean injectEvent(InputEvent event) {
+		return true;
+	}
+}
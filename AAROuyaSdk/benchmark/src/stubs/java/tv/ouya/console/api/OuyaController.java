@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.console.api;
+
+/**
+ * Benchmark stub, device ids 1 to 4 are players 1 to 4.
+ */
+public class OuyaController {
+	public static int getPlayerNumByDeviceId(int deviceId) {
+		int playerNum = deviceId - 1;
+		return playerNum >= 0 && playerNum < 4 ? playerNum : -1;
+	}
+
+	public static OuyaController getControllerByPlayer(int playerNum) {
+		return null;
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.console.api;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.InputEvent;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+
+public class OuyaInputMapper {
+	public static void init(Context context) {
+	}
+
+	public static void shutdown(Context context) {
+	}
+
+	public static boolean shouldHandleInputEvent(InputEvent event) {
+		return false;
+	}
+
+	public static boolean dispatchGenericMotionEvent(Activity activity, MotionEvent event) {
+		return false;
+	}
+
+	public static boolean dispatchKeyEvent(Activity activity, KeyEvent event) {
+		return false;
+	}
+}
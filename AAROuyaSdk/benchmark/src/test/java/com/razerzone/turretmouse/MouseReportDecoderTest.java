@@ -0,0 +1,92 @@
+package com.razerzone.turretmouse;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Golden vectors for MouseReportDecoder. Movement is two's complement, so
+ * 0xFFFF and 0xFFF decode to -1.
+ */
+public class MouseReportDecoderTest {
+
+    private static byte[] razerReport(int buttons, int wheel, int x, int y) {
+        return new byte[] {
+                (byte) buttons, 0, 0, (byte) wheel,
+                (byte) x, (byte) (x >> 8),
+                (byte) y, (byte) (y >> 8)
+        };
+    }
+
+    private static byte[] lenovoReport(int x, int y) {
+        return new byte[] {
+                (byte) x,
+                (byte) (((y & 0x0F) << 4) | ((x >> 8) & 0x0F)),
+                (byte) (y >> 4)
+        };
+    }
+
+    private static void assertRazerDelta(int expected, int raw) {
+        assertEquals(expected, MouseReportDecoder.getRazerDeltaX(razerReport(0, 0, raw, 0)));
+        assertEquals(expected, MouseReportDecoder.getRazerDeltaY(razerReport(0, 0, 0, raw)));
+    }
+
+    private static void assertLenovoDelta(int expected, int raw) {
+        assertEquals(expected, MouseReportDecoder.getLenovoDeltaX(lenovoReport(raw, 0)));
+        assertEquals(expected, MouseReportDecoder.getLenovoDeltaY(lenovoReport(0, raw)));
+    }
+
+    @Test
+    public void razerDeltas() {
+        assertRazerDelta(0, 0x0000);
+        assertRazerDelta(1, 0x0001);
+        assertRazerDelta(-1, 0xFFFF);
+        assertRazerDelta(32767, 0x7FFF);
+        assertRazerDelta(-32768, 0x8000);
+        assertRazerDelta(255, 0x00FF);
+        assertRazerDelta(256, 0x0100);
+    }
+
+    @Test
+    public void razerButtonsAndWheel() {
+        byte[] report = razerReport(0x05, 0xFF, 0, 0);
+        assertEquals(5, MouseReportDecoder.getRazerButtons(report));
+        assertEquals(-1, MouseReportDecoder.getRazerWheel(report));
+        assertEquals(1, MouseReportDecoder.getRazerWheel(razerReport(0, 1, 0, 0)));
+    }
+
+    @Test
+    public void lenovoDeltas() {
+        assertLenovoDelta(0, 0x000);
+        assertLenovoDelta(1, 0x001);
+        assertLenovoDelta(-1, 0xFFF);
+        assertLenovoDelta(2047, 0x7FF);
+        assertLenovoDelta(-2048, 0x800);
+    }
+
+    @Test
+    public void lenovoAxesAreIndependent() {
+        byte[] report = lenovoReport(0x7FF, 0x800);
+        assertEquals(2047, MouseReportDecoder.getLenovoDeltaX(report));
+        assertEquals(-2048, MouseReportDecoder.getLenovoDeltaY(report));
+    }
+
+    @Test
+    public void shortReportsReadAsZero() {
+        byte[] empty = new byte[0];
+        assertEquals(0, MouseReportDecoder.getRazerButtons(empty));
+        assertEquals(0, MouseReportDecoder.getRazerWheel(empty));
+        assertEquals(0, MouseReportDecoder.getRazerDeltaX(empty));
+        assertEquals(0, MouseReportDecoder.getRazerDeltaY(empty));
+        assertEquals(0, MouseReportDecoder.getLenovoDeltaX(empty));
+        assertEquals(0, MouseReportDecoder.getLenovoDeltaY(empty));
+
+        // the high byte of y is missing, only the low byte is read
+        byte[] truncated = { 0, 0, 0, 0, 1, 0, (byte) 0xFF };
+        assertEquals(1, MouseReportDecoder.getRazerDeltaX(truncated));
+        assertEquals(255, MouseReportDecoder.getRazerDeltaY(truncated));
+
+        // only the low 8 bits of x arrived
+        assertEquals(0x7F, MouseReportDecoder.getLenovoDeltaX(new byte[] { 0x7F }));
+    }
+}
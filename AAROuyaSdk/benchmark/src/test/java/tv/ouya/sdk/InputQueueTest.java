@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tv.ouya.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks that OuyaInputQueue keeps records in order when the consumer falls
+ * behind and the ring overflows.
+ */
+public class InputQueueTest {
+
+	private static final int CAPACITY = 8;
+
+	private static final int AXES = 2;
+
+	/**
+	 * Keys carry their sequence as the key code, states as the event time.
+	 */
+	private static final class OrderSink implements OuyaInputQueue.Sink {
+		long mLastSequence = -1;
+		int mKeyCount = 0;
+		int mStateCount = 0;
+		float mLastAxis = 0f;
+
+		private void check(long sequence) {
+			assertTrue("record " + sequence + " after " + mLastSequence, sequence > mLastSequence);
+			mLastSequence = sequence;
+		}
+
+		public void onKey(int playerNum, int keyCode, int action, int source, long eventTime) {
+			check(eventTime);
+			++mKeyCount;
+		}
+
+		public void onState(int playerNum, float[] axes, int axesOffset, int axisMask, int dpadMask, int source, long eventTime) {
+			check(eventTime);
+			++mStateCount;
+			mLastAxis = axes[axesOffset];
+		}
+	}
+
+	@Test
+	public void overflowKeepsOrderAndEveryKey() {
+		OuyaInputQueue queue = new OuyaInputQueue(CAPACITY, AXES);
+		float[] axes = new float[AXES];
+		int keyCount = 0;
+		int lastState = 0;
+		for (int sequence = 0; sequence < CAPACITY * 20; ++sequence) {
+			if (sequence % 3 == 0) {
+				assertTrue(queue.offerKey(0, 96, sequence & 1, 0, sequence));
+				++keyCount;
+			} else {
+				axes[0] = sequence;
+				assertTrue(queue.offerState(0, axes, 1, 0, 0, sequence));
+				lastState = sequence;
+			}
+		}
+		assertTrue(queue.getOverflowCount() > 0);
+
+		OrderSink sink = new OrderSink();
+		queue.drain(sink);
+		assertTrue(queue.isEmpty());
+		assertEquals(keyCount, sink.mKeyCount);
+		assertEquals(lastState, sink.mLastAxis, 0f);
+		assertEquals(0, queue.getDroppedCount());
+	}
+
+	@Test
+	public void spilledAxisStatesMerge() {
+		OuyaInputQueue queue = new OuyaInputQueue(CAPACITY, AXES);
+		float[] axes = new float[AXES];
+		for (int sequence = 0; sequence < CAPACITY * 10; ++sequence) {
+			axes[0] = sequence;
+			queue.offerState(0, axes, 1, 0, 0, sequence);
+		}
+		OrderSink sink = new OrderSink();
+		assertEquals(CAPACITY + 1, queue.drain(sink));
+		assertEquals(CAPACITY * 10 - 1, sink.mLastAxis, 0f);
+
+		// the ring is used again once the spill is drained
+		queue.offerKey(0, 96, 0, 0, CAPACITY * 10);
+		assertEquals(1, queue.drain(sink));
+	}
+
+	@Test
+	public void concurrentOverflowKeepsOrder() throws InterruptedException {
+		final OuyaInputQueue queue = new OuyaInputQueue(CAPACITY, AXES);
+		final int recordCount = 200000;
+		// getDroppedCount also counts dropped state records
+		final int[] droppedKeys = new int[1];
+		Thread producer = new Thread(new Runnable() {
+			public void run() {
+				float[] axes = new float[AXES];
+				for (int sequence = 0; sequence < recordCount; ++sequence) {
+					if ((sequence & 1) == 0) {
+						if (!queue.offerKey(0, 96, 0, 0, sequence)) {
+							++droppedKeys[0];
+						}
+					} else {
+						axes[0] = sequence;
+						queue.offerState(0, axes, 1, 0, 0, sequence);
+					}
+				}
+			}
+		});
+		producer.start();
+		OrderSink sink = new OrderSink();
+		while (producer.isAlive()) {
+			queue.drain(sink);
+		}
+		producer.join();
+		queue.drain(sink);
+		assertEquals(recordCount / 2 - droppedKeys[0], sink.mKeyCount);
+		assertEquals(recordCount - 1, sink.mLastAxis, 0f);
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tv.ouya.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import org.junit.Test;
+
+/**
+ * Checks that OuyaInputRecorder keeps every record from concurrent
+ * producers, in order per producer, across many buffer swaps.
+ */
+public class InputRecorderTest {
+
+	private static final int THREAD_COUNT = 3;
+
+	// spans several of the recorder's 4096 record buffers
+	private static final int RECORDS_PER_THREAD = 50000;
+
+	@Test
+	public void concurrentRecordsAreAllWritten() throws Exception {
+		File file = File.createTempFile("ouya-input", ".rec");
+		file.deleteOnExit();
+		assertTrue(OuyaInputRecorder.start(file.getPath()));
+
+		Thread[] threads = new Thread[THREAD_COUNT];
+		for (int index = 0; index < THREAD_COUNT; ++index) {
+			final int playerNum = index;
+			threads[index] = new Thread(new Runnable() {
+				public void run() {
+					for (int sequence = 0; sequence < RECORDS_PER_THREAD; ++sequence) {
+						OuyaInputRecorder.recordKey(playerNum, 96, sequence);
+					}
+				}
+			});
+			threads[index].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		assertEquals(THREAD_COUNT * RECORDS_PER_THREAD, OuyaInputRecorder.stop());
+
+		ByteBuffer buffer = read(file);
+		assertEquals(OuyaInputRecorder.HEADER_SIZE + THREAD_COUNT * RECORDS_PER_THREAD * OuyaInputRecorder.RECORD_SIZE,
+			buffer.remaining());
+		assertEquals(OuyaInputRecorder.MAGIC, buffer.getInt(0));
+		int[] next = new int[THREAD_COUNT];
+		for (int offset = OuyaInputRecorder.HEADER_SIZE; offset < buffer.limit(); offset += OuyaInputRecorder.RECORD_SIZE) {
+			assertEquals(OuyaInputRecorder.TYPE_KEY, buffer.get(offset));
+			int playerNum = buffer.get(offset + 1);
+			assertEquals(next[playerNum], buffer.getInt(offset + 4));
+			++next[playerNum];
+		}
+	}
+
+	private static ByteBuffer read(File file) throws IOException {
+		RandomAccessFile input = new RandomAccessFile(file, "r");
+		try {
+			byte[] bytes = new byte[(int) input.length()];
+			input.readFully(bytes);
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+			return buffer;
+		} finally {
+			input.close();
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tv.ouya.sdk;
+
+import static org.junit.Assert.assertTrue;
+
+import android.app.Activity;
+import android.view.InputDevice;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import java.lang.management.ManagementFactory;
+import org.junit.Before;
+import org.junit.Test;
+import tv.ouya.console.api.OuyaController;
+
+/**
+ * Checks that the key and motion handlers allocate nothing per event, using
+ * the allocation counter of the current thread.
+ */
+public class InputViewAllocationTest {
+
+	// device 1 is player 1 in the stub OuyaController
+	private static final int DEVICE_ID = 1;
+
+	private static final int EVENT_COUNT = 64;
+
+	private static final int WARMUP_ITERATIONS = 20000;
+
+	private static final int ITERATIONS = 10000;
+
+	private static final com.sun.management.ThreadMXBean sThreadBean =
+		(com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+	private OuyaInputView mInputView;
+
+	private MotionEvent[] mMovingEvents;
+
+	private KeyEvent mKeyDown;
+
+	private KeyEvent mKeyUp;
+
+	private int mEventIndex = 0;
+
+	static class NullNativeInputView extends OuyaInputView {
+		NullNativeInputView(Activity activity) {
+			super(activity);
+		}
+
+		@Override
+		public void dispatchGenericMotionEventNative(int deviceId, int axis, float value) {
+		}
+
+		@Override
+		public void dispatchKeyEventNative(int deviceId, int keyCode, int action) {
+		}
+
+		@Override
+		public void dispatchControllerStateNative(int deviceId, float[] axes, int axisMask, int dpadMask) {
+		}
+	}
+
+	@Before
+	public void setup() {
+		OuyaInputView.sNativeInitialized = true;
+		OuyaInputView.sNativeBatchSupported = true;
+		mInputView = new NullNativeInputView(new Activity());
+
+		mMovingEvents = new MotionEvent[EVENT_COUNT];
+		for (int index = 0; index < EVENT_COUNT; ++index) {
+			double angle = 2 * Math.PI * index / EVENT_COUNT;
+			float x = (float) Math.cos(angle);
+			float y = (float) Math.sin(angle);
+			mMovingEvents[index] = createMotionEvent(x, y, -y, x, (x + 1f) / 2f, (y + 1f) / 2f);
+		}
+		mKeyDown = new KeyEvent(0, 0, KeyEvent.ACTION_DOWN, OuyaController.BUTTON_O, 0, 0,
+			DEVICE_ID, 0, 0, InputDevice.SOURCE_GAMEPAD);
+		mKeyUp = new KeyEvent(0, 0, KeyEvent.ACTION_UP, OuyaController.BUTTON_O, 0, 0,
+			DEVICE_ID, 0, 0, InputDevice.SOURCE_GAMEPAD);
+	}
+
+	private static MotionEvent createMotionEvent(float lsX, float lsY, float rsX, float rsY, float l2, float r2) {
+		MotionEvent.PointerProperties[] properties = { new MotionEvent.PointerProperties() };
+		MotionEvent.PointerCoords coords = new MotionEvent.PointerCoords();
+		coords.setAxisValue(OuyaController.AXIS_LS_X, lsX);
+		coords.setAxisValue(OuyaController.AXIS_LS_Y, lsY);
+		coords.setAxisValue(OuyaController.AXIS_RS_X, rsX);
+		coords.setAxisValue(OuyaController.AXIS_RS_Y, rsY);
+		coords.setAxisValue(OuyaController.AXIS_L2, l2);
+		coords.setAxisValue(OuyaController.AXIS_R2, r2);
+		return MotionEvent.obtain(0, 0, MotionEvent.ACTION_MOVE, 1, properties,
+			new MotionEvent.PointerCoords[] { coords }, 0, 0, 0, 0, DEVICE_ID, 0,
+			InputDevice.SOURCE_JOYSTICK, 0);
+	}
+
+	private void handleMotion(int iterations) {
+		for (int iteration = 0; iteration < iterations; ++iteration) {
+			mInputView.onGenericMotionEvent(mMovingEvents[mEventIndex]);
+			mEventIndex = (mEventIndex + 1) & (EVENT_COUNT - 1);
+		}
+	}
+
+	private void handleKeys(int iterations) {
+		for (int iteration = 0; iteration < iterations; ++iteration) {
+			mInputView.onKeyDown(OuyaController.BUTTON_O, mKeyDown);
+			mInputView.onKeyUp(OuyaController.BUTTON_O, mKeyUp);
+		}
+	}
+
+	private static long getAllocatedBytes() {
+		return sThreadBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	// fewer bytes than events means no event allocated, the rest is the counter itself
+	private static void assertNoAllocationPerEvent(String handler, long allocatedBytes) {
+		assertTrue(handler + " allocated " + allocatedBytes + " bytes for " + ITERATIONS + " events",
+			allocatedBytes < ITERATIONS);
+	}
+
+	@Test
+	public void motionHandlerDoesNotAllocate() {
+		handleMotion(WARMUP_ITERATIONS);
+		long before = getAllocatedBytes();
+		handleMotion(ITERATIONS);
+		assertNoAllocationPerEvent("onGenericMotionEvent", getAllocatedBytes() - before);
+	}
+
+	@Test
+	public void keyHandlersDoNotAllocate() {
+		handleKeys(WARMUP_ITERATIONS);
+		long before = getAllocatedBytes();
+		handleKeys(ITERATIONS);
+		assertNoAllocationPerEvent("onKeyDown and onKeyUp", getAllocatedBytes() - before);
+	}
+}
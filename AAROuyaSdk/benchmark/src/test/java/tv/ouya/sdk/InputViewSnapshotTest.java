@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tv.ouya.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import android.app.Activity;
+import android.view.InputDevice;
+import android.view.KeyEvent;
+import org.junit.Before;
+import org.junit.Test;
+import tv.ouya.console.api.OuyaController;
+
+/**
+ * Checks that held buttons reach the snapshot read by
+ * OuyaInputView.getControllerSnapshot.
+ */
+public class InputViewSnapshotTest {
+
+	// not a controller in the stub OuyaController
+	private static final int TURRET_DEVICE_ID = 9;
+
+	// bit positions in the getControllerSnapshot button mask
+	private static final int SNAPSHOT_DPAD_UP = 1 << 8;
+	private static final int SNAPSHOT_MENU = 1 << 12;
+
+	private OuyaInputView mInputView;
+
+	private final float[] mAxes = new float[OuyaInputView.MAX_PLAYERS * OuyaInputView.getSampleAxisCount()];
+
+	private final int[] mButtons = new int[OuyaInputView.MAX_PLAYERS];
+
+	@Before
+	public void setup() {
+		OuyaInputView.sNativeInitialized = true;
+		OuyaInputView.sNativeBatchSupported = true;
+		mInputView = new InputViewAllocationTest.NullNativeInputView(new Activity());
+	}
+
+	private void routeTurretKey(int keyCode, int action) {
+		KeyEvent keyEvent = new KeyEvent(0, 0, action, keyCode, 0, 0,
+			TURRET_DEVICE_ID, 0, 0, InputDevice.SOURCE_KEYBOARD);
+		mInputView.dispatchRoutedKey(keyEvent,
+			OuyaDeviceProfile.getRoute(OuyaDeviceProfile.KIND_TURRET_DONGLE, keyCode));
+	}
+
+	private int readPlayerOneButtons() {
+		assertEquals(OuyaInputView.MAX_PLAYERS, OuyaInputView.getControllerSnapshot(mAxes, mButtons));
+		return mButtons[0];
+	}
+
+	@Test
+	public void heldTurretKeysAreInPlayerOneSnapshot() {
+		routeTurretKey(OuyaController.BUTTON_DPAD_UP, KeyEvent.ACTION_DOWN);
+		routeTurretKey(OuyaController.BUTTON_MENU, KeyEvent.ACTION_DOWN);
+		assertEquals(SNAPSHOT_DPAD_UP | SNAPSHOT_MENU, readPlayerOneButtons() & (SNAPSHOT_DPAD_UP | SNAPSHOT_MENU));
+
+		routeTurretKey(OuyaController.BUTTON_DPAD_UP, KeyEvent.ACTION_UP);
+		assertEquals(SNAPSHOT_MENU, readPlayerOneButtons() & (SNAPSHOT_DPAD_UP | SNAPSHOT_MENU));
+
+		routeTurretKey(OuyaController.BUTTON_MENU, KeyEvent.ACTION_UP);
+		assertEquals(0, readPlayerOneButtons() & (SNAPSHOT_DPAD_UP | SNAPSHOT_MENU));
+	}
+
+	@Test
+	public void turretKeysKeepPlayerOneDpadSynthesis() {
+		routeTurretKey(OuyaController.BUTTON_DPAD_UP, KeyEvent.ACTION_DOWN);
+		routeTurretKey(OuyaController.BUTTON_DPAD_UP, KeyEvent.ACTION_UP);
+		assertFalse(OuyaInputView.getControllerState().isKnown(0, OuyaController.BUTTON_DPAD_UP));
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tv.ouya.sdk;
+
+import static org.junit.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import org.junit.Test;
+
+/**
+ * Checks that OuyaSampleBuffer lays drained samples out where the C# reader
+ * looks for them.
+ */
+public class SampleBufferTest {
+
+	private static final int AXES = 8;
+
+	private static final int CAPACITY = 16;
+
+	private static void offerSamples(OuyaInputSampleRing ring, int count) {
+		float[] sample = new float[AXES];
+		for (int index = 0; index < count; ++index) {
+			for (int axis = 0; axis < AXES; ++axis) {
+				sample[axis] = index * 10 + axis;
+			}
+			ring.offer(1000L + index, sample);
+		}
+	}
+
+	@Test
+	public void fillWritesTheHeaderLayout() {
+		OuyaInputSampleRing ring = new OuyaInputSampleRing(CAPACITY, AXES);
+		OuyaSampleBuffer sampleBuffer = new OuyaSampleBuffer(CAPACITY, AXES);
+		offerSamples(ring, 3);
+		assertEquals(3, sampleBuffer.fill(ring, CAPACITY));
+
+		ByteBuffer buffer = sampleBuffer.getBuffer();
+		assertEquals(OuyaSampleBuffer.MAGIC, buffer.getInt(0));
+		assertEquals(CAPACITY, buffer.getInt(4));
+		assertEquals(AXES, buffer.getInt(8));
+		int timestampsOffset = buffer.getInt(12);
+		assertEquals(0, timestampsOffset % 8);
+
+		for (int index = 0; index < 3; ++index) {
+			for (int axis = 0; axis < AXES; ++axis) {
+				assertEquals(index * 10 + axis,
+					buffer.getFloat(OuyaSampleBuffer.HEADER_SIZE + (index * AXES + axis) * 4), 0f);
+			}
+			assertEquals(1000L + index, buffer.getLong(timestampsOffset + index * 8));
+		}
+	}
+
+	@Test
+	public void fillStopsAtMaxSamples() {
+		OuyaInputSampleRing ring = new OuyaInputSampleRing(CAPACITY, AXES);
+		OuyaSampleBuffer sampleBuffer = new OuyaSampleBuffer(CAPACITY, AXES);
+		offerSamples(ring, 5);
+		assertEquals(2, sampleBuffer.fill(ring, 2));
+		assertEquals(3, sampleBuffer.fill(ring, CAPACITY));
+
+		// the second fill starts at the third sample
+		ByteBuffer buffer = sampleBuffer.getBuffer();
+		assertEquals(1002L, buffer.getLong(buffer.getInt(12)));
+		assertEquals(0, sampleBuffer.fill(ring, CAPACITY));
+	}
+}
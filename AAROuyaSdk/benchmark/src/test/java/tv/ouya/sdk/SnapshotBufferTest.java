@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tv.ouya.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks that OuyaSnapshotBuffer readers never see a half written player,
+ * with the Java fences alone since lib-ouya-ndk is not loaded.
+ */
+public class SnapshotBufferTest {
+
+	private static final int[] AXES = { 0, 1, 11, 14 };
+
+	private static final int[] KEY_CODES = { 0, 1, 2, 3 };
+
+	private static final int PUBLISH_COUNT = 200000;
+
+	// every axis holds the value and the buttons its low bits, so any mix of two publishes shows
+	private static void setState(OuyaControllerState state, int value) {
+		for (int index = 0; index < AXES.length; ++index) {
+			state.setAxis(0, AXES[index], value);
+		}
+		for (int index = 0; index < KEY_CODES.length; ++index) {
+			state.setPressed(0, KEY_CODES[index], (value & (1 << index)) != 0);
+		}
+	}
+
+	@Test
+	public void readReturnsPublishedState() {
+		OuyaSnapshotBuffer buffer = new OuyaSnapshotBuffer(2);
+		OuyaControllerState state = new OuyaControllerState(2);
+		setState(state, 5);
+		buffer.publish(0, state, 0);
+
+		float[] axes = new float[AXES.length];
+		int[] masks = new int[1];
+		assertTrue(buffer.read(0, AXES, axes, 0, KEY_CODES, masks, 0));
+		assertEquals(5f, axes[0], 0f);
+		assertEquals(5f, axes[AXES.length - 1], 0f);
+		assertEquals(5, masks[0]);
+	}
+
+	@Test
+	public void readRejectsInvalidPlayer() {
+		OuyaSnapshotBuffer buffer = new OuyaSnapshotBuffer(2);
+		assertFalse(buffer.read(2, AXES, new float[AXES.length], 0, KEY_CODES, new int[1], 0));
+	}
+
+	@Test
+	public void concurrentReadsAreNeverTorn() throws InterruptedException {
+		final OuyaSnapshotBuffer buffer = new OuyaSnapshotBuffer(1);
+		Thread writer = new Thread(new Runnable() {
+			public void run() {
+				OuyaControllerState state = new OuyaControllerState(1);
+				for (int value = 0; value < PUBLISH_COUNT; ++value) {
+					setState(state, value);
+					buffer.publish(0, state, value);
+				}
+			}
+		});
+		writer.start();
+
+		float[] axes = new float[AXES.length];
+		int[] masks = new int[1];
+		while (writer.isAlive()) {
+			if (!buffer.read(0, AXES, axes, 0, KEY_CODES, masks, 0)) {
+				continue;
+			}
+			for (int index = 1; index < AXES.length; ++index) {
+				assertEquals(axes[0], axes[index], 0f);
+			}
+			assertEquals((int) axes[0] & 0xF, masks[0]);
+		}
+		writer.join();
+	}
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package tv.ouya.sdk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Checks the curves OuyaStickProcessor bakes into its tables against the
+ * same math done directly.
+ */
+public class StickProcessorTest {
+
+	private static final float TOLERANCE = 0.002f;
+
+	private final OuyaStickProcessor mProcessor = new OuyaStickProcessor(1);
+
+	private final float[] mValues = new float[2];
+
+	private void process(float x, float y) {
+		mValues[0] = x;
+		mValues[1] = y;
+		mProcessor.process(0, OuyaStickProcessor.STICK_LEFT, mValues, 0, 1);
+	}
+
+	@Test
+	public void curveWithoutDeadZoneMovesOffCenter() {
+		mProcessor.configure(0, OuyaStickProcessor.STICK_LEFT, OuyaStickProcessor.DEAD_ZONE_NONE, 0f, 2f);
+		process(0.01f, 0f);
+		assertTrue("small deflection was zeroed", mValues[0] > 0f);
+		assertEquals(0.0001f, mValues[0], TOLERANCE);
+
+		process(0f, -0.5f);
+		assertEquals(0f, mValues[0], 0f);
+		assertEquals(-0.25f, mValues[1], TOLERANCE);
+	}
+
+	@Test
+	public void radialCurveFollowsMagnitudeNearCenter() {
+		mProcessor.configure(0, OuyaStickProcessor.STICK_LEFT, OuyaStickProcessor.DEAD_ZONE_RADIAL, 0f, 0.5f);
+		for (float magnitude = 0.005f; magnitude < 1f; magnitude += 0.05f) {
+			process(magnitude * 0.6f, magnitude * 0.8f);
+			float expected = (float) Math.sqrt(magnitude);
+			float actual = (float) Math.sqrt(mValues[0] * mValues[0] + mValues[1] * mValues[1]);
+			assertEquals("magnitude " + magnitude, expected, actual, 0.02f);
+			assertEquals(0.75f, mValues[0] / mValues[1], TOLERANCE);
+		}
+	}
+
+	@Test
+	public void deadZonesZeroInsideAndReachFullRange() {
+		mProcessor.configure(0, OuyaStickProcessor.STICK_LEFT, OuyaStickProcessor.DEAD_ZONE_AXIAL, 0.2f, 1f);
+		process(0.1f, 0.5f);
+		assertEquals(0f, mValues[0], 0f);
+		assertEquals(0.5f, mValues[1], TOLERANCE);
+
+		mProcessor.configure(0, OuyaStickProcessor.STICK_LEFT, OuyaStickProcessor.DEAD_ZONE_SCALED_RADIAL, 0.2f, 1f);
+		process(0.1f, 0.1f);
+		assertEquals(0f, mValues[0], 0f);
+		assertEquals(0f, mValues[1], 0f);
+		process(0f, 0.6f);
+		assertEquals(0.5f, mValues[1], TOLERANCE);
+		process(-1f, 0f);
+		assertEquals(-1f, mValues[0], TOLERANCE);
+	}
+
+	@Test
+	public void deadZoneEdgeDoesNotLeak() {
+		mProcessor.configure(0, OuyaStickProcessor.STICK_LEFT, OuyaStickProcessor.DEAD_ZONE_AXIAL, 0.2f, 1f);
+		// both fall between the last zero entry and the first live one
+		process(0.1995f, -0.1999f);
+		assertEquals(0f, mValues[0], 0f);
+		assertEquals(0f, mValues[1], 0f);
+		process(0.2f, 0f);
+		assertEquals(0.2f, mValues[0], TOLERANCE);
+
+		mProcessor.configure(0, OuyaStickProcessor.STICK_LEFT, OuyaStickProcessor.DEAD_ZONE_RADIAL, 0.2f, 1f);
+		process(0.1995f, 0f);
+		assertEquals(0f, mValues[0], 0f);
+		process(0f, 0.2f);
+		assertEquals(0.2f, mValues[1], TOLERANCE);
+	}
+}
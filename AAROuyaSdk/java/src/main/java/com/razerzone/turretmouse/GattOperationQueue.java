@@ -0,0 +1,302 @@
+package com.razerzone.turretmouse;
+
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattDescriptor;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.UUID;
+
+/**
+ * Runs GATT reads, writes and notification enables one at a time, since
+ * Android drops an operation issued while another is outstanding.
+ * <p>
+ * Only used from the thread of the handler it is given, other threads read
+ * the counts through the {@link GattOperationStats} it publishes. The owner passes
+ * each GATT callback, with its characteristic or descriptor, to an
+ * onOperationComplete method. Callbacks for anything but the running
+ * operation, such as a late one from an attempt that timed out, are
+ * ignored. An operation that fails to start, fails, or times out is retried
+ * {@link #MAX_RETRIES} times before the listener is told.
+ */
+final class GattOperationQueue {
+
+    private static final String TAG = GattOperationQueue.class.getSimpleName();
+
+    public static final int OP_READ = 0;
+    public static final int OP_WRITE = 1;
+    public static final int OP_WRITE_DESCRIPTOR = 2;
+    public static final int OP_ENABLE_NOTIFICATION = 3;
+
+    private static final UUID UUID_CLIENT_CHARACTERISTIC_CONFIG = UUID.fromString("00002902-0000-1000-8000-00805f9b34fb");
+
+    public static final long OPERATION_TIMEOUT_MILLIS = 2000;
+    public static final int MAX_RETRIES = 2;
+    // the stack reports busy for a moment after the previous operation completes
+    private static final long RETRY_DELAY_MILLIS = 50;
+
+    public interface Listener {
+        /** Called when an operation still fails after its retries, the queue is cleared. */
+        void onOperationFailed(int type, UUID uuid, int status);
+    }
+
+    private static final class Operation {
+        final int type;
+        final BluetoothGattCharacteristic characteristic;
+        final BluetoothGattDescriptor descriptor;
+        final byte[] value;
+        final long queuedMillis;
+        int retries;
+
+        Operation(int type, BluetoothGattCharacteristic characteristic, BluetoothGattDescriptor descriptor, byte[] value) {
+            this.type = type;
+            this.characteristic = characteristic;
+            this.descriptor = descriptor;
+            this.value = value;
+            queuedMillis = SystemClock.elapsedRealtime();
+        }
+
+        UUID getUuid() {
+            return null != descriptor ? descriptor.getUuid() : characteristic.getUuid();
+        }
+    }
+
+    private final Handler mHandler;
+    private final Listener mListener;
+    private final ArrayDeque<Operation> mPending = new ArrayDeque<Operation>();
+    private BluetoothGatt mGatt;
+    private Operation mCurrent;
+
+    // stats since the last resetStats, copied to mStats after each change
+    private int mMaxDepth;
+    private int mCompletedCount;
+    private int mRetryCount;
+    private int mTimeoutCount;
+    private long mTotalLatencyMillis;
+    private long mMaxLatencyMillis;
+    private volatile GattOperationStats mStats = new GattOperationStats(0, 0, 0, 0, 0, 0);
+
+    private final Runnable mTimeout = new Runnable() {
+        public void run() {
+            if (null == mCurrent)
+                return;
+            Log.w(TAG, "Timed out on op " + mCurrent.type + " for " + mCurrent.getUuid());
+            ++mTimeoutCount;
+            publishStats();
+            retryOrFail(BluetoothGatt.GATT_FAILURE);
+        }
+    };
+
+    private final Runnable mStartCurrent = new Runnable() {
+        public void run() {
+            startCurrent();
+        }
+    };
+
+    public GattOperationQueue(Handler handler, Listener listener) {
+        mHandler = handler;
+        mListener = listener;
+    }
+
+    /** Sets the connection to run operations on and drops anything queued for the previous one. */
+    public void setGatt(BluetoothGatt gatt) {
+        clear();
+        mGatt = gatt;
+    }
+
+    public void read(BluetoothGattCharacteristic characteristic) {
+        enqueue(new Operation(OP_READ, characteristic, null, null));
+    }
+
+    public void write(BluetoothGattCharacteristic characteristic, byte[] value) {
+        enqueue(new Operation(OP_WRITE, characteristic, null, value));
+    }
+
+    public void writeDescriptor(BluetoothGattDescriptor descriptor, byte[] value) {
+        enqueue(new Operation(OP_WRITE_DESCRIPTOR, descriptor.getCharacteristic(), descriptor, value));
+    }
+
+    /** Enables local notification for the characteristic and writes its client configuration descriptor. */
+    public void enableNotification(BluetoothGattCharacteristic characteristic) {
+        BluetoothGattDescriptor descriptor = characteristic.getDescriptor(UUID_CLIENT_CHARACTERISTIC_CONFIG);
+        if (null == descriptor) {
+            Log.w(TAG, "Notification Error, descriptor doesn't exist");
+            return;
+        }
+        enqueue(new Operation(OP_ENABLE_NOTIFICATION, characteristic, descriptor,
+                BluetoothGattDescriptor.ENABLE_NOTIFICATION_VALUE));
+    }
+
+    /** Returns true when nothing is running or waiting. */
+    public boolean isEmpty() {
+        return null == mCurrent && mPending.isEmpty();
+    }
+
+    /** Returns the type of the running operation, or -1 when idle. */
+    public int getCurrentType() {
+        return null != mCurrent ? mCurrent.type : -1;
+    }
+
+    /**
+     * Passes a characteristic read or write callback.
+     * @return true when it completed the running operation successfully,
+     * false when it was ignored, is being retried, or failed for good
+     */
+    public boolean onOperationComplete(BluetoothGattCharacteristic characteristic, int status) {
+        // the stack hands back the characteristic objects of the connection, the same ones queued
+        if (null == mCurrent || null != mCurrent.descriptor || characteristic != mCurrent.characteristic) {
+            Log.w(TAG, "Ignored callback for " + characteristic.getUuid());
+            return false;
+        }
+        return complete(status);
+    }
+
+    /**
+     * Passes a descriptor write callback.
+     * @return true when it completed the running operation successfully,
+     * false when it was ignored, is being retried, or failed for good
+     */
+    public boolean onOperationComplete(BluetoothGattDescriptor descriptor, int status) {
+        if (null == mCurrent || descriptor != mCurrent.descriptor) {
+            Log.w(TAG, "Ignored callback for " + descriptor.getUuid());
+            return false;
+        }
+        return complete(status);
+    }
+
+    private boolean complete(int status) {
+        mHandler.removeCallbacks(mTimeout);
+        // a late callback can land while a retry waits to start
+        mHandler.removeCallbacks(mStartCurrent);
+        if (BluetoothGatt.GATT_SUCCESS != status) {
+            retryOrFail(status);
+            return false;
+        }
+        long latency = SystemClock.elapsedRealtime() - mCurrent.queuedMillis;
+        ++mCompletedCount;
+        mTotalLatencyMillis += latency;
+        if (latency > mMaxLatencyMillis)
+            mMaxLatencyMillis = latency;
+        publishStats();
+        mCurrent = null;
+        startNext();
+        return true;
+    }
+
+    /** Drops the running and queued operations. */
+    public void clear() {
+        mHandler.removeCallbacks(mTimeout);
+        mHandler.removeCallbacks(mStartCurrent);
+        mPending.clear();
+        mCurrent = null;
+    }
+
+    public void resetStats() {
+        mMaxDepth = 0;
+        mCompletedCount = 0;
+        mRetryCount = 0;
+        mTimeoutCount = 0;
+        mTotalLatencyMillis = 0;
+        mMaxLatencyMillis = 0;
+        publishStats();
+    }
+
+    /** Returns the counts since the last resetStats, safe to call from any thread. */
+    public GattOperationStats getStats() {
+        return mStats;
+    }
+
+    @Override
+    public String toString() {
+        return mStats.toString();
+    }
+
+    private void publishStats() {
+        mStats = new GattOperationStats(mMaxDepth, mCompletedCount, mRetryCount, mTimeoutCount,
+                mTotalLatencyMillis, mMaxLatencyMillis);
+    }
+
+    private void enqueue(Operation operation) {
+        mPending.add(operation);
+        int depth = mPending.size() + (null != mCurrent ? 1 : 0);
+        if (depth > mMaxDepth) {
+            mMaxDepth = depth;
+            publishStats();
+        }
+        if (null == mCurrent)
+            startNext();
+    }
+
+    private void startNext() {
+        mCurrent = mPending.poll();
+        if (null != mCurrent)
+            startCurrent();
+    }
+
+    private void startCurrent() {
+        Operation operation = mCurrent;
+        if (null == operation)
+            return;
+        if (null == mGatt) {
+            Log.w(TAG, "No GATT connection for op " + operation.type);
+            fail(BluetoothGatt.GATT_FAILURE);
+            return;
+        }
+        boolean started;
+        switch (operation.type) {
+            case OP_READ:
+                started = mGatt.readCharacteristic(operation.characteristic);
+                break;
+            case OP_WRITE:
+                operation.characteristic.setValue(operation.value);
+                started = mGatt.writeCharacteristic(operation.characteristic);
+                break;
+            case OP_ENABLE_NOTIFICATION:
+                /* Clear out any old notify */
+                mGatt.setCharacteristicNotification(operation.characteristic, false);
+                if (!mGatt.setCharacteristicNotification(operation.characteristic, true)) {
+                    started = false;
+                    break;
+                }
+                // fall through to write the descriptor
+            case OP_WRITE_DESCRIPTOR:
+                operation.descriptor.setValue(operation.value);
+                started = mGatt.writeDescriptor(operation.descriptor);
+                break;
+            default:
+                started = false;
+                break;
+        }
+        if (!started) {
+            Log.w(TAG, "Failed to start op " + operation.type + " for " + operation.getUuid());
+            retryOrFail(BluetoothGatt.GATT_FAILURE);
+            return;
+        }
+        mHandler.postDelayed(mTimeout, OPERATION_TIMEOUT_MILLIS);
+    }
+
+    private void retryOrFail(int status) {
+        if (mCurrent.retries < MAX_RETRIES) {
+            retry();
+        } else {
+            fail(status);
+        }
+    }
+
+    private void retry() {
+        ++mCurrent.retries;
+        ++mRetryCount;
+        publishStats();
+        mHandler.removeCallbacks(mTimeout);
+        mHandler.postDelayed(mStartCurrent, RETRY_DELAY_MILLIS);
+    }
+
+    private void fail(int status) {
+        Operation operation = mCurrent;
+        clear();
+        mListener.onOperationFailed(operation.type, operation.getUuid(), status);
+    }
+}
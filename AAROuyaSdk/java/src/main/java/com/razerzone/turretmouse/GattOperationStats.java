@@ -0,0 +1,61 @@
+package com.razerzone.turretmouse;
+
+/**
+ * Immutable copy of the GATT operation counts since scanning last started.
+ * A new one is published after every change, so it can be read from any
+ * thread.
+ *
+ * @see TurretMouseService#getGattOperationStats()
+ */
+public final class GattOperationStats {
+
+    private final int mMaxDepth;
+    private final int mCompletedCount;
+    private final int mRetryCount;
+    private final int mTimeoutCount;
+    private final long mTotalLatencyMillis;
+    private final long mMaxLatencyMillis;
+
+    GattOperationStats(int maxDepth, int completedCount, int retryCount, int timeoutCount,
+                       long totalLatencyMillis, long maxLatencyMillis) {
+        mMaxDepth = maxDepth;
+        mCompletedCount = completedCount;
+        mRetryCount = retryCount;
+        mTimeoutCount = timeoutCount;
+        mTotalLatencyMillis = totalLatencyMillis;
+        mMaxLatencyMillis = maxLatencyMillis;
+    }
+
+    /** Most operations running and waiting at once. */
+    public int getMaxDepth() {
+        return mMaxDepth;
+    }
+
+    public int getCompletedCount() {
+        return mCompletedCount;
+    }
+
+    public int getRetryCount() {
+        return mRetryCount;
+    }
+
+    public int getTimeoutCount() {
+        return mTimeoutCount;
+    }
+
+    /** Average milliseconds from queueing to completion, including the wait behind earlier operations. */
+    public long getAverageLatencyMillis() {
+        return mCompletedCount > 0 ? mTotalLatencyMillis / mCompletedCount : 0;
+    }
+
+    public long getMaxLatencyMillis() {
+        return mMaxLatencyMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ops=" + mCompletedCount + " maxDepth=" + mMaxDepth + " retries=" + mRetryCount +
+                " timeouts=" + mTimeoutCount + " avgLatency=" + getAverageLatencyMillis() +
+                "ms maxLatency=" + mMaxLatencyMillis + "ms";
+    }
+}
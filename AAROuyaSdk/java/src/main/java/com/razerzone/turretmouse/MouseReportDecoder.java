@@ -0,0 +1,64 @@
+package com.razerzone.turretmouse;
+
+/**
+ * Decodes the fields of BLE mouse input reports straight from the raw bytes.
+ * <p>
+ * Movement is two's complement: 16 bit little endian in the Razer report and
+ * 12 bit packed in the Lenovo N700 report. Bytes past the end of a short
+ * report read as zero.
+ */
+public final class MouseReportDecoder {
+
+    // Razer report: buttons, 2 reserved bytes, wheel, x low, x high, y low, y high
+    public static final int RAZER_REPORT_SIZE = 8;
+    private static final int RAZER_BUTTONS = 0;
+    private static final int RAZER_WHEEL = 3;
+    private static final int RAZER_X = 4;
+    private static final int RAZER_Y = 6;
+
+    // Lenovo N700 movement report: x low 8 bits, y low 4 bits | x high 4 bits, y high 8 bits
+    private static final int LENOVO_X_LOW = 0;
+    private static final int LENOVO_MIXED = 1;
+    private static final int LENOVO_Y_HIGH = 2;
+
+    private MouseReportDecoder() {
+    }
+
+    public static int getRazerButtons(byte[] report) {
+        return getByte(report, RAZER_BUTTONS);
+    }
+
+    public static int getRazerWheel(byte[] report) {
+        return getByte(report, RAZER_WHEEL);
+    }
+
+    public static int getRazerDeltaX(byte[] report) {
+        return (short) ((getUnsignedByte(report, RAZER_X + 1) << 8) | getUnsignedByte(report, RAZER_X));
+    }
+
+    public static int getRazerDeltaY(byte[] report) {
+        return (short) ((getUnsignedByte(report, RAZER_Y + 1) << 8) | getUnsignedByte(report, RAZER_Y));
+    }
+
+    public static int getLenovoDeltaX(byte[] report) {
+        return signExtend12(((getUnsignedByte(report, LENOVO_MIXED) & 0x0F) << 8) |
+                getUnsignedByte(report, LENOVO_X_LOW));
+    }
+
+    public static int getLenovoDeltaY(byte[] report) {
+        return signExtend12((getUnsignedByte(report, LENOVO_Y_HIGH) << 4) |
+                (getUnsignedByte(report, LENOVO_MIXED) >>> 4));
+    }
+
+    private static int signExtend12(int value) {
+        return (value << 20) >> 20;
+    }
+
+    private static int getByte(byte[] report, int index) {
+        return index < report.length ? report[index] : 0;
+    }
+
+    private static int getUnsignedByte(byte[] report, int index) {
+        return index < report.length ? report[index] & 0xFF : 0;
+    }
+}
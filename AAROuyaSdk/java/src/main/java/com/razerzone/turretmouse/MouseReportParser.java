@@ -0,0 +1,14 @@
+package com.razerzone.turretmouse;
+
+/**
+ * Decodes the input reports of one kind of mouse, resolved once per
+ * connection by MouseReportParserRegistry.
+ */
+public interface MouseReportParser {
+
+    /**
+     * @param instanceId instance of the report characteristic that notified
+     * @param data the report, at least one byte long
+     */
+    void parseReport(int instanceId, byte[] data);
+}
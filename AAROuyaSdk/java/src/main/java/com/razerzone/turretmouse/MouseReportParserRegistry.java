@@ -0,0 +1,40 @@
+package com.razerzone.turretmouse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maps a connected mouse to its MouseReportParser.
+ * <p>
+ * Parsers are registered by PnP ID, as TurretMouseService formats it, and by
+ * device name. A PnP ID match wins over a name match, since names can be
+ * changed by the user. The service resolves the parser when the name or the
+ * PnP ID is read and keeps it until it disconnects, so a notification does
+ * no lookups. The report descriptor is not read from the device, so it is
+ * not a key.
+ */
+public class MouseReportParserRegistry {
+
+    private final Map<String, MouseReportParser> mParsersByPnpId = new HashMap<String, MouseReportParser>();
+
+    private final Map<String, MouseReportParser> mParsersByName = new HashMap<String, MouseReportParser>();
+
+    public void registerPnpId(String pnpId, MouseReportParser parser) {
+        mParsersByPnpId.put(pnpId, parser);
+    }
+
+    public void registerName(String name, MouseReportParser parser) {
+        mParsersByName.put(name, parser);
+    }
+
+    /**
+     * @return the parser for the device, or null when it is not supported
+     */
+    public MouseReportParser resolve(String pnpId, String name) {
+        MouseReportParser parser = mParsersByPnpId.get(pnpId);
+        if (null == parser) {
+            parser = mParsersByName.get(name);
+        }
+        return parser;
+    }
+}
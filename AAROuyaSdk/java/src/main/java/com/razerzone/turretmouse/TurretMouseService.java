@@ -11,14 +11,17 @@ import android.bluetooth.BluetoothGattService;
 import android.bluetooth.BluetoothManager;
 import android.bluetooth.BluetoothProfile;
 import android.bluetooth.le.*;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.os.Binder;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Looper;
 import android.os.ParcelUuid;
+import android.os.SystemClock;
 import android.util.Log;
 import android.widget.Toast;
 
@@ -100,7 +103,13 @@ public class TurretMouseService extends Service {
      * @see mouseReceiver#onMouseAction(int[]) */
     public final static int BUTTON_8 = 0x01 << 7;
 
-    private final static String CLIENT_CHARACTERISTIC = "00002902-0000-1000-8000-00805f9b34fb";
+    private final static UUID UUID_BOOT_MOUSE_SERVICE = UUID.fromString("00001812-0000-1000-8000-00805f9b34fb"); // Boot Mouse HID Report
+    private final static ParcelUuid PARCEL_UUID_BOOT_MOUSE_SERVICE = new ParcelUuid(UUID_BOOT_MOUSE_SERVICE);
+    private final static UUID UUID_DEVICE_NAME = UUID.fromString("00002a00-0000-1000-8000-00805f9b34fb");
+    private final static UUID UUID_PNP_ID = UUID.fromString("00002a50-0000-1000-8000-00805f9b34fb");
+    private final static UUID UUID_RAZER_REPORT = UUID.fromString("52401526-f97c-7f90-0e7f-6c6f4e36db1c"); // Turret Mouse Custom Report
+
+    private final static String TURRET_PNP_ID = "5021730";
 
     private final static String ACTION_GATT_CONNECTED =
             "com.razer.ble_mousetest.app.ACTION_GATT_CONNECTED";
@@ -115,11 +124,53 @@ public class TurretMouseService extends Service {
     private final static String ACTION_BOND_STATE_CHANGED =
             "android.bluetooth.device.action.BOND_STATE_CHANGED";
 
-    private static final int STATE_DISCONNECTED = 0;
-    private static final int STATE_CONNECTING = 1;
-    private static final int STATE_CONNECTED = 2;
+    /** Not scanning or connected.
+     * @see #getConnectionState() */
+    public static final int STATE_IDLE = 0;
+    /** Scanning for a Turret mouse. */
+    public static final int STATE_SCANNING = 1;
+    /** Waiting for the mouse to bond. */
+    public static final int STATE_BONDING = 2;
+    /** Waiting for the GATT connection. */
+    public static final int STATE_CONNECTING = 3;
+    /** Discovering the GATT services. */
+    public static final int STATE_DISCOVERING = 4;
+    /** Reading the device name and PnP ID. */
+    public static final int STATE_READING_INFO = 5;
+    /** Enabling the report notifications. */
+    public static final int STATE_SUBSCRIBING = 6;
+    /** Receiving mouse reports. */
+    public static final int STATE_CONNECTED = 7;
+
+    private static final int STATE_COUNT = 8;
+
+    private static final String[] STATE_NAMES = {
+            "IDLE", "SCANNING", "BONDING", "CONNECTING", "DISCOVERING", "READING_INFO", "SUBSCRIBING", "CONNECTED"
+    };
 
-    private int mConnectionState = STATE_DISCONNECTED;
+    // how long a connection step may take before the mouse is dropped and scanning restarts, 0 for no limit,
+    // the GATT operations while reading info and subscribing have their own timeouts in mGattQueue
+    private static final long[] STATE_TIMEOUTS = { 0, 0, 10000, 10000, 10000, 0, 0, 0 };
+
+    // only changed on the processing thread
+    private volatile int mConnectionState = STATE_IDLE;
+    private long mStateStartMillis = SystemClock.elapsedRealtime();
+    // time spent in each state since scanning last started
+    private final long[] mStateMillis = new long[STATE_COUNT];
+    // copy of the state times for other threads, replaced on each state change
+    private volatile StateTimes mStateTimes = new StateTimes(STATE_IDLE, mStateStartMillis, mStateMillis);
+
+    private static final class StateTimes {
+        final int state;
+        final long startMillis;
+        final long[] millis;
+
+        StateTimes(int state, long startMillis, long[] millis) {
+            this.state = state;
+            this.startMillis = startMillis;
+            this.millis = millis.clone();
+        }
+    }
 
     // Stops scanning after 10 seconds.
     private static final long SCAN_PERIOD = 180000;
@@ -128,13 +179,15 @@ public class TurretMouseService extends Service {
     // -----------------  VARIABLE DECLARATIONS  -----------------
     // -----------------------------------------------------------
 
-    private boolean mConnected = false;
+    private volatile boolean mConnected = false;
     private boolean mCallbackEnabled = true;
 
     private String mDeviceName = "";
     private int mDeviceProductId = 0;
     private int mDeviceVendorId = 0;
     private String mPnPID = "";
+    private final MouseReportParserRegistry mReportParsers = createReportParsers();
+    private volatile MouseReportParser mReportParser = null;
     private int mCounter133 = 0;
 
     private BluetoothManager mBluetoothManager;
@@ -149,15 +202,14 @@ public class TurretMouseService extends Service {
 
     private boolean mScanning;
     private Handler mHandler = new Handler(Looper.getMainLooper());
-    private Thread mProcessingThread;
+    private HandlerThread mProcessingThread;
     private Handler mProcessingHandler;
     private BluetoothDevice mDevice;
     private BluetoothDevice mConnectedDevice = null;
 
-    private boolean mJustRead = false;
-    private boolean mBonded = false;
-    private boolean mPairingLock = false;
-    private boolean mRebooting = false;
+    private boolean mBondReceiverRegistered = false;
+    private BluetoothGattCharacteristic mPnpIdCharacteristic = null;
+    private GattOperationQueue mGattQueue;
 
     private int mMouseClickInfo = 0;
     private int mMouseWheelInfo = 0;
@@ -186,16 +238,14 @@ public class TurretMouseService extends Service {
     public void onCreate() {
         if(sTurretMouseServiceInstance == null)
             sTurretMouseServiceInstance = this;
-        initializeBLE();
 
-        mProcessingThread = new Thread(new Runnable() {
-            public void run() {
-                Looper.prepare();
-                mProcessingHandler = new Handler();
-                Looper.loop();
-            }
-        });
+        // runs the connection state machine and the report processing
+        mProcessingThread = new HandlerThread(TAG);
         mProcessingThread.start();
+        mProcessingHandler = new Handler(mProcessingThread.getLooper());
+        mGattQueue = new GattOperationQueue(mProcessingHandler, mGattQueueListener);
+
+        initializeBLE();
     }
 
     private boolean initializeBLE() {
@@ -231,6 +281,9 @@ public class TurretMouseService extends Service {
     @Override
     public void onDestroy() {
         stopScanForMouse();
+        disconnect();
+        // runs the stop and disconnect posted above first
+        mProcessingThread.quitSafely();
         sTurretMouseServiceInstance = null;
         super.onDestroy();
     }
@@ -388,6 +441,40 @@ public class TurretMouseService extends Service {
         return mConnected;
     }
 
+    /** Returns the step the connection to the mouse is in, one of the STATE_ constants.
+     * @return connectionState */
+    public int getConnectionState() {
+        return mConnectionState;
+    }
+
+    /** Returns the name of a STATE_ constant, for logging. */
+    public static String getConnectionStateName(int state) {
+        if (state < 0 || state >= STATE_COUNT)
+            return "UNKNOWN";
+        return STATE_NAMES[state];
+    }
+
+    /** Returns the milliseconds spent in a state since scanning last started,
+     * including the time in the current state, to see where connection time goes.
+     * @return stateMillis */
+    public long getConnectionStateMillis(int state) {
+        if (state < 0 || state >= STATE_COUNT)
+            return 0;
+        StateTimes times = mStateTimes;
+        long millis = times.millis[state];
+        if (state == times.state)
+            millis += SystemClock.elapsedRealtime() - times.startMillis;
+        return millis;
+    }
+
+    /** Returns the depth, latency, retry and timeout counts of the GATT
+     * operations run while connecting, since scanning last started.
+     * @return gattOperationStats, null before the service is created */
+    public GattOperationStats getGattOperationStats() {
+        GattOperationQueue queue = mGattQueue;
+        return null != queue ? queue.getStats() : null;
+    }
+
     /** Returns the name of the device.
      * @return mouseName */
     public String getName() {
@@ -509,19 +596,11 @@ public class TurretMouseService extends Service {
 
     /** Used to start device discovery for a new Bluetooth Low Energy mouse.*/
     public void startScanForMouse() {
-
-        scanLeDevice(false);
-        disconnect();
-        mHidJni.discoverMouse();
-        showToast("Scanning for a compatible mouse",Toast.LENGTH_LONG);
-
-        while (mBluetoothGatt != null) {
-            ;
-        } //TODO: REMOVE BUSY WAIT
-
-        initializeBLE();
-        scanLeDevice(true);
-        mRebooting = false;
+        mProcessingHandler.post(new Runnable() {
+            public void run() {
+                startScan();
+            }
+        });
     }
 
     /** Used to stop device discovery for a new Bluetooth Low Energy mouse.
@@ -531,17 +610,238 @@ public class TurretMouseService extends Service {
      *  also does not prevent receiving input from Bluetooth Low Energy
      *  mice that the system has already paired with.*/
     public void stopScanForMouse() {
-        //showToast("Stopped scanning for a compatible mouse", Toast.LENGTH_LONG);
+        mProcessingHandler.post(new Runnable() {
+            public void run() {
+                //showToast("Stopped scanning for a compatible mouse", Toast.LENGTH_LONG);
+                scanLeDevice(false);
+                mHidJni.stopDiscoverMouse();
+                if (mConnectionState == STATE_SCANNING)
+                    setConnectionState(STATE_IDLE);
+            }
+        });
+    }
+
+    // --------------------------------------------------------------------------------
+    // -----------------  CONNECTION STATE MACHINE  -----------------------------------
+    // --------------------------------------------------------------------------------
+    //
+    // SCANNING -> BONDING -> CONNECTING -> DISCOVERING -> READING_INFO -> SUBSCRIBING -> CONNECTED
+    //
+    // Every step runs on the processing thread and moves on from a Bluetooth callback.
+    // A step that fails, or outlasts its STATE_TIMEOUTS entry, drops the mouse and
+    // scanning starts over. GATT reads and notification enables go through mGattQueue,
+    // which runs them one at a time and retries them. Callbacks for a GATT connection that was already closed
+    // are ignored.
+
+    private final Runnable mStateTimeout = new Runnable() {
+        public void run() {
+            Log.w(TAG, "Timed out in state " + STATE_NAMES[mConnectionState]);
+            startScan();
+        }
+    };
+
+    private void setConnectionState(int state) {
+        long now = SystemClock.elapsedRealtime();
+        int previous = mConnectionState;
+        long elapsed = now - mStateStartMillis;
+        mStateMillis[previous] += elapsed;
+        mStateStartMillis = now;
+        mConnectionState = state;
+        mStateTimes = new StateTimes(state, now, mStateMillis);
+        Log.i(TAG, "Connection state " + STATE_NAMES[previous] + " -> " + STATE_NAMES[state] + " after " + elapsed + " ms");
+
+        mProcessingHandler.removeCallbacks(mStateTimeout);
+        if (STATE_TIMEOUTS[state] > 0)
+            mProcessingHandler.postDelayed(mStateTimeout, STATE_TIMEOUTS[state]);
+    }
+
+    private void startScan() {
         scanLeDevice(false);
+        closeConnection();
+        mHidJni.discoverMouse();
+        showToast("Scanning for a compatible mouse",Toast.LENGTH_LONG);
+
+        initializeBLE();
+        for (int state = 0; state < STATE_COUNT; state++)
+            mStateMillis[state] = 0;
+        mGattQueue.resetStats();
+        setConnectionState(STATE_SCANNING);
+        scanLeDevice(true);
+    }
+
+    private void beginPairing(BluetoothDevice device) {
+        if (mConnectionState != STATE_SCANNING) {
+            Log.i(TAG, "Tried to pair while " + STATE_NAMES[mConnectionState]);
+            return;
+        }
+        mDevice = device;
+        mDeviceName = "";
+        setConnectionState(STATE_BONDING);
+
+        // register before checking, so a bond that completes in between is not missed
+        registerReceiver(mBondReceiver, new IntentFilter(BluetoothDevice.ACTION_BOND_STATE_CHANGED),
+                null, mProcessingHandler);
+        mBondReceiverRegistered = true;
+        if (device.getBondState() == BluetoothDevice.BOND_BONDED) {
+            connectGatt();
+        } else if (!device.createBond() && device.getBondState() != BluetoothDevice.BOND_BONDING) {
+            Log.w(TAG, "Failed to start bonding");
+            startScan();
+        }
+    }
+
+    private final BroadcastReceiver mBondReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            BluetoothDevice device = intent.getParcelableExtra(BluetoothDevice.EXTRA_DEVICE);
+            if (mConnectionState != STATE_BONDING || null == device || !device.equals(mDevice))
+                return;
+            int bondState = intent.getIntExtra(BluetoothDevice.EXTRA_BOND_STATE, BluetoothDevice.BOND_NONE);
+            if (bondState == BluetoothDevice.BOND_BONDED) {
+                connectGatt();
+            } else if (bondState == BluetoothDevice.BOND_NONE) {
+                Log.w(TAG, "Bonding failed");
+                startScan();
+            }
+        }
+    };
+
+    private void unregisterBondReceiver() {
+        if (mBondReceiverRegistered) {
+            unregisterReceiver(mBondReceiver);
+            mBondReceiverRegistered = false;
+        }
+    }
+
+    private void connectGatt() {
+        unregisterBondReceiver();
+        if (null != mBluetoothGatt)
+            mBluetoothGatt.close();
+        setConnectionState(STATE_CONNECTING);
+        mBluetoothGatt = mDevice.connectGatt(this, false, mGattCallback);
+        mGattQueue.setGatt(mBluetoothGatt);
+        Log.d(TAG, "Create a new GATT connection.");
+    }
+
+    private void handleConnectionStateChange(BluetoothGatt gatt, int status, int newState) {
+        if (gatt != mBluetoothGatt)
+            return;
+
+        if (BluetoothGatt.GATT_SUCCESS == status && BluetoothProfile.STATE_CONNECTED == newState) {
+            broadcastUpdate(ACTION_GATT_CONNECTED);
+            Log.i(TAG, "Connected to GATT server.");
+            if (mConnectionState == STATE_CONNECTING) {
+                setConnectionState(STATE_DISCOVERING);
+                // Attempts to discover services after successful connection.
+                Log.i(TAG, "Attempting to start service discovery:" + gatt.discoverServices());
+            }
+        } else if (BluetoothGatt.GATT_SUCCESS == status && BluetoothProfile.STATE_DISCONNECTED == newState) {
+            Log.i(TAG, "Disconnected from GATT server.");
+            broadcastUpdate(ACTION_GATT_DISCONNECTED);
+            startScan();
+        } else if (BluetoothGatt.GATT_SUCCESS != status) {
+            Log.i(TAG, "Disconnected from GATT server due to error.");
+            broadcastUpdate(ACTION_GATT_DISCONNECTED);
+            startScan();
+        }
+    }
+
+    private void handleServicesDiscovered(BluetoothGatt gatt, int status) {
+        if (gatt != mBluetoothGatt || mConnectionState != STATE_DISCOVERING)
+            return;
+        if (BluetoothGatt.GATT_SUCCESS != status) {
+            Log.w(TAG, "onServicesDiscovered received: " + status);
+            startScan();
+            return;
+        }
+        broadcastUpdate(ACTION_GATT_SERVICES_DISCOVERED);
+        mReportServices = gatt.getServices();
+
+        BluetoothGattCharacteristic devNameChara = findCharacteristic(UUID_DEVICE_NAME);
+        mPnpIdCharacteristic = findCharacteristic(UUID_PNP_ID);
+        if (null == mPnpIdCharacteristic) {
+            Log.w(TAG, "Mouse has no PnP ID");
+            startScan();
+            return;
+        }
+        setConnectionState(STATE_READING_INFO);
+        if (null != devNameChara)
+            mGattQueue.read(devNameChara);
+        mGattQueue.read(mPnpIdCharacteristic);
+    }
+
+    private void handleCharacteristicRead(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic, int status) {
+        if (gatt != mBluetoothGatt || mConnectionState != STATE_READING_INFO)
+            return;
+        // a failed read restarts scanning through mGattQueueListener
+        if (!mGattQueue.onOperationComplete(characteristic, status))
+            return;
+        broadcastUpdate(ACTION_DATA_AVAILABLE, characteristic);
+
+        // the PnP ID is read last
+        if (!characteristic.getUuid().equals(UUID_PNP_ID))
+            return;
+
+        Log.i(TAG, "PNPID: " + mPnPID);
+        if (!mPnPID.equals(TURRET_PNP_ID)) {
+            Log.w(TAG, "Not a Turret mouse");
+            startScan();
+            return;
+        }
+        scanLeDevice(false);
+        showToast("Pairing to " + mDeviceName, Toast.LENGTH_SHORT);
         mHidJni.stopDiscoverMouse();
+
+        setConnectionState(STATE_SUBSCRIBING);
+        for (BluetoothGattService reportService : mReportServices) {
+            for (BluetoothGattCharacteristic chara : reportService.getCharacteristics()) {
+                if (chara.getUuid().equals(UUID_RAZER_REPORT))
+                    mGattQueue.enableNotification(chara);
+            }
+        }
+        if (mGattQueue.isEmpty()) {
+            Log.w(TAG, "Mouse has no report characteristic");
+            startScan();
+        }
+    }
+
+    private void handleDescriptorWrite(BluetoothGatt gatt, BluetoothGattDescriptor descriptor, int status) {
+        if (gatt != mBluetoothGatt || mConnectionState != STATE_SUBSCRIBING)
+            return;
+        // a failed write restarts scanning through mGattQueueListener
+        if (!mGattQueue.onOperationComplete(descriptor, status))
+            return;
+        Log.i(TAG, "DESCRIPTOR WRITE SUCCEEDED!!");
+        if (!mGattQueue.isEmpty())
+            return;
+
+        mConnectedDevice = mDevice;
+        mConnected = true;
+        setConnectionState(STATE_CONNECTED);
+        Log.i(TAG, "GATT operations: " + mGattQueue);
+        showToast("Connected to " + mDeviceName, Toast.LENGTH_SHORT);
+    }
+
+    private final GattOperationQueue.Listener mGattQueueListener = new GattOperationQueue.Listener() {
+        public void onOperationFailed(int type, UUID uuid, int status) {
+            Log.w(TAG, "GATT operation " + type + " for " + uuid + " failed: " + status + ", " + mGattQueue);
+            startScan();
+        }
+    };
+
+    private BluetoothGattCharacteristic findCharacteristic(UUID uuid) {
+        for (BluetoothGattService service : mReportServices) {
+            BluetoothGattCharacteristic chara = service.getCharacteristic(uuid);
+            if (null != chara)
+                return chara;
+        }
+        return null;
     }
 
     private void scanLeDevice(final boolean enable) {
 
         if (enable) {
-            //final String myUUID = "00002a33-0000-1000-8000-00805f9b34fb"; // Boot Mouse Input Report
-            final String myUUID = "00001812-0000-1000-8000-00805f9b34fb"; // Boot Mouse HID Report
-            UUID scanuuid[] = new UUID[]{(UUID.fromString(myUUID))};
+            UUID scanuuid[] = new UUID[]{UUID_BOOT_MOUSE_SERVICE};
 
             mScanning = true;
 
@@ -567,138 +867,29 @@ public class TurretMouseService extends Service {
 
         @Override
         public void onScanResult(final int callbackType, final ScanResult result) {
-            // Scan on a different thread to avoid locking up the UI
-
-            //final String myUUID = "00002a33-0000-1000-8000-00805f9b34fb"; // HID Device
-            // Information UUID
-            final String myUUID = "00001812-0000-1000-8000-00805f9b34fb"; // Boot Mouse HID Report
-            final String razerUUID = "5240263a-f97c-7f90-0e7f-6c6f4e36db1c"; // Turret Mouse Custom Service
-            final String repUUID = "00002a4d-0000-1000-8000-00805f9b34fb"; // Boot Mouse Input
-            final String razerRepUUID = "52401526-f97c-7f90-0e7f-6c6f4e36db1c"; // Turret Mouse Custom Report
-            final String devNameUUID = "00002a00-0000-1000-8000-00805f9b34fb"; // Report UUID
-            final String pnpidUUID = "00002a50-0000-1000-8000-00805f9b34fb"; // PnP ID UUID
-
-            final UUID reportuuid = UUID.fromString(razerRepUUID);
-            final UUID devnameuuid = UUID.fromString(devNameUUID);
-            final UUID pnpiduuid = UUID.fromString(pnpidUUID);
-
             //SCAN SERVICES TO SEE IF BOOT MOUSE IS ONE OF THE SECONDARY SERVICES
             List<ParcelUuid> supportedServices;
 
             supportedServices = result.getScanRecord().getServiceUuids();
-            String devName = result.getDevice().getName();
+            final BluetoothDevice device = result.getDevice();
+            String devName = device.getName();
             if (supportedServices != null) {
                 for (ParcelUuid curService : supportedServices) {
                     Log.i(TAG, devName+": "+curService.toString());
-                    if (curService.equals(ParcelUuid.fromString(myUUID)) && devName.equals("Turret Mouse")) {
+                    if (curService.equals(PARCEL_UUID_BOOT_MOUSE_SERVICE) && "Turret Mouse".equals(devName)) {
                         Log.v(TAG, "found mouse");
-                        if(!mPairingLock && !ismConnected()) {
-                            mPairingLock = true;
-                            mHandler.postDelayed(new Runnable() {
-                                public void run() {
-                                    if(!mConnected)
-                                        disconnect();
-                                    mPairingLock = false;
-                                }
-                            },10000);
-                            new Thread(new Runnable() {
-                                public void run() {
-                                    try {
-                                        //scanLeDevice(false);
-
-                                        mDevice = result.getDevice();
-                                        connect(mDevice);
-
-                                        while (mReportServices.isEmpty() && mPairingLock) {
-                                            ;
-                                        } //TODO: REMOVE BUSY WAIT
-
-                                        if (mDeviceName.equals("")) {
-                                            for (BluetoothGattService reportService : mReportServices) {
-                                                BluetoothGattCharacteristic devNameChara = reportService.getCharacteristic(devnameuuid);
-                                                BluetoothGattCharacteristic pnpIdChara = reportService.getCharacteristic(pnpiduuid);
-                                                Log.i(TAG, "PNPID: ");
-                                                if (devNameChara != null) {
-                                                    readCharacteristic(devNameChara);
-                                                }
-                                                if (pnpIdChara != null) {
-                                                    readCharacteristic(pnpIdChara);
-                                                    if (mPnPID.equals("5021730")) {
-                                                        scanLeDevice(false);
-                                                        showToast("Pairing to " + mDeviceName, Toast.LENGTH_SHORT);
-                                                        mHidJni.stopDiscoverMouse();
-                                                        for (BluetoothGattService usefulReportService : mReportServices) {
-                                                            if (usefulReportService.getCharacteristic(reportuuid) != null) {
-
-                                                                //readCharacteristic(usefulReportService.getCharacteristic(reportuuid));
-                                                                setNotifications(usefulReportService);
-
-                                                                mConnectedDevice = result.getDevice();
-                                                                mConnected = true;
-                                                                showToast("Connected to " + mDeviceName, Toast.LENGTH_SHORT);
-                                                            }
-                                                        }
-                                                        break;
-                                                    }
-                                                }
-                                            }
-                                            mReportServices = new ArrayList<BluetoothGattService>();
-                                        }
-                                    } finally {
-                                        mPairingLock =false;
-                                    }
-                                }
-                            }).start();
-                        }
-                        else {
-                            Log.i(TAG, "Tried to pair when pairing lock was on!");
-                        }
+                        mProcessingHandler.post(new Runnable() {
+                            public void run() {
+                                beginPairing(device);
+                            }
+                        });
+                        break;
                     }
                 }
             }
         };
     };
 
-    // Set notifications for relevant Boot Mouse characteristics
-    private void setNotifications(BluetoothGattService curService) {
-        final String myUUID = "00002a4d-0000-1000-8000-00805f9b34fb"; // Boot Mouse Input
-        final String razerUUID = "52401526-f97c-7f90-0e7f-6c6f4e36db1c"; // Razer Custom Mouse Input
-        // Report UUID
-        UUID reportuuid = UUID.fromString(razerUUID);
-
-        for (BluetoothGattCharacteristic chara : curService.getCharacteristics()) {
-            if (chara.getUuid().equals(reportuuid)) {
-                setCharacteristicNotification(chara, true);
-                Log.v(TAG, "characteristicNotificationSet");
-            }
-        }
-    }
-
-    private boolean connect(BluetoothDevice device) {
-        mDeviceName = "";
-        boolean rvalue = false;
-
-        if ((null != mBluetoothAdapter) && (null != device)) {
-
-            mBonded = false;
-            device.createBond();
-            while(device.getBondState() != device.BOND_BONDED && mPairingLock) {;} //TODO: REMOVE BUSY WAIT
-
-            if(mBluetoothGatt != null) {
-                mBluetoothGatt.close();
-            }
-        /* Set up a new callback */
-            mBluetoothGatt = device.connectGatt(this, false, mGattCallback);
-            //mBluetoothGatt = device.connectGatt(this, false, mGattCallback); //Why twice?
-
-            Log.d(TAG, "Create a new GATT connection.");
-            mConnectionState = STATE_CONNECTING;
-            rvalue = true;
-        }
-
-        return rvalue;
-    }
-
     // --------------------------------------------------------------------------------
     // -----------------  BLE MOUSE INFORMATION UPDATE METHODS  -----------------------
     // --------------------------------------------------------------------------------
@@ -707,132 +898,78 @@ public class TurretMouseService extends Service {
         ;
     }
 
-    private String toBinary( byte[] bytes )
-    {
-        StringBuilder sb = new StringBuilder(bytes.length * Byte.SIZE);
-        for( int i = 0; i < Byte.SIZE * bytes.length; i++ )
-            sb.append((bytes[i / Byte.SIZE] << i % Byte.SIZE & 0x80) == 0 ? '0' : '1');
-        return sb.toString();
-    }
-
-    // Helper function to help convert bit strings that represent
-    // negative integers
-    private String flipBits(String bitString) {
-        String newString = "1";
-        for(int i=1; i<bitString.length(); i++) {
-            if (bitString.charAt(i) == '0')
-                newString = newString + "1";
-            else
-                newString = newString + "0";
-        }
-        return newString;
-    }
-
     private void broadcastUpdate(final String action,
                                  final BluetoothGattCharacteristic characteristic) {
-        final byte[] data = characteristic.getValue();
-        final String devNameUUID = "00002a00-0000-1000-8000-00805f9b34fb";
-        UUID devnameuuid = UUID.fromString(devNameUUID);
-
-        final String pnpidUUID = "00002a50-0000-1000-8000-00805f9b34fb"; // PnP ID UUID
-        final UUID pnpiduuid = UUID.fromString(pnpidUUID);
-
-        final String repUUID = "00002a4d-0000-1000-8000-00805f9b34fb"; // Boot Mouse Input
-        final String razerUUID = "52401526-f97c-7f90-0e7f-6c6f4e36db1c"; // Razer Custom Mouse Input
-        final UUID repuuid = UUID.fromString(razerUUID);
-
-        if ((characteristic.getUuid()).equals(devnameuuid)) {
+        final UUID uuid = characteristic.getUuid();
+
+        if (uuid.equals(UUID_RAZER_REPORT)) {
+            // resolved once per connection, see resolveReportParser
+            final MouseReportParser parser = mReportParser;
+            final byte[] data = characteristic.getValue();
+            if (null != parser && null != data && data.length > 0) {
+                parser.parseReport(characteristic.getInstanceId(), data);
+            }
+        }
+        else if (uuid.equals(UUID_DEVICE_NAME)) {
             mDeviceName = characteristic.getStringValue(0);
+            resolveReportParser();
         }
-        else if ((characteristic.getUuid()).equals(pnpiduuid)) {
+        else if (uuid.equals(UUID_PNP_ID)) {
             byte[] pnpid = characteristic.getValue();
             for(int i=1;i<=4;i++) {
                 mPnPID += pnpid[i];
             }
+            resolveReportParser();
         }
-        else if ((characteristic.getUuid()).equals(repuuid)) {
-            //Log.v(TAG, "boot mouse input report read successful");
-
-            if (null != data) {
-                if (data.length > 0) {
-                    if (mDeviceName.equals("Lenovo Mice N700")) {
-                        byte[] dataBytes = null;
-
-                        if (characteristic.getInstanceId() == 0) {
-                            dataBytes = Arrays.copyOf(data, 1);
-                            mMouseClickInfo = (int) dataBytes[0];
-
-                        } else if (characteristic.getInstanceId() == 1) {
-                            dataBytes = Arrays.copyOf(data, 3);
-                            String xLastByte = toBinary(new byte[]{dataBytes[0]});
-                            String mixedByte = toBinary(new byte[]{dataBytes[1]});
-                            String yFirstByte = toBinary(new byte[]{dataBytes[2]});
-                            String xString = mixedByte.substring(4, 8) + xLastByte;
-                            String yString = yFirstByte + mixedByte.substring(0, 4);
-
-                            char xSign = xString.charAt(0);
-                            char ySign = yString.charAt(0);
-
-                            if (xSign == '1') // xString represents a negative number
-                                xString = flipBits(xString);
-                            if (ySign == '1') // yString represents a negative number
-                                yString = flipBits(yString);
-
-                            int xDiff = Integer.parseInt(xString.substring(1, xString.length()), 2);
-                            int yDiff = Integer.parseInt(yString.substring(1, yString.length()), 2);
-
-                            if (xSign == '1') // xString represents a negative number
-                                xDiff = -1 * xDiff;
-                            if (ySign == '1') // yString represents a negative number
-                                yDiff = -1 * yDiff;
-
-                            updateMousePosition(xDiff, yDiff);
-                            updateWheelPosition(0);
-
-                            processRazerReport();
-                        }
-                    } else if (mDeviceName.equals("Pearlyn Mouse") || mDeviceName.equals("Turret Mouse")) {
-                        byte[] dataBytes = Arrays.copyOf(data, 8);
+    }
 
-                        if (characteristic.getInstanceId() == 0) {
-                            parseRazerReport(dataBytes);
-                        }
-                    }
+    private void resolveReportParser() {
+        mReportParser = mReportParsers.resolve(mPnPID, mDeviceName);
+        if (null == mReportParser) {
+            Log.w(TAG, "No report parser for " + mDeviceName + " PnP ID " + mPnPID);
+        }
+    }
 
+    private MouseReportParserRegistry createReportParsers() {
+        MouseReportParser razerParser = new MouseReportParser() {
+            @Override
+            public void parseReport(int instanceId, byte[] data) {
+                if (instanceId == 0) {
+                    parseRazerReport(Arrays.copyOf(data, MouseReportDecoder.RAZER_REPORT_SIZE));
                 }
             }
-            //mJustRead = true;
-        }
+        };
+        MouseReportParser lenovoParser = new MouseReportParser() {
+            @Override
+            public void parseReport(int instanceId, byte[] data) {
+                if (instanceId == 0) {
+                    mMouseClickInfo = (int) data[0];
+
+                } else if (instanceId == 1) {
+                    updateMousePosition(MouseReportDecoder.getLenovoDeltaX(data),
+                            MouseReportDecoder.getLenovoDeltaY(data));
+                    updateWheelPosition(0);
+
+                    processRazerReport();
+                }
+            }
+        };
+        MouseReportParserRegistry parsers = new MouseReportParserRegistry();
+        parsers.registerPnpId(TURRET_PNP_ID, razerParser);
+        parsers.registerName("Turret Mouse", razerParser);
+        parsers.registerName("Pearlyn Mouse", razerParser);
+        parsers.registerName("Lenovo Mice N700", lenovoParser);
+        return parsers;
     }
 
     private boolean processReportLock = false;
     public void parseRazerReport(final byte[] dataBytes) {
         mProcessingHandler.post(new Runnable() {
             public void run() {
-                mMouseClickInfo = (int) dataBytes[0];
-                int mouseWheelChange = (int) dataBytes[3];
-                String xLastByte = toBinary(new byte[]{dataBytes[4]});
-                String xFirstByte = toBinary(new byte[]{dataBytes[5]});
-                String yLastByte = toBinary(new byte[]{dataBytes[6]});
-                String yFirstByte = toBinary(new byte[]{dataBytes[7]});
-                String xString = xFirstByte + xLastByte;
-                String yString = yFirstByte + yLastByte;
-
-                char xSign = xString.charAt(0);
-                char ySign = yString.charAt(0);
-
-                if (xSign == '1') // xString represents a negative number
-                    xString = flipBits(xString);
-                if (ySign == '1') // yString represents a negative number
-                    yString = flipBits(yString);
-
-                int xDiff = Integer.parseInt(xString.substring(1, xString.length()), 2);
-                int yDiff = Integer.parseInt(yString.substring(1, yString.length()), 2);
-
-                if (xSign == '1') // xString represents a negative number
-                    xDiff = -1 * xDiff;
-                if (ySign == '1') // yString represents a negative number
-                    yDiff = -1 * yDiff;
+                mMouseClickInfo = MouseReportDecoder.getRazerButtons(dataBytes);
+                int mouseWheelChange = MouseReportDecoder.getRazerWheel(dataBytes);
+                int xDiff = MouseReportDecoder.getRazerDeltaX(dataBytes);
+                int yDiff = MouseReportDecoder.getRazerDeltaY(dataBytes);
 
                 updateMousePosition(xDiff, yDiff);
                 updateWheelPosition(mouseWheelChange);
@@ -898,106 +1035,46 @@ public class TurretMouseService extends Service {
     // -----------------  BLE SERVICE MANAGEMENT METHODS  -----------------
     // --------------------------------------------------------------------
 
-    //gatt service callbacks
+    //gatt service callbacks, moved to the processing thread except for the reports
     private void newGattCallback() {
         mGattCallback = new BluetoothGattCallback() {
             @Override
-            public void onConnectionStateChange(BluetoothGatt gatt, int status, int newState) {
-                String intentAction;
-
+            public void onConnectionStateChange(final BluetoothGatt gatt, final int status, final int newState) {
                 Log.i(TAG, "State change ->" + newState + "    status ->" + status);
-
-                if (BluetoothGatt.GATT_SUCCESS == status) {
-                    if (BluetoothProfile.STATE_CONNECTED == newState) {
-                        intentAction = ACTION_GATT_CONNECTED;
-                        mConnectionState = STATE_CONNECTED;
-                        broadcastUpdate(intentAction);
-                        Log.i(TAG, "Connected to GATT server.");
-                        // Attempts to discover services after successful connection.
-                        while(mBluetoothGatt == null && mPairingLock) {;} //TODO: REMOVE BUSY WAIT
-                        Log.i(TAG, "Attempting to start service discovery:" +
-                                mBluetoothGatt.discoverServices());
-
-                    } else if (BluetoothProfile.STATE_DISCONNECTED == newState) {
-                        intentAction = ACTION_GATT_DISCONNECTED;
-                        mConnectionState = STATE_DISCONNECTED;
-                        Log.i(TAG, "Disconnected from GATT server.");
-                        disconnect();
-                        startScanForMouse();
-                        broadcastUpdate(intentAction);
-                    }
-                } else {
-                    if(!mRebooting) {
-                        mRebooting = true;
-                        intentAction = ACTION_GATT_DISCONNECTED;
-                        mConnectionState = STATE_DISCONNECTED;
-                        Log.i(TAG, "Disconnected from GATT server due to error.");
-                        broadcastUpdate(intentAction);
-
-                        startScanForMouse();
-                    }
-
-                /*//if (8 == status || 133 == status) { //timeout from GATT server, so reconnect and set notifications
-                    if(status == 133) {
-                        mCounter133++;
+                mProcessingHandler.post(new Runnable() {
+                    public void run() {
+                        handleConnectionStateChange(gatt, status, newState);
                     }
-                    if (mCounter133 <= 3) {
-                        final String repUUID = "00002a4d-0000-1000-8000-00805f9b34fb"; // Boot Mouse Input
-                        // Report UUID
-                        UUID reportuuid = UUID.fromString(repUUID);
-
-                        disconnect();
-                        mReportServices = new ArrayList<BluetoothGattService>();
-                        connect(mDevice);
-                        while (mReportServices.isEmpty()) {;} //TODO: REMOVE BUSY WAIT
-
-                        for (BluetoothGattService reportService : mReportServices) {
-                            if (reportService.getCharacteristic(reportuuid) != null) {
-                                setNotifications(reportService);
-                                mConnected = true;
-                            }
-                        }
-                    }
-                    else {
-                        Log.e(TAG, "PERSISTENT 133 ERROR!");
-                    }
-                }*/
-                }
+                });
             }
 
             @Override
-            public void onServicesDiscovered(BluetoothGatt gatt, int status) {
-                if (BluetoothGatt.GATT_SUCCESS == status) {
-                    broadcastUpdate(ACTION_GATT_SERVICES_DISCOVERED);
-                    mReportServices = mBluetoothGatt.getServices();
-                } else {
-                    Log.w(TAG, "onServicesDiscovered received: " + status);
-                }
+            public void onServicesDiscovered(final BluetoothGatt gatt, final int status) {
+                mProcessingHandler.post(new Runnable() {
+                    public void run() {
+                        handleServicesDiscovered(gatt, status);
+                    }
+                });
             }
 
             @Override
-            public void onCharacteristicRead(BluetoothGatt gatt,
-                                             BluetoothGattCharacteristic characteristic,
-                                             int status) {
-                //final String devNameUUID = "00002a00-0000-1000-8000-00805f9b34fb";
-                //UUID devnameuuid = UUID.fromString(devNameUUID);
-                if (BluetoothGatt.GATT_SUCCESS == status) {
-                    broadcastUpdate(ACTION_DATA_AVAILABLE, characteristic);
-                    mJustRead = true;
-                }
-                /*else if ((characteristic.getUuid()).equals(devnameuuid)) {
-                    mBluetoothGatt.readCharacteristic(characteristic);
-                }*/
+            public void onCharacteristicRead(final BluetoothGatt gatt,
+                                             final BluetoothGattCharacteristic characteristic,
+                                             final int status) {
+                mProcessingHandler.post(new Runnable() {
+                    public void run() {
+                        handleCharacteristicRead(gatt, characteristic, status);
+                    }
+                });
             }
 
             @Override
-            public void onDescriptorWrite(BluetoothGatt gatt, BluetoothGattDescriptor descriptor, int status) {
-                if(status != BluetoothGatt.GATT_SUCCESS) {
-                    Log.i(TAG, "DESCRIPTOR WRITE FAILED!!");
-                }
-                else {
-                    Log.i(TAG, "DESCRIPTOR WRITE SUCCEEDED!!");
-                }
+            public void onDescriptorWrite(final BluetoothGatt gatt, final BluetoothGattDescriptor descriptor, final int status) {
+                mProcessingHandler.post(new Runnable() {
+                    public void run() {
+                        handleDescriptorWrite(gatt, descriptor, status);
+                    }
+                });
             }
 
             @Override
@@ -1023,70 +1100,36 @@ public class TurretMouseService extends Service {
         return rvalue;
     }
 
-    private void readCharacteristic(BluetoothGattCharacteristic characteristic) {
-        if ((null == mBluetoothAdapter) || (null == mBluetoothGatt)) {
-            Log.w(TAG, "BluetoothAdapter not initialized");
-            //initializeBLE();
-        } else {
-            mJustRead = false;
-            mBluetoothGatt.readCharacteristic(characteristic);
-
-            while (!mJustRead && mPairingLock) {;} //TODO: REMOVE BUSY WAIT
-        }
-    }
-
-    private void setCharacteristicNotification(BluetoothGattCharacteristic characteristic,
-                                               boolean enabled) {
-
-        //int property = 0;
-        //property = characteristic.getProperties();
-
-        /* Clear out any old notify */
-        mBluetoothGatt.setCharacteristicNotification(characteristic, false);
-
-        /*if (0 != (property & BluetoothGattCharacteristic.PROPERTY_READ)) {
-            //readCharacteristic(characteristic);
-        }*/
-
-        BluetoothGattDescriptor descriptor = null;
-
-        if (mBluetoothAdapter == null || mBluetoothGatt == null) {
-            Log.w(TAG, "BluetoothAdapter not initialized");
-            return;
-        }
-        mBluetoothGatt.setCharacteristicNotification(characteristic, enabled);
-
-        /* Do a proper notify setup */
-        if (characteristic.PROPERTY_NOTIFY > 0) {
-            descriptor = characteristic.getDescriptor(UUID.fromString(CLIENT_CHARACTERISTIC));
-            //descriptor = characteristic.getDescriptor(UUID.fromString(reportuuid));
-            if (null != descriptor) {
-                descriptor.setValue(BluetoothGattDescriptor.ENABLE_NOTIFICATION_VALUE);
-                mBluetoothGatt.writeDescriptor(descriptor);
-            } else {
-                Log.w(TAG, "Notification Error, descriptor doesn't exist");
-            }
-        }
-    }
-
     /** Call this if you want the service to disconnect from the Bluetooth Low Energy mouse
      * that is currently in use. */
     public void disconnect() {
 
         Log.w(TAG, "disconnect() called");
+        mProcessingHandler.post(new Runnable() {
+            public void run() {
+                scanLeDevice(false);
+                closeConnection();
+            }
+        });
+    }
+
+    // drops the mouse and returns the state machine to IDLE, on the processing thread
+    private void closeConnection() {
+        unregisterBondReceiver();
+        mConnected = false;
+        mConnectedDevice = null;
         mDeviceName = "";
         mPnPID = "";
-        if ((null == mBluetoothAdapter) || (null == mBluetoothGatt)) {
-            Log.w(TAG, "BluetoothAdapter not initialized");
-        } else {
-            mConnectedDevice = null;
-            mConnected = false;
-            if(mBluetoothGatt != null)
-                mBluetoothGatt.close();
-
+        mReportParser = null;
+        mPnpIdCharacteristic = null;
+        mGattQueue.setGatt(null);
+        mReportServices = new ArrayList<BluetoothGattService>();
+        if (null != mBluetoothGatt) {
+            mBluetoothGatt.close();
             mBluetoothGatt = null;
         }
         mHidJni.stopMouse();
+        setConnectionState(STATE_IDLE);
         //showToast("All compatible mice have been disconnected", Toast.LENGTH_LONG);
     }
 }
@@ -19,6 +19,8 @@ package tv.ouya.sdk;
 import android.app.Activity;
 import android.app.AlertDialog;
 import android.content.*;
+import android.content.pm.ActivityInfo;
+import android.content.pm.PackageManager;
 import android.content.res.AssetManager;
 import android.content.res.Configuration;
 import android.graphics.PixelFormat;
@@ -55,6 +57,14 @@ public class MainActivity extends Activity
 
     private static final int TURRET_MOUSE_Z_INDEX = 3;
 
+    private static final int TURRET_MOUSE_INFO_COUNT = 6;
+
+    // setTurretMouseInfo masks, one bit per index
+    private static final int TURRET_MOUSE_REPORT_MASK = (1 << TURRET_MOUSE_INFO_COUNT) - 1;
+
+    private static final int TURRET_MOUSE_GENERIC_MASK = (1 << TURRET_MOUSE_BUTTON_INDEX) |
+        (1 << TURRET_MOUSE_Z_INDEX) | (1 << TURRET_MOUSE_X_INDEX) | (1 << TURRET_MOUSE_Y_INDEX);
+
 	private static final boolean sEnableLogging = false;
 
 	protected UnityPlayer mUnityPlayer;		// don't change the name of this variable; referenced from native code
@@ -67,6 +77,28 @@ public class MainActivity extends Activity
 
     public native void setTurretMouseInfoNative(int index, int value);
 
+    void setTurretMouseInfo(int index, int value) {
+        if (OuyaInputRecorder.isRecording()) {
+            OuyaInputRecorder.recordTurret(index, value);
+        }
+        setTurretMouseInfoNative(index, value);
+    }
+
+    public native void setTurretMouseInfoBulkNative(int mask, int buttons, int deltaX, int deltaY, int wheel, int x, int y);
+
+    // sets the indexes in mask with one native call
+    void setTurretMouseInfo(int mask, int buttons, int deltaX, int deltaY, int wheel, int x, int y) {
+        if (OuyaInputRecorder.isRecording()) {
+            int[] values = { buttons, deltaX, deltaY, wheel, x, y };
+            for (int index = 0; index < TURRET_MOUSE_INFO_COUNT; ++index) {
+                if ((mask & (1 << index)) != 0) {
+                    OuyaInputRecorder.recordTurret(index, values[index]);
+                }
+            }
+        }
+        setTurretMouseInfoBulkNative(mask, buttons, deltaX, deltaY, wheel, x, y);
+    }
+
     private static int sDisplayWidth = 1920;
 
     private static int sDisplayHeight = 1080;
@@ -77,6 +109,18 @@ public class MainActivity extends Activity
 
     private boolean mEnableGenericAsTurretMouse = false;
 
+    // single pointer reused by every mouse report, only touched by the mouse receiver
+    private final MotionEvent.PointerProperties[] mMousePointerProperties = createMousePointerProperties();
+
+    private final MotionEvent.PointerCoords[] mMousePointerCoords = { new MotionEvent.PointerCoords() };
+
+    private static MotionEvent.PointerProperties[] createMousePointerProperties() {
+        MotionEvent.PointerProperties properties = new MotionEvent.PointerProperties();
+        properties.id = 0;
+        properties.toolType = MotionEvent.TOOL_TYPE_UNKNOWN;
+        return new MotionEvent.PointerProperties[] { properties };
+    }
+
     TurretMouseService.mouseReceiver mMouseReceiver = new TurretMouseService.mouseReceiver() {
         @Override
         public void onMouseAction(final int[] mouseInfo) {
@@ -132,33 +176,15 @@ public class MainActivity extends Activity
                 action = MotionEvent.ACTION_UP;
             }
 
-            int pointerCount = 1;
-
-            MotionEvent.PointerProperties[] pointerProperties = new MotionEvent.PointerProperties[1];
-            MotionEvent.PointerCoords[] pointerCoords = new MotionEvent.PointerCoords[1];
-
-            long pointerIndex = 0;
-
-            MotionEvent.PointerProperties properties = new MotionEvent.PointerProperties();
-            properties.id = (int)pointerIndex;
-            properties.toolType = 0;
-            pointerProperties[0] = properties;
-
-            MotionEvent.PointerCoords coords = new MotionEvent.PointerCoords();
-            coords.orientation = 0;
-            coords.pressure = 0;
-            coords.size = 0;
-            coords.toolMajor = 0;
-            coords.toolMinor = 0;
-            coords.touchMajor = 0;
-            coords.touchMinor = 0;
-            coords.x = mouseInfo[4];
+            // reuse the pointer structures, obtain takes the event from the MotionEvent pool
+            MotionEvent.PointerCoords coords = mMousePointerCoords[0];
+            coords.x = mouseInfo[TURRET_MOUSE_X_INDEX];
             coords.y = y;
-            coords.setAxisValue(MotionEvent.AXIS_X, mouseInfo[4]);
+            coords.setAxisValue(MotionEvent.AXIS_X, mouseInfo[TURRET_MOUSE_X_INDEX]);
             coords.setAxisValue(MotionEvent.AXIS_Y, y);
             coords.setAxisValue(MotionEvent.AXIS_VSCROLL, z);
-            pointerCoords[0] = coords;
 
+            int pointerCount = 1;
             int metaState = 0;
             int buttonState = 0;
             float xPrecision = 0;
@@ -167,18 +193,17 @@ public class MainActivity extends Activity
             int edgeFlags = 0;
             int source = InputDevice.SOURCE_MOUSE;
             int flags = 0;
-            MotionEvent motionEvent = MotionEvent.obtain(downTime, eventTime, action, pointerCount, pointerProperties,
-                    pointerCoords, metaState, buttonState, xPrecision, yPrecision, deviceId,
+            MotionEvent motionEvent = MotionEvent.obtain(downTime, eventTime, action, pointerCount, mMousePointerProperties,
+                    mMousePointerCoords, metaState, buttonState, xPrecision, yPrecision, deviceId,
                     edgeFlags, source, flags);
 
-            // inject the mouse event into Unity PLayer
+            // inject the mouse event into Unity PLayer, which copies it before returning
             mUnityPlayer.injectEvent(motionEvent);
+            motionEvent.recycle();
 
             // populate the Turret Mouse API
-            for (int i = 0; i < TURRET_MOUSE_Y_INDEX; i++) {
-                setTurretMouseInfoNative(i, mouseInfo[i]);
-            }
-            setTurretMouseInfoNative(TURRET_MOUSE_Y_INDEX, invertY);
+            setTurretMouseInfo(TURRET_MOUSE_REPORT_MASK, mouseInfo[TURRET_MOUSE_BUTTON_INDEX], mouseInfo[1], mouseInfo[2],
+                z, mouseInfo[TURRET_MOUSE_X_INDEX], invertY);
 
             if (sEnableLogging) {
                 for (int i = 0; i < mouseInfo.length; i++) {
@@ -263,6 +288,10 @@ public class MainActivity extends Activity
 		super.onCreate(savedInstanceState);
 
 		getWindow().takeSurface(null);
+		// the input queue can only be taken before the window is attached
+		if (isNativeInputQueueRequested()) {
+			OuyaNativeInputQueue.install(getWindow());
+		}
 		setTheme(android.R.style.Theme_NoTitleBar_Fullscreen);
 		getWindow().setFormat(PixelFormat.RGB_565);
 
@@ -455,10 +484,7 @@ public class MainActivity extends Activity
             if (middleButton) {
                 mask |= TurretMouseService.BUTTON_MIDDLE;
             }
-            setTurretMouseInfoNative(0, mask);
-            setTurretMouseInfoNative(TURRET_MOUSE_X_INDEX, x);
-            setTurretMouseInfoNative(TURRET_MOUSE_Y_INDEX, invertY);
-            setTurretMouseInfoNative(TURRET_MOUSE_Z_INDEX, z);
+            setTurretMouseInfo(TURRET_MOUSE_GENERIC_MASK, mask, 0, 0, z, x, invertY);
         }
 		if (null == mInputView) {
 			return super.dispatchGenericMotionEvent(motionEvent);
@@ -496,61 +522,33 @@ public class MainActivity extends Activity
 			return super.dispatchKeyEvent(keyEvent);
 		}
 
-		InputDevice device = keyEvent.getDevice();
-		if (null != device) {
-			String name = device.getName();
-            if (null != name &&
-                name.equals("Razer Razer Turret Dongle") &&
-                mInputView.isNativeInitialized()) {
-                if (sEnableLogging) {
-                    Log.d(TAG, "dispatchKeyEventNative playerNum=0 keyCode="+keyEvent.getKeyCode()+" action="+keyEvent.getAction());
-                }
-                mInputView.dispatchKeyEventNative(0, keyEvent.getKeyCode(), keyEvent.getAction());
-                return true;
-            }
-			if (null != name &&
-				name.equals("aml_keypad")) {
-				switch (keyEvent.getKeyCode()) {
-				case 24:
-					if (sEnableLogging) {
-                        Log.d(TAG, "Volume Up detected.");
-					}
-					//raiseVolume();
-					//return true; //the volume was handled
-					return false; //show the xiaomi volume overlay
-				case 25:
-					if (sEnableLogging) {
-                        Log.d(TAG, "Volume Down detected.");
-					}
-					//lowerVolume();
-					//return true; //the volume was handled
-					return false; //show the xiaomi volume overlay
-				case 66:
-					if (sEnableLogging) {
-                        Log.d(TAG, "Remote button detected.");
-					}
-					if (null != mInputView) {
-						if (keyEvent.getAction() == KeyEvent.ACTION_DOWN) {
-							mInputView.onKeyDown(OuyaController.BUTTON_O, keyEvent);
-						} else if (keyEvent.getAction() == KeyEvent.ACTION_UP) {
-							mInputView.onKeyUp(OuyaController.BUTTON_O, keyEvent);
-						}
-					}
-					return false;
-				case 4:
-					if (sEnableLogging) {
-                        Log.d(TAG, "Remote back button detected.");
-					}
-					if (null != mInputView) {
-						if (keyEvent.getAction() == KeyEvent.ACTION_DOWN) {
-							mInputView.onKeyDown(OuyaController.BUTTON_A, keyEvent);
-						} else if (keyEvent.getAction() == KeyEvent.ACTION_UP) {
-							mInputView.onKeyUp(OuyaController.BUTTON_A, keyEvent);
-						}
-					}
-					return true;
+		int profile = OuyaInputView.getDeviceRegistry().getProfile(keyEvent.getDeviceId());
+		int route = OuyaDeviceProfile.getRoute(profile, keyEvent.getKeyCode());
+		switch (OuyaDeviceProfile.getRouteAction(route)) {
+		case OuyaDeviceProfile.ROUTE_SYSTEM:
+			if (sEnableLogging) {
+				Log.d(TAG, "Leaving keyCode="+keyEvent.getKeyCode()+" to the system");
+			}
+			return false;
+		case OuyaDeviceProfile.ROUTE_PLAYER_ONE:
+			if (mInputView.isNativeInitialized()) {
+				if (sEnableLogging) {
+					Log.d(TAG, "dispatchKeyEventNative playerNum=0 keyCode="+keyEvent.getKeyCode()+" action="+keyEvent.getAction());
 				}
+				mInputView.dispatchRoutedKey(keyEvent, route);
+				return true;
 			}
+			break;
+		case OuyaDeviceProfile.ROUTE_REMAP:
+		case OuyaDeviceProfile.ROUTE_REMAP_SHARED:
+			if (sEnableLogging) {
+				Log.d(TAG, "Remapped keyCode="+keyEvent.getKeyCode()+" to "+OuyaDeviceProfile.getRouteKeyCode(route));
+			}
+			mInputView.dispatchRoutedKey(keyEvent, route);
+			// shared keys still reach the system, like the remote's select button
+			return OuyaDeviceProfile.getRouteAction(route) == OuyaDeviceProfile.ROUTE_REMAP;
+		default:
+			break;
 		}
     	if (null != mInputView) {
 			mInputView.dispatchKeyEvent(keyEvent);
@@ -640,6 +638,33 @@ public class MainActivity extends Activity
 		runOnUiThread(runnable);
 	}
 	
+	private boolean isNativeInputQueueRequested() {
+		try {
+			ActivityInfo activityInfo = getPackageManager().getActivityInfo(getComponentName(), PackageManager.GET_META_DATA);
+			return null != activityInfo.metaData &&
+				activityInfo.metaData.getBoolean(OuyaNativeInputQueue.META_DATA_ENABLED, false);
+		} catch (PackageManager.NameNotFoundException e) {
+			Log.e(TAG, "Failed to read the activity meta-data", e);
+			return false;
+		}
+	}
+
+	public boolean isNativeInputQueueActive() {
+		return OuyaNativeInputQueue.isActive();
+	}
+
+	/**
+	 * @return one of the TurretMouseService STATE_ constants, or -1 when the
+	 * service is not bound
+	 */
+	public int getTurretMouseConnectionState() {
+		TurretMouseService mouseService = mMouseService;
+		if (!mMouseServiceBound || null == mouseService) {
+			return -1;
+		}
+		return mouseService.getConnectionState();
+	}
+
 	private void giveUnityFocus() {
 		takeKeyEvents(false);
 		mUnityPlayer.setFocusable(true);
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.sdk;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Vibrator;
+import android.util.Log;
+import android.view.InputDevice;
+import com.unity3d.player.UnityPlayer;
+
+/**
+ * Pushes controller connect, disconnect and reassign events to
+ * OuyaGameObject.onControllerEvent, so Unity can rebuild its player list
+ * when something changes instead of polling every frame.
+ * <p>
+ * The message is "event,player,deviceId,capabilities,name" with the event
+ * one of the OuyaDeviceRegistry CONTROLLER_ values and the name last, since
+ * it may contain commas. Disconnect events carry no capabilities or name.
+ * <p>
+ * The registry calls the listener with its lock held, and describing the
+ * device calls into the system server, so the message is built and sent
+ * from the main looper after the lock is released.
+ */
+public class OuyaControllerEvents implements OuyaDeviceRegistry.ControllerListener {
+
+	private static final String TAG = OuyaControllerEvents.class.getSimpleName();
+
+	private static final boolean sEnableLogging = false;
+
+	public static final int CAPABILITY_GAMEPAD = 1;
+	public static final int CAPABILITY_JOYSTICK = 2;
+	public static final int CAPABILITY_DPAD = 4;
+	/** Known by vendor and product id, see OuyaControllerMapping */
+	public static final int CAPABILITY_MAPPED = 8;
+	public static final int CAPABILITY_VIBRATOR = 16;
+
+	private static final OuyaControllerEvents sInstance = new OuyaControllerEvents();
+
+	private static boolean sEnabled = false;
+
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+	// only used on the main looper
+	private final StringBuilder mMessage = new StringBuilder();
+
+	public static synchronized void setEnabled(boolean enabled) {
+		if (sEnabled == enabled) {
+			return;
+		}
+		sEnabled = enabled;
+		// the attached controllers are reported from the registry's listener handler
+		OuyaInputView.getDeviceRegistry().setControllerListener(enabled ? sInstance : null);
+	}
+
+	public static synchronized boolean isEnabled() {
+		return sEnabled;
+	}
+
+	@Override
+	public void onControllerEvent(final int event, final int deviceId, final int playerNum) {
+		mHandler.post(new Runnable() {
+			public void run() {
+				if (isEnabled()) {
+					sendEvent(event, deviceId, playerNum);
+				}
+			}
+		});
+	}
+
+	private void sendEvent(int event, int deviceId, int playerNum) {
+		int capabilities = 0;
+		String name = "";
+		if (event != OuyaDeviceRegistry.CONTROLLER_DISCONNECTED) {
+			InputDevice device = InputDevice.getDevice(deviceId);
+			if (null != device) {
+				capabilities = getCapabilities(device);
+				name = device.getName();
+			}
+			if (null != OuyaInputView.getDeviceRegistry().getMapping(deviceId)) {
+				capabilities |= CAPABILITY_MAPPED;
+			}
+		}
+
+		StringBuilder message = mMessage;
+		message.setLength(0);
+		message.append(event).append(',')
+			.append(playerNum).append(',')
+			.append(deviceId).append(',')
+			.append(capabilities).append(',')
+			.append(name);
+		if (sEnableLogging) {
+			Log.i(TAG, "onControllerEvent: " + message);
+		}
+		UnityPlayer.UnitySendMessage("OuyaGameObject", "onControllerEvent", message.toString());
+	}
+
+	private static int getCapabilities(InputDevice device) {
+		int sources = device.getSources();
+		int capabilities = 0;
+		if ((sources & InputDevice.SOURCE_GAMEPAD) == InputDevice.SOURCE_GAMEPAD) {
+			capabilities |= CAPABILITY_GAMEPAD;
+		}
+		if ((sources & InputDevice.SOURCE_JOYSTICK) == InputDevice.SOURCE_JOYSTICK) {
+			capabilities |= CAPABILITY_JOYSTICK;
+		}
+		if ((sources & InputDevice.SOURCE_DPAD) == InputDevice.SOURCE_DPAD) {
+			capabilities |= CAPABILITY_DPAD;
+		}
+		Vibrator vibrator = device.getVibrator();
+		if (null != vibrator && vibrator.hasVibrator()) {
+			capabilities |= CAPABILITY_VIBRATOR;
+		}
+		return capabilities;
+	}
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.sdk;
+
+import android.util.Log;
+import android.view.InputDevice;
+import android.view.KeyEvent;
+import android.view.MotionEvent;
+import tv.ouya.console.api.OuyaController;
+
+/**
+ * Axis and button remap tables for controllers known by vendor and
+ * product id.
+ * <p>
+ * OuyaDeviceRegistry compiles a mapping when a controller attaches.
+ * OuyaInputView then reads the axes and translates the keys of that
+ * controller by array index, without going through OuyaInputMapper.
+ * Controllers that are not listed here still use OuyaInputMapper.
+ */
+public class OuyaControllerMapping {
+
+	private static final String TAG = OuyaControllerMapping.class.getSimpleName();
+
+	private static final boolean sEnableLogging = false;
+
+	/** The key is not remapped and takes the default dispatch path */
+	public static final int KEY_DEFAULT = -1;
+
+	// covers every key code the framework defines
+	private static final int KEY_CODE_LIMIT = 512;
+
+	private static final int VENDOR_OUYA = 0x2836;
+	private static final int VENDOR_MICROSOFT = 0x045E;
+	private static final int VENDOR_SONY = 0x054C;
+
+	// the framework key layouts already report these in the OUYA layout,
+	// except for the menu button
+	private static final int LAYOUT_OUYA = 0;
+	private static final int LAYOUT_STANDARD = 1;
+	// Xbox One pads over Bluetooth report the triggers as brake and gas
+	private static final int LAYOUT_BRAKE_GAS = 2;
+
+	// vendor id, product id, layout
+	private static final int[][] KNOWN_CONTROLLERS = {
+		{ VENDOR_OUYA, 0x0001, LAYOUT_OUYA },
+		{ VENDOR_MICROSOFT, 0x028E, LAYOUT_STANDARD },	// Xbox 360
+		{ VENDOR_MICROSOFT, 0x0719, LAYOUT_STANDARD },	// Xbox 360 wireless receiver
+		{ VENDOR_MICROSOFT, 0x02D1, LAYOUT_STANDARD },	// Xbox One
+		{ VENDOR_MICROSOFT, 0x02DD, LAYOUT_STANDARD },	// Xbox One
+		{ VENDOR_MICROSOFT, 0x02EA, LAYOUT_STANDARD },	// Xbox One S
+		{ VENDOR_MICROSOFT, 0x02E0, LAYOUT_BRAKE_GAS },	// Xbox One S Bluetooth
+		{ VENDOR_MICROSOFT, 0x02FD, LAYOUT_BRAKE_GAS },	// Xbox One S Bluetooth
+		{ VENDOR_SONY, 0x0268, LAYOUT_STANDARD },	// DualShock 3
+		{ VENDOR_SONY, 0x05C4, LAYOUT_STANDARD },	// DualShock 4
+		{ VENDOR_SONY, 0x09CC, LAYOUT_STANDARD },	// DualShock 4 v2
+	};
+
+	private final int mVendorId;
+
+	private final int mProductId;
+
+	// source axis for each of OuyaInputView.PACKED_AXES
+	private final int[] mAxes;
+
+	// OUYA key code for each device key code, or KEY_DEFAULT
+	private final int[] mKeys;
+
+	private OuyaControllerMapping(int vendorId, int productId, int layout) {
+		mVendorId = vendorId;
+		mProductId = productId;
+		mAxes = OuyaInputView.PACKED_AXES.clone();
+		mKeys = new int[KEY_CODE_LIMIT];
+		for (int keyCode = 0; keyCode < KEY_CODE_LIMIT; ++keyCode) {
+			mKeys[keyCode] = KEY_DEFAULT;
+		}
+		if (layout == LAYOUT_OUYA) {
+			return;
+		}
+		mKeys[KeyEvent.KEYCODE_BUTTON_START] = OuyaController.BUTTON_MENU;
+		if (layout == LAYOUT_BRAKE_GAS) {
+			mapAxis(OuyaController.AXIS_L2, MotionEvent.AXIS_BRAKE);
+			mapAxis(OuyaController.AXIS_R2, MotionEvent.AXIS_GAS);
+		}
+	}
+
+	/**
+	 * @return the mapping for a known controller, or null when the device
+	 * should keep going through OuyaInputMapper
+	 */
+	public static OuyaControllerMapping compile(InputDevice device) {
+		if (null == device) {
+			return null;
+		}
+		int vendorId = device.getVendorId();
+		int productId = device.getProductId();
+		for (int[] known : KNOWN_CONTROLLERS) {
+			if (known[0] == vendorId && known[1] == productId) {
+				if (sEnableLogging) {
+					Log.i(TAG, "Compiled mapping for " + device.getName() + " " +
+						Integer.toHexString(vendorId) + ":" + Integer.toHexString(productId));
+				}
+				return new OuyaControllerMapping(vendorId, productId, known[2]);
+			}
+		}
+		return null;
+	}
+
+	public int getVendorId() {
+		return mVendorId;
+	}
+
+	public int getProductId() {
+		return mProductId;
+	}
+
+	/**
+	 * @return the source axis for each packed axis, in OuyaInputView.PACKED_AXES order
+	 */
+	public int[] getAxes() {
+		return mAxes;
+	}
+
+	/**
+	 * @return the OUYA key code, or KEY_DEFAULT
+	 */
+	public int mapKey(int keyCode) {
+		if (keyCode < 0 || keyCode >= KEY_CODE_LIMIT) {
+			return KEY_DEFAULT;
+		}
+		return mKeys[keyCode];
+	}
+
+	/**
+	 * @return device and OUYA key code pairs for every remapped key
+	 */
+	public int[] getKeyRemaps() {
+		int count = 0;
+		for (int keyCode = 0; keyCode < KEY_CODE_LIMIT; ++keyCode) {
+			if (mKeys[keyCode] != KEY_DEFAULT) {
+				++count;
+			}
+		}
+		int[] remaps = new int[count * 2];
+		int index = 0;
+		for (int keyCode = 0; keyCode < KEY_CODE_LIMIT; ++keyCode) {
+			if (mKeys[keyCode] != KEY_DEFAULT) {
+				remaps[index++] = keyCode;
+				remaps[index++] = mKeys[keyCode];
+			}
+		}
+		return remaps;
+	}
+
+	private void mapAxis(int ouyaAxis, int sourceAxis) {
+		for (int index = 0; index < mAxes.length; ++index) {
+			if (OuyaInputView.PACKED_AXES[index] == ouyaAxis) {
+				mAxes[index] = sourceAxis;
+			}
+		}
+	}
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.sdk;
+
+import android.view.MotionEvent;
+
+/**
+ * Fixed-layout controller state for every player.
+ * <p>
+ * Axis values live in a {@code float[player][axis]} table and buttons in
+ * {@code long} bitsets indexed by key code, so reading or updating the state
+ * from the input handlers never boxes values or allocates.
+ */
+public class OuyaControllerState {
+
+	/** Number of axis slots per player, covers every MotionEvent axis id. */
+	public static final int AXIS_COUNT = MotionEvent.AXIS_GENERIC_16 + 1;
+
+	/** Number of 64-bit words in a player's button bitset. */
+	public static final int BUTTON_WORDS = 8;
+
+	/** Key codes at or above this value are ignored. */
+	public static final int MAX_KEY_CODE = BUTTON_WORDS * 64;
+
+	private final int mPlayerCount;
+
+	private final float[][] mAxisValues;
+
+	// buttons that are currently held
+	private final long[][] mPressedButtons;
+
+	// buttons that have been received as key events at least once
+	private final long[][] mKnownButtons;
+
+	public OuyaControllerState(int playerCount) {
+		mPlayerCount = playerCount;
+		mAxisValues = new float[playerCount][AXIS_COUNT];
+		mPressedButtons = new long[playerCount][BUTTON_WORDS];
+		mKnownButtons = new long[playerCount][BUTTON_WORDS];
+	}
+
+	public int getPlayerCount() {
+		return mPlayerCount;
+	}
+
+	public float getAxis(int playerNum, int axis) {
+		if (!isValidAxis(playerNum, axis)) {
+			return 0f;
+		}
+		return mAxisValues[playerNum][axis];
+	}
+
+	public void setAxis(int playerNum, int axis, float value) {
+		if (!isValidAxis(playerNum, axis)) {
+			return;
+		}
+		mAxisValues[playerNum][axis] = value;
+	}
+
+	public boolean isPressed(int playerNum, int keyCode) {
+		if (!isValidButton(playerNum, keyCode)) {
+			return false;
+		}
+		return (mPressedButtons[playerNum][keyCode >>> 6] & (1L << keyCode)) != 0;
+	}
+
+	public void setPressed(int playerNum, int keyCode, boolean pressed) {
+		if (!isValidButton(playerNum, keyCode)) {
+			return;
+		}
+		if (pressed) {
+			mPressedButtons[playerNum][keyCode >>> 6] |= 1L << keyCode;
+		} else {
+			mPressedButtons[playerNum][keyCode >>> 6] &= ~(1L << keyCode);
+		}
+	}
+
+	/**
+	 * Marks a key as sent by the controller itself, as opposed to buttons
+	 * the plugin synthesizes from axes.
+	 */
+	public void setKnown(int playerNum, int keyCode) {
+		if (!isValidButton(playerNum, keyCode)) {
+			return;
+		}
+		mKnownButtons[playerNum][keyCode >>> 6] |= 1L << keyCode;
+	}
+
+	/**
+	 * @return true once the player has sent a key event for the key code
+	 */
+	public boolean isKnown(int playerNum, int keyCode) {
+		if (!isValidButton(playerNum, keyCode)) {
+			return false;
+		}
+		return (mKnownButtons[playerNum][keyCode >>> 6] & (1L << keyCode)) != 0;
+	}
+
+	// backing rows for bulk readers, callers must not modify them
+	float[] getAxisRow(int playerNum) {
+		return mAxisValues[playerNum];
+	}
+
+	long[] getButtonRow(int playerNum) {
+		return mPressedButtons[playerNum];
+	}
+
+	public void clear(int playerNum) {
+		if (playerNum < 0 || playerNum >= mPlayerCount) {
+			return;
+		}
+		float[] axes = mAxisValues[playerNum];
+		for (int axis = 0; axis < AXIS_COUNT; ++axis) {
+			axes[axis] = 0f;
+		}
+		for (int word = 0; word < BUTTON_WORDS; ++word) {
+			mPressedButtons[playerNum][word] = 0;
+			mKnownButtons[playerNum][word] = 0;
+		}
+	}
+
+	private boolean isValidAxis(int playerNum, int axis) {
+		return playerNum >= 0 && playerNum < mPlayerCount &&
+			axis >= 0 && axis < AXIS_COUNT;
+	}
+
+	private boolean isValidButton(int playerNum, int keyCode) {
+		return playerNum >= 0 && playerNum < mPlayerCount &&
+			keyCode >= 0 && keyCode < MAX_KEY_CODE;
+	}
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.sdk;
+
+import android.view.InputDevice;
+import android.view.KeyEvent;
+import java.util.Arrays;
+import tv.ouya.console.api.OuyaController;
+
+/**
+ * Classifies input devices and holds the key routing table of each kind.
+ * <p>
+ * A profile is an int: the kind in the low bits and PROFILE_FLAG_CONTROLLER
+ * when the device reports gamepad or joystick sources. OuyaDeviceRegistry
+ * classifies a device once and caches the profile, so routing a key is a
+ * pair of array lookups. A route packs what to do with the key in the low
+ * byte and the key code to deliver above it.
+ */
+public class OuyaDeviceProfile {
+
+	public static final int KIND_NONE = 0;
+	public static final int KIND_GAMEPAD = 1;
+	public static final int KIND_TURRET_DONGLE = 2;
+	public static final int KIND_REMOTE_KEYPAD = 3;
+	public static final int KIND_OTHER = 4;
+
+	private static final int KIND_COUNT = 5;
+
+	public static final int KIND_MASK = 0xFF;
+
+	public static final int PROFILE_FLAG_CONTROLLER = 0x100;
+
+	/** OuyaInputView.dispatchKeyEvent handles the key */
+	public static final int ROUTE_DEFAULT = 0;
+	/** Left to the system, for example to show the volume overlay */
+	public static final int ROUTE_SYSTEM = 1;
+	/** Sent straight to player 1 once the native plugin is ready */
+	public static final int ROUTE_PLAYER_ONE = 2;
+	/** Delivered to OuyaInputView as the route's key code */
+	public static final int ROUTE_REMAP = 3;
+	/** Delivered as the route's key code and also left to the system */
+	public static final int ROUTE_REMAP_SHARED = 4;
+
+	private static final int ROUTE_MASK = 0xFF;
+
+	private static final int ROUTE_KEY_SHIFT = 8;
+
+	// covers every key code the framework defines, larger codes take the default route
+	private static final int KEY_CODE_LIMIT = 512;
+
+	private static final String TURRET_DONGLE_NAME = "Razer Razer Turret Dongle";
+
+	private static final String REMOTE_KEYPAD_NAME = "aml_keypad";
+
+	private static final int[][] sRoutes = new int[KIND_COUNT][];
+
+	static {
+		int[] defaults = new int[KEY_CODE_LIMIT];
+		sRoutes[KIND_NONE] = defaults;
+		sRoutes[KIND_GAMEPAD] = defaults;
+		sRoutes[KIND_OTHER] = defaults;
+
+		int[] turret = new int[KEY_CODE_LIMIT];
+		for (int keyCode = 0; keyCode < KEY_CODE_LIMIT; ++keyCode) {
+			turret[keyCode] = route(ROUTE_PLAYER_ONE, keyCode);
+		}
+		sRoutes[KIND_TURRET_DONGLE] = turret;
+
+		int[] remote = Arrays.copyOf(defaults, KEY_CODE_LIMIT);
+		// keep the volume overlay
+		remote[KeyEvent.KEYCODE_VOLUME_UP] = route(ROUTE_SYSTEM, KeyEvent.KEYCODE_VOLUME_UP);
+		remote[KeyEvent.KEYCODE_VOLUME_DOWN] = route(ROUTE_SYSTEM, KeyEvent.KEYCODE_VOLUME_DOWN);
+		remote[KeyEvent.KEYCODE_ENTER] = route(ROUTE_REMAP_SHARED, OuyaController.BUTTON_O);
+		remote[KeyEvent.KEYCODE_BACK] = route(ROUTE_REMAP, OuyaController.BUTTON_A);
+		sRoutes[KIND_REMOTE_KEYPAD] = remote;
+	}
+
+	public static int classify(InputDevice device) {
+		if (null == device) {
+			return KIND_NONE;
+		}
+		int sources = device.getSources();
+		boolean controller = (sources & InputDevice.SOURCE_GAMEPAD) == InputDevice.SOURCE_GAMEPAD ||
+			(sources & InputDevice.SOURCE_JOYSTICK) == InputDevice.SOURCE_JOYSTICK;
+		String name = device.getName();
+		int kind;
+		if (TURRET_DONGLE_NAME.equals(name)) {
+			kind = KIND_TURRET_DONGLE;
+		} else if (REMOTE_KEYPAD_NAME.equals(name)) {
+			kind = KIND_REMOTE_KEYPAD;
+		} else if (controller) {
+			kind = KIND_GAMEPAD;
+		} else {
+			kind = KIND_OTHER;
+		}
+		return controller ? kind | PROFILE_FLAG_CONTROLLER : kind;
+	}
+
+	public static boolean isController(int profile) {
+		return (profile & PROFILE_FLAG_CONTROLLER) != 0;
+	}
+
+	public static int getKind(int profile) {
+		return profile & KIND_MASK;
+	}
+
+	/**
+	 * @return the packed route for a key from a device with the profile
+	 */
+	public static int getRoute(int profile, int keyCode) {
+		if (keyCode < 0 || keyCode >= KEY_CODE_LIMIT) {
+			return ROUTE_DEFAULT;
+		}
+		return sRoutes[profile & KIND_MASK][keyCode];
+	}
+
+	public static int getRouteAction(int route) {
+		return route & ROUTE_MASK;
+	}
+
+	public static int getRouteKeyCode(int route) {
+		return route >>> ROUTE_KEY_SHIFT;
+	}
+
+	private static int route(int action, int keyCode) {
+		return (keyCode << ROUTE_KEY_SHIFT) | action;
+	}
+}
@@ -0,0 +1,618 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.sdk;
+
+import android.content.Context;
+import android.hardware.input.InputManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.InputDevice;
+import tv.ouya.console.api.OuyaController;
+
+/**
+ * Assigns a player slot, an OuyaDeviceProfile and, for known controllers,
+ * an OuyaControllerMapping to each input device.
+ * <p>
+ * Device ids map to slots, profiles and mappings through an open addressing
+ * table of primitive arrays, so a lookup is a hash and usually a single
+ * probe. The table is never changed once published: writers copy it under
+ * the registry lock and publish the copy through a volatile, so lookups from
+ * the UI, input and Unity threads take no lock. A device is classified once,
+ * when it is added or first seen, and the profile is kept until the device
+ * changes. Classifying queries InputDevice, which calls into the system
+ * server, so it runs outside the lock.
+ * <p>
+ * Controllers keep the player OuyaController gives them when that slot is
+ * free and otherwise get the first free slot, up to the player count. A
+ * controller that finds every slot taken is marked in the table, so its
+ * events take no lock until a slot is released and it tries again.
+ * Devices that are not gamepads or joysticks, such as remotes and keyboards,
+ * drive player 1 without holding a slot. Entries are reclassified when
+ * InputManager reports the device as added or changed, and the slot is
+ * freed when it is removed. Device callbacks run on the thread of the
+ * listener handler, which is the input thread when it is enabled. While a
+ * ControllerListener is set, controllers get their slot as soon as they are
+ * added rather than on their first event, and the same goes for known
+ * controllers while a MappingListener is set. Setting either listener
+ * assigns the attached devices on the listener handler as well.
+ */
+public class OuyaDeviceRegistry implements InputManager.InputDeviceListener {
+
+	private static final String TAG = OuyaDeviceRegistry.class.getSimpleName();
+
+	private static final boolean sEnableLogging = false;
+
+	public static final int INVALID_PLAYER = -1;
+
+	/**
+	 * Told when a controller gives up its slot, before the slot is reused.
+	 */
+	public interface SlotListener {
+		void onSlotReleased(int playerNum);
+	}
+
+	/** A controller took a free slot */
+	public static final int CONTROLLER_CONNECTED = 0;
+	/** A controller gave up its slot */
+	public static final int CONTROLLER_DISCONNECTED = 1;
+	/** A controller holding a slot was reclassified after a device change */
+	public static final int CONTROLLER_REASSIGNED = 2;
+
+	/**
+	 * Told about every change to the controller held by a player slot,
+	 * with the registry locked, so it must not query InputDevice itself.
+	 */
+	public interface ControllerListener {
+		void onControllerEvent(int event, int deviceId, int playerNum);
+	}
+
+	/**
+	 * Told when a controller with an OuyaControllerMapping gets a player,
+	 * and with INVALID_PLAYER when it goes away or is reclassified.
+	 */
+	public interface MappingListener {
+		void onMappedDevice(int deviceId, int playerNum, OuyaControllerMapping mapping);
+	}
+
+	// marks an empty table entry or a free slot, not a valid device id
+	private static final int NO_DEVICE = Integer.MIN_VALUE;
+
+	private static final int NOT_FOUND = -1;
+
+	// player of a controller that found every slot taken, until one is released
+	private static final int NO_FREE_SLOT = -2;
+
+	private static final int INITIAL_TABLE_SIZE = 16;
+
+	/**
+	 * Device id to player and profile, open addressing with linear probing.
+	 * Only changed before it is published.
+	 */
+	private static final class Table {
+		final int[] mDevices;
+		final int[] mPlayers;
+		final int[] mProfiles;
+		final OuyaControllerMapping[] mMappings;
+		final int mMask;
+		int mSize = 0;
+
+		Table(int capacity) {
+			mDevices = new int[capacity];
+			mPlayers = new int[capacity];
+			mProfiles = new int[capacity];
+			mMappings = new OuyaControllerMapping[capacity];
+			for (int index = 0; index < capacity; ++index) {
+				mDevices[index] = NO_DEVICE;
+			}
+			mMask = capacity - 1;
+		}
+
+		int find(int deviceId) {
+			int[] devices = mDevices;
+			for (int index = hash(deviceId) & mMask; ; index = (index + 1) & mMask) {
+				int device = devices[index];
+				if (device == deviceId) {
+					return index;
+				}
+				if (device == NO_DEVICE) {
+					return NOT_FOUND;
+				}
+			}
+		}
+
+		// a private copy with room for extra more devices
+		Table copy(int extra) {
+			int capacity = mDevices.length;
+			// keep the table at most half full so probes stay short
+			while ((mSize + extra) * 2 > capacity) {
+				capacity *= 2;
+			}
+			Table table = new Table(capacity);
+			for (int index = 0; index < mDevices.length; ++index) {
+				if (mDevices[index] != NO_DEVICE) {
+					table.insert(mDevices[index], mPlayers[index], mProfiles[index], mMappings[index]);
+				}
+			}
+			return table;
+		}
+
+		void insert(int deviceId, int playerNum, int profile, OuyaControllerMapping mapping) {
+			int index = hash(deviceId) & mMask;
+			while (mDevices[index] != NO_DEVICE) {
+				index = (index + 1) & mMask;
+			}
+			mDevices[index] = deviceId;
+			mPlayers[index] = playerNum;
+			mProfiles[index] = profile;
+			mMappings[index] = mapping;
+			++mSize;
+		}
+
+		void remove(int index) {
+			// shift later entries of the probe chain back into the hole
+			int hole = index;
+			for (int next = (hole + 1) & mMask; mDevices[next] != NO_DEVICE; next = (next + 1) & mMask) {
+				int home = hash(mDevices[next]) & mMask;
+				if (((next - home) & mMask) >= ((next - hole) & mMask)) {
+					mDevices[hole] = mDevices[next];
+					mPlayers[hole] = mPlayers[next];
+					mProfiles[hole] = mProfiles[next];
+					mMappings[hole] = mMappings[next];
+					hole = next;
+				}
+			}
+			mDevices[hole] = NO_DEVICE;
+			mMappings[hole] = null;
+			--mSize;
+		}
+	}
+
+	private final int mPlayerCount;
+
+	// replaced as a whole under the lock, read without it
+	private volatile Table mTable = new Table(INITIAL_TABLE_SIZE);
+
+	// device holding each player slot, or NO_DEVICE
+	private final int[] mSlotDevices;
+
+	// bit per occupied slot, read by other threads
+	private volatile int mActivePlayerMask = 0;
+
+	private SlotListener mSlotListener = null;
+
+	private MappingListener mMappingListener = null;
+
+	private ControllerListener mControllerListener = null;
+
+	// bumped by setControllerListener so a stale posted listener is not installed
+	private int mControllerListenerGeneration = 0;
+
+	private InputManager mInputManager = null;
+
+	// delivers device callbacks, null for the main looper
+	private Handler mListenerHandler = null;
+
+	private Handler mMainHandler = null;
+
+	public OuyaDeviceRegistry(int playerCount) {
+		if (playerCount > Integer.SIZE) {
+			throw new IllegalArgumentException("At most " + Integer.SIZE + " players are supported");
+		}
+		mPlayerCount = playerCount;
+		mSlotDevices = new int[playerCount];
+		for (int slot = 0; slot < playerCount; ++slot) {
+			mSlotDevices[slot] = NO_DEVICE;
+		}
+	}
+
+	public int getPlayerCount() {
+		return mPlayerCount;
+	}
+
+	public synchronized void setSlotListener(SlotListener listener) {
+		mSlotListener = listener;
+	}
+
+	/**
+	 * Sets the listener and, on the listener handler, reports the mapped
+	 * controllers already attached.
+	 */
+	public void setMappingListener(MappingListener listener) {
+		Handler handler;
+		synchronized (this) {
+			mMappingListener = listener;
+			if (null == listener) {
+				return;
+			}
+			handler = getListenerHandler();
+		}
+		handler.post(mAssignAttached);
+	}
+
+	/**
+	 * Sets the listener on the listener handler, where it is told about the
+	 * controllers already holding a slot as connected. Clearing it takes
+	 * effect at once.
+	 */
+	public void setControllerListener(final ControllerListener listener) {
+		final int generation;
+		Handler handler;
+		synchronized (this) {
+			generation = ++mControllerListenerGeneration;
+			mControllerListener = null;
+			if (null == listener) {
+				return;
+			}
+			handler = getListenerHandler();
+		}
+		handler.post(new Runnable() {
+			public void run() {
+				synchronized (OuyaDeviceRegistry.this) {
+					if (generation != mControllerListenerGeneration) {
+						return;
+					}
+					mControllerListener = listener;
+					for (int slot = 0; slot < mPlayerCount; ++slot) {
+						if (mSlotDevices[slot] != NO_DEVICE) {
+							listener.onControllerEvent(CONTROLLER_CONNECTED, mSlotDevices[slot], slot);
+						}
+					}
+				}
+				mAssignAttached.run();
+			}
+		});
+	}
+
+	// gives the attached devices their slots the way onInputDeviceAdded would
+	private final Runnable mAssignAttached = new Runnable() {
+		public void run() {
+			for (int deviceId : InputDevice.getDeviceIds()) {
+				assignEagerly(deviceId);
+			}
+		}
+	};
+
+	private Handler getListenerHandler() {
+		if (null != mListenerHandler) {
+			return mListenerHandler;
+		}
+		if (null == mMainHandler) {
+			mMainHandler = new Handler(Looper.getMainLooper());
+		}
+		return mMainHandler;
+	}
+
+	/**
+	 * @return one bit per player slot held by a controller
+	 */
+	public int getActivePlayerMask() {
+		return mActivePlayerMask;
+	}
+
+	public synchronized void register(Context context) {
+		if (null != mInputManager) {
+			return;
+		}
+		mInputManager = (InputManager) context.getSystemService(Context.INPUT_SERVICE);
+		if (null == mInputManager) {
+			Log.e(TAG, "register: InputManager is not available");
+			return;
+		}
+		mInputManager.registerInputDeviceListener(this, mListenerHandler);
+	}
+
+	/**
+	 * Moves the device callbacks to the handler's thread.
+	 * @param handler null for the main looper
+	 */
+	public synchronized void setListenerHandler(Handler handler) {
+		mListenerHandler = handler;
+		if (null != mInputManager) {
+			mInputManager.unregisterInputDeviceListener(this);
+			mInputManager.registerInputDeviceListener(this, handler);
+		}
+	}
+
+	public synchronized void unregister() {
+		if (null != mMappingListener) {
+			Table table = mTable;
+			for (int index = 0; index < table.mDevices.length; ++index) {
+				if (table.mDevices[index] != NO_DEVICE && null != table.mMappings[index]) {
+					mMappingListener.onMappedDevice(table.mDevices[index], INVALID_PLAYER, null);
+				}
+			}
+		}
+		if (null != mInputManager) {
+			mInputManager.unregisterInputDeviceListener(this);
+			mInputManager = null;
+		}
+		for (int slot = 0; slot < mPlayerCount; ++slot) {
+			if (mSlotDevices[slot] != NO_DEVICE && null != mControllerListener) {
+				mControllerListener.onControllerEvent(CONTROLLER_DISCONNECTED, mSlotDevices[slot], slot);
+			}
+			mSlotDevices[slot] = NO_DEVICE;
+		}
+		mActivePlayerMask = 0;
+		mTable = new Table(INITIAL_TABLE_SIZE);
+	}
+
+	/**
+	 * @return the player for the device, or INVALID_PLAYER when every slot
+	 * is taken by another controller
+	 */
+	public int getPlayerNum(int deviceId) {
+		Table table = mTable;
+		int index = table.find(deviceId);
+		if (index != NOT_FOUND) {
+			int playerNum = table.mPlayers[index];
+			if (playerNum == NO_FREE_SLOT) {
+				return INVALID_PLAYER;
+			}
+			if (playerNum != INVALID_PLAYER) {
+				return playerNum;
+			}
+		} else {
+			classify(deviceId, false);
+		}
+		synchronized (this) {
+			return assignPlayer(deviceId);
+		}
+	}
+
+	// gives a classified device a player, a device left without a slot tries again once one is freed
+	private int assignPlayer(int deviceId) {
+		Table table = mTable;
+		int index = table.find(deviceId);
+		if (index == NOT_FOUND) {
+			// removed since it was classified
+			return INVALID_PLAYER;
+		}
+		int playerNum = table.mPlayers[index];
+		if (playerNum == NO_FREE_SLOT) {
+			return INVALID_PLAYER;
+		}
+		if (playerNum != INVALID_PLAYER) {
+			return playerNum;
+		}
+		playerNum = resolvePlayerNum(deviceId, table.mProfiles[index]);
+		// releasing a slot while resolving can publish a newer table
+		table = mTable.copy(0);
+		index = table.find(deviceId);
+		if (playerNum == INVALID_PLAYER) {
+			Log.w(TAG, "No free player for device " + deviceId);
+			table.mPlayers[index] = NO_FREE_SLOT;
+			mTable = table;
+			return INVALID_PLAYER;
+		}
+		table.mPlayers[index] = playerNum;
+		mTable = table;
+		OuyaControllerMapping mapping = table.mMappings[index];
+		if (null != mapping && null != mMappingListener) {
+			mMappingListener.onMappedDevice(deviceId, playerNum, mapping);
+		}
+		return playerNum;
+	}
+
+	// gives a controller its slot without waiting for its first event
+	private void assignEagerly(int deviceId) {
+		Table table = mTable;
+		int index = table.find(deviceId);
+		if (index == NOT_FOUND) {
+			table = classify(deviceId, false);
+			index = table.find(deviceId);
+		}
+		int profile = table.mProfiles[index];
+		OuyaControllerMapping mapping = table.mMappings[index];
+		synchronized (this) {
+			if ((null != mControllerListener && OuyaDeviceProfile.isController(profile)) ||
+				(null != mMappingListener && null != mapping)) {
+				assignPlayer(deviceId);
+			}
+		}
+	}
+
+	/**
+	 * @return the cached OuyaDeviceProfile of the device
+	 */
+	public int getProfile(int deviceId) {
+		Table table = mTable;
+		int index = table.find(deviceId);
+		if (index == NOT_FOUND) {
+			table = classify(deviceId, false);
+			index = table.find(deviceId);
+		}
+		return table.mProfiles[index];
+	}
+
+	/**
+	 * @return the remap tables of a known controller, or null
+	 */
+	public OuyaControllerMapping getMapping(int deviceId) {
+		Table table = mTable;
+		int index = table.find(deviceId);
+		if (index == NOT_FOUND) {
+			table = classify(deviceId, false);
+			index = table.find(deviceId);
+		}
+		return table.mMappings[index];
+	}
+
+	/**
+	 * Classifies the device outside the lock, since InputDevice calls into
+	 * the system server, and publishes the entry without a player.
+	 * @param replace true to replace an entry that is already there
+	 * @return the published table, which holds the device
+	 */
+	private Table classify(int deviceId, boolean replace) {
+		InputDevice device = InputDevice.getDevice(deviceId);
+		int profile = OuyaDeviceProfile.classify(device);
+		OuyaControllerMapping mapping = null;
+		if (OuyaDeviceProfile.isController(profile)) {
+			mapping = OuyaControllerMapping.compile(device);
+		}
+		if (sEnableLogging) {
+			Log.i(TAG, "Device " + deviceId + " has profile " + profile + (null != mapping ? " and a mapping" : ""));
+		}
+		synchronized (this) {
+			Table table = mTable;
+			if (!replace && table.find(deviceId) != NOT_FOUND) {
+				// another thread classified it first
+				return table;
+			}
+			table = table.copy(1);
+			remove(table, deviceId);
+			table.insert(deviceId, INVALID_PLAYER, profile, mapping);
+			mTable = table;
+			return table;
+		}
+	}
+
+	private int resolvePlayerNum(int deviceId, int profile) {
+		if (!OuyaDeviceProfile.isController(profile)) {
+			// a changed device may have stopped being a controller
+			releaseSlot(deviceId);
+			int playerNum = OuyaController.getPlayerNumByDeviceId(deviceId);
+			return playerNum >= 0 && playerNum < mPlayerCount ? playerNum : 0;
+		}
+		int slot = findSlot(deviceId);
+		if (slot == INVALID_PLAYER) {
+			return INVALID_PLAYER;
+		}
+		boolean held = mSlotDevices[slot] == deviceId;
+		mSlotDevices[slot] = deviceId;
+		mActivePlayerMask |= 1 << slot;
+		if (sEnableLogging) {
+			Log.i(TAG, "Assigned device " + deviceId + " to player " + slot);
+		}
+		if (null != mControllerListener) {
+			mControllerListener.onControllerEvent(held ? CONTROLLER_REASSIGNED : CONTROLLER_CONNECTED, deviceId, slot);
+		}
+		return slot;
+	}
+
+	private int findSlot(int deviceId) {
+		for (int slot = 0; slot < mPlayerCount; ++slot) {
+			// a changed device is looked up again and keeps its slot
+			if (mSlotDevices[slot] == deviceId) {
+				return slot;
+			}
+		}
+		int playerNum = OuyaController.getPlayerNumByDeviceId(deviceId);
+		if (playerNum >= 0 && playerNum < mPlayerCount && mSlotDevices[playerNum] == NO_DEVICE) {
+			return playerNum;
+		}
+		for (int slot = 0; slot < mPlayerCount; ++slot) {
+			if (mSlotDevices[slot] == NO_DEVICE &&
+				!isClaimedByOuyaController(slot)) {
+				return slot;
+			}
+		}
+		return INVALID_PLAYER;
+	}
+
+	private static boolean isClaimedByOuyaController(int playerNum) {
+		if (playerNum >= OuyaController.MAX_CONTROLLERS) {
+			return false;
+		}
+		OuyaController controller = OuyaController.getControllerByPlayer(playerNum);
+		return null != controller;
+	}
+
+	private static int hash(int deviceId) {
+		// device ids are small and sequential, spread them over the table
+		int h = deviceId * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	// drops the device from an unpublished table
+	private void remove(Table table, int deviceId) {
+		int index = table.find(deviceId);
+		if (index == NOT_FOUND) {
+			return;
+		}
+		if (null != table.mMappings[index] && null != mMappingListener) {
+			mMappingListener.onMappedDevice(deviceId, INVALID_PLAYER, null);
+		}
+		table.remove(index);
+	}
+
+	private void releaseSlot(int deviceId) {
+		for (int slot = 0; slot < mPlayerCount; ++slot) {
+			if (mSlotDevices[slot] == deviceId) {
+				if (null != mSlotListener) {
+					mSlotListener.onSlotReleased(slot);
+				}
+				mSlotDevices[slot] = NO_DEVICE;
+				mActivePlayerMask &= ~(1 << slot);
+				if (sEnableLogging) {
+					Log.i(TAG, "Released player " + slot + " from device " + deviceId);
+				}
+				if (null != mControllerListener) {
+					mControllerListener.onControllerEvent(CONTROLLER_DISCONNECTED, deviceId, slot);
+				}
+				retryWithoutSlot();
+				return;
+			}
+		}
+	}
+
+	// lets controllers that found every slot taken look for one on their next event
+	private void retryWithoutSlot() {
+		Table table = mTable;
+		Table copy = null;
+		for (int index = 0; index < table.mDevices.length; ++index) {
+			if (table.mDevices[index] != NO_DEVICE && table.mPlayers[index] == NO_FREE_SLOT) {
+				if (null == copy) {
+					copy = table.copy(0);
+				}
+				copy.mPlayers[copy.find(table.mDevices[index])] = INVALID_PLAYER;
+			}
+		}
+		if (null != copy) {
+			mTable = copy;
+		}
+	}
+
+	@Override
+	public void onInputDeviceAdded(int deviceId) {
+		// classify now rather than on the device's first event
+		classify(deviceId, true);
+		assignEagerly(deviceId);
+	}
+
+	@Override
+	public synchronized void onInputDeviceRemoved(int deviceId) {
+		if (mTable.find(deviceId) != NOT_FOUND) {
+			Table table = mTable.copy(0);
+			remove(table, deviceId);
+			mTable = table;
+		}
+		releaseSlot(deviceId);
+	}
+
+	@Override
+	public void onInputDeviceChanged(int deviceId) {
+		Table table = classify(deviceId, true);
+		if (!OuyaDeviceProfile.isController(table.mProfiles[table.find(deviceId)])) {
+			synchronized (this) {
+				releaseSlot(deviceId);
+			}
+		}
+		assignEagerly(deviceId);
+	}
+}
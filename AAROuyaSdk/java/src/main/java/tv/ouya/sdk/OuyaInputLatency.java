@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.sdk;
+
+import android.util.Log;
+import android.view.InputDevice;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Opt-in histograms of the time between an input event's timestamp and the
+ * moment it is handed to lib-ouya-ndk, kept per player and per input source.
+ * <p>
+ * Event times use the SystemClock.uptimeMillis() base, which shares its
+ * clock with System.nanoTime(), so the delta covers the kernel, the input
+ * dispatcher and the UI thread queue. Event times only have millisecond
+ * resolution, so the smallest bucket is 1 ms.
+ */
+public class OuyaInputLatency {
+
+	private static final String TAG = OuyaInputLatency.class.getSimpleName();
+
+	public static final int SOURCE_GAMEPAD = 0;
+	public static final int SOURCE_JOYSTICK = 1;
+	public static final int SOURCE_MOUSE = 2;
+	public static final int SOURCE_KEYBOARD = 3;
+	public static final int SOURCE_OTHER = 4;
+
+	private static final String[] SOURCE_NAMES = {
+		"gamepad",
+		"joystick",
+		"mouse",
+		"keyboard",
+		"other"
+	};
+
+	/** Upper bounds of the histogram buckets, the last bucket is open ended. */
+	private static final long[] BUCKET_LIMITS_MICROS = {
+		1000, 2000, 4000, 8000, 16000, 32000, 64000
+	};
+
+	private static final int BUCKET_COUNT = BUCKET_LIMITS_MICROS.length + 1;
+
+	private static final int PLAYER_COUNT = OuyaInputView.MAX_PLAYERS;
+
+	private static volatile boolean sEnabled = false;
+
+	private static final int HISTOGRAM_COUNT = PLAYER_COUNT * SOURCE_NAMES.length;
+
+	// lock free so recording never blocks the thread dispatching input, indexed by getHistogram
+	private static final AtomicLongArray sBuckets = new AtomicLongArray(HISTOGRAM_COUNT * BUCKET_COUNT);
+	private static final AtomicLongArray sTotalMicros = new AtomicLongArray(HISTOGRAM_COUNT);
+	private static final AtomicLongArray sMaxMicros = new AtomicLongArray(HISTOGRAM_COUNT);
+
+	public static boolean isEnabled() {
+		return sEnabled;
+	}
+
+	public static void setEnabled(boolean enabled) {
+		sEnabled = enabled;
+	}
+
+	/**
+	 * Maps an InputDevice source to one of the SOURCE_ constants.
+	 */
+	public static int getSourceIndex(int source) {
+		if ((source & InputDevice.SOURCE_GAMEPAD) == InputDevice.SOURCE_GAMEPAD) {
+			return SOURCE_GAMEPAD;
+		}
+		if ((source & InputDevice.SOURCE_JOYSTICK) == InputDevice.SOURCE_JOYSTICK) {
+			return SOURCE_JOYSTICK;
+		}
+		if ((source & InputDevice.SOURCE_MOUSE) == InputDevice.SOURCE_MOUSE) {
+			return SOURCE_MOUSE;
+		}
+		if ((source & InputDevice.SOURCE_KEYBOARD) == InputDevice.SOURCE_KEYBOARD) {
+			return SOURCE_KEYBOARD;
+		}
+		return SOURCE_OTHER;
+	}
+
+	private static int getHistogram(int playerNum, int sourceIndex) {
+		return playerNum * SOURCE_NAMES.length + sourceIndex;
+	}
+
+	/**
+	 * Records the delay of an event that is about to be dispatched. Callers
+	 * should check isEnabled() first to skip the clock read.
+	 */
+	public static void record(int playerNum, int source, long eventTimeMillis) {
+		if (!sEnabled || playerNum < 0 || playerNum >= PLAYER_COUNT) {
+			return;
+		}
+		long micros = System.nanoTime() / 1000L - eventTimeMillis * 1000L;
+		if (micros < 0) {
+			micros = 0;
+		}
+		int bucket = 0;
+		while (bucket < BUCKET_LIMITS_MICROS.length && micros > BUCKET_LIMITS_MICROS[bucket]) {
+			++bucket;
+		}
+		int histogram = getHistogram(playerNum, getSourceIndex(source));
+		sBuckets.incrementAndGet(histogram * BUCKET_COUNT + bucket);
+		sTotalMicros.addAndGet(histogram, micros);
+		long max = sMaxMicros.get(histogram);
+		while (micros > max && !sMaxMicros.compareAndSet(histogram, max, micros)) {
+			max = sMaxMicros.get(histogram);
+		}
+	}
+
+	/**
+	 * Clears the histograms, events recorded while this runs may survive it.
+	 */
+	public static void reset() {
+		for (int index = 0; index < sBuckets.length(); ++index) {
+			sBuckets.set(index, 0);
+		}
+		for (int histogram = 0; histogram < HISTOGRAM_COUNT; ++histogram) {
+			sTotalMicros.set(histogram, 0);
+			sMaxMicros.set(histogram, 0);
+		}
+	}
+
+	/**
+	 * @return the histograms as JSON, sources without samples are left out
+	 */
+	public static String getSnapshotJson() {
+		try {
+			JSONObject result = new JSONObject();
+			result.put("enabled", sEnabled);
+			JSONArray limits = new JSONArray();
+			for (long limit : BUCKET_LIMITS_MICROS) {
+				limits.put(limit);
+			}
+			result.put("bucketLimitsMicros", limits);
+
+			JSONArray players = new JSONArray();
+			for (int player = 0; player < PLAYER_COUNT; ++player) {
+				JSONObject sources = new JSONObject();
+				for (int source = 0; source < SOURCE_NAMES.length; ++source) {
+					int index = getHistogram(player, source);
+					long count = 0;
+					JSONArray buckets = new JSONArray();
+					for (int bucket = 0; bucket < BUCKET_COUNT; ++bucket) {
+						long bucketCount = sBuckets.get(index * BUCKET_COUNT + bucket);
+						count += bucketCount;
+						buckets.put(bucketCount);
+					}
+					if (count == 0) {
+						continue;
+					}
+					JSONObject histogram = new JSONObject();
+					histogram.put("count", count);
+					histogram.put("meanMicros", sTotalMicros.get(index) / count);
+					histogram.put("maxMicros", sMaxMicros.get(index));
+					histogram.put("buckets", buckets);
+					sources.put(SOURCE_NAMES[source], histogram);
+				}
+				JSONObject entry = new JSONObject();
+				entry.put("player", player);
+				entry.put("sources", sources);
+				players.put(entry);
+			}
+			result.put("players", players);
+			return result.toString();
+		} catch (JSONException e) {
+			Log.e(TAG, "getSnapshotJson: Failed to build JSON", e);
+			return "{}";
+		}
+	}
+}
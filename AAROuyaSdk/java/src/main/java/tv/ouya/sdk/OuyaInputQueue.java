@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.sdk;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated single-producer, single-consumer queue of input records.
+ * <p>
+ * The thread processing input, the UI thread or OuyaInputView's input
+ * thread, offers key and controller state records and the Unity
+ * thread drains them once per frame, so lib-ouya-ndk state is only written
+ * from the thread that reads it. Records are kept in parallel primitive
+ * arrays and nothing is allocated after construction while the consumer
+ * keeps up.
+ * <p>
+ * When the ring is full, because Unity stalled or paused, records spill
+ * into a second queue behind a lock, and keep going there until the
+ * consumer has taken every spilled record, so order is never lost. A state
+ * record without dpad edges is merged into the newest spilled record of the
+ * same player instead of taking a slot. The spill doubles when it fills up,
+ * and past MAX_SPILL_CAPACITY records are dropped and counted.
+ */
+public class OuyaInputQueue {
+
+	public static final int TYPE_KEY = 0;
+	public static final int TYPE_STATE = 1;
+
+	public static final int MAX_SPILL_CAPACITY = 64 * 1024;
+
+	/**
+	 * Receives drained records on the consumer thread.
+	 */
+	public interface Sink {
+		void onKey(int playerNum, int keyCode, int action, int source, long eventTime);
+
+		/**
+		 * @param axes backing array of the queue, the record's values start at axesOffset
+		 */
+		void onState(int playerNum, float[] axes, int axesOffset, int axisMask, int dpadMask, int source, long eventTime);
+	}
+
+	private final int mMask;
+
+	private final int mAxesPerRecord;
+
+	private final int[] mTypes;
+	private final int[] mPlayers;
+	private final int[] mCodes;
+	private final int[] mValues;
+	private final int[] mSources;
+	private final long[] mEventTimes;
+	private final float[] mAxes;
+
+	// next sequence to write, only written by the producer
+	private volatile int mHead = 0;
+
+	// next sequence to read, only written by the consumer
+	private volatile int mTail = 0;
+
+	// records that missed the ring, only written by the producer with
+	// mSpillLock held and published for other threads with lazySet
+	private long mOverflowCount = 0;
+	private final AtomicLong mPublishedOverflowCount = new AtomicLong();
+
+	private long mDroppedCount = 0;
+	private final AtomicLong mPublishedDroppedCount = new AtomicLong();
+
+	private final Object mSpillLock = new Object();
+
+	// created on the first overflow, guarded by mSpillLock
+	private OuyaInputQueue mSpill = null;
+
+	// records waiting in the spill, the producer only uses the ring while it is 0
+	private volatile int mSpillCount = 0;
+
+	/**
+	 * @param capacity number of records, rounded up to a power of two
+	 * @param axesPerRecord number of axis values carried by a state record
+	 */
+	public OuyaInputQueue(int capacity, int axesPerRecord) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		mMask = size - 1;
+		mAxesPerRecord = axesPerRecord;
+		mTypes = new int[size];
+		mPlayers = new int[size];
+		mCodes = new int[size];
+		mValues = new int[size];
+		mSources = new int[size];
+		mEventTimes = new long[size];
+		mAxes = new float[size * axesPerRecord];
+	}
+
+	public int getCapacity() {
+		return mMask + 1;
+	}
+
+	/**
+	 * @return number of records that did not fit in the ring and were spilled, merged or dropped
+	 */
+	public long getOverflowCount() {
+		return mPublishedOverflowCount.get();
+	}
+
+	/**
+	 * @return number of records lost because the spill reached MAX_SPILL_CAPACITY
+	 */
+	public long getDroppedCount() {
+		return mPublishedDroppedCount.get();
+	}
+
+	public boolean isEmpty() {
+		return mHead == mTail && mSpillCount == 0;
+	}
+
+	/**
+	 * Producer thread only.
+	 * @return false when the record was dropped
+	 */
+	public boolean offerKey(int playerNum, int keyCode, int action, int source, long eventTime) {
+		int head = mHead;
+		if (mSpillCount == 0 && head - mTail <= mMask) {
+			put(head, TYPE_KEY, playerNum, keyCode, action, source, eventTime, null, 0);
+			return true;
+		}
+		synchronized (mSpillLock) {
+			return spill(TYPE_KEY, playerNum, keyCode, action, source, eventTime, null, 0);
+		}
+	}
+
+	/**
+	 * Producer thread only.
+	 * @return false when the record was dropped
+	 */
+	public boolean offerState(int playerNum, float[] axes, int axisMask, int dpadMask, int source, long eventTime) {
+		int head = mHead;
+		if (mSpillCount == 0 && head - mTail <= mMask) {
+			put(head, TYPE_STATE, playerNum, axisMask, dpadMask, source, eventTime, axes, 0);
+			return true;
+		}
+		synchronized (mSpillLock) {
+			return spill(TYPE_STATE, playerNum, axisMask, dpadMask, source, eventTime, axes, 0);
+		}
+	}
+
+	// writes the record at head, which the caller checked is free
+	private void put(int head, int type, int playerNum, int code, int value, int source, long eventTime,
+		float[] axes, int axesOffset) {
+		int index = head & mMask;
+		mTypes[index] = type;
+		mPlayers[index] = playerNum;
+		mCodes[index] = code;
+		mValues[index] = value;
+		mSources[index] = source;
+		mEventTimes[index] = eventTime;
+		if (type == TYPE_STATE) {
+			System.arraycopy(axes, axesOffset, mAxes, index * mAxesPerRecord, mAxesPerRecord);
+		}
+		mHead = head + 1;
+	}
+
+	// producer side of an overflow, with mSpillLock held
+	private boolean spill(int type, int playerNum, int code, int value, int source, long eventTime,
+		float[] axes, int axesOffset) {
+		mPublishedOverflowCount.lazySet(++mOverflowCount);
+		OuyaInputQueue spill = mSpill;
+		if (null == spill) {
+			spill = new OuyaInputQueue(getCapacity(), mAxesPerRecord);
+			mSpill = spill;
+		}
+		// only axis changes merge, dpad edges would lose their order
+		if (type == TYPE_STATE && value == 0 && spill.mergeState(playerNum, axes, axesOffset, code, source, eventTime)) {
+			return true;
+		}
+		int head = spill.mHead;
+		if (head - spill.mTail > spill.mMask) {
+			if (spill.getCapacity() >= MAX_SPILL_CAPACITY) {
+				mPublishedDroppedCount.lazySet(++mDroppedCount);
+				return false;
+			}
+			spill = spill.grow();
+			mSpill = spill;
+			head = spill.mHead;
+		}
+		spill.put(head, type, playerNum, code, value, source, eventTime, axes, axesOffset);
+		mSpillCount = spill.mHead - spill.mTail;
+		return true;
+	}
+
+	// merges changed axes into the newest record when it is a state record of the same player
+	private boolean mergeState(int playerNum, float[] axes, int axesOffset, int axisMask, int source, long eventTime) {
+		int head = mHead;
+		if (head == mTail) {
+			return false;
+		}
+		int index = (head - 1) & mMask;
+		if (mTypes[index] != TYPE_STATE || mPlayers[index] != playerNum) {
+			return false;
+		}
+		int base = index * mAxesPerRecord;
+		for (int axis = 0; axis < mAxesPerRecord; ++axis) {
+			if ((axisMask & (1 << axis)) != 0) {
+				mAxes[base + axis] = axes[axesOffset + axis];
+			}
+		}
+		mCodes[index] |= axisMask;
+		mSources[index] = source;
+		mEventTimes[index] = eventTime;
+		return true;
+	}
+
+	// a copy with twice the capacity, only used on the spill
+	private OuyaInputQueue grow() {
+		OuyaInputQueue queue = new OuyaInputQueue(getCapacity() * 2, mAxesPerRecord);
+		for (int sequence = mTail; sequence != mHead; ++sequence) {
+			int index = sequence & mMask;
+			queue.put(queue.mHead, mTypes[index], mPlayers[index], mCodes[index], mValues[index],
+				mSources[index], mEventTimes[index], mAxes, index * mAxesPerRecord);
+		}
+		return queue;
+	}
+
+	/**
+	 * Hands every record queued before the call to the sink, in order.
+	 * Consumer thread only.
+	 * @return number of records drained
+	 */
+	public int drain(Sink sink) {
+		int count = drainRing(sink);
+		if (mSpillCount != 0) {
+			synchronized (mSpillLock) {
+				// the producer left the ring once it spilled, so what is left in it is older than the spill
+				count += drainRing(sink);
+				count += mSpill.drainRing(sink);
+				mSpillCount = 0;
+			}
+		}
+		return count;
+	}
+
+	private int drainRing(Sink sink) {
+		int tail = mTail;
+		int head = mHead;
+		for (int sequence = tail; sequence != head; ++sequence) {
+			int index = sequence & mMask;
+			if (mTypes[index] == TYPE_KEY) {
+				sink.onKey(mPlayers[index], mCodes[index], mValues[index], mSources[index], mEventTimes[index]);
+			} else {
+				sink.onState(mPlayers[index], mAxes, index * mAxesPerRecord, mCodes[index], mValues[index],
+					mSources[index], mEventTimes[index]);
+			}
+			// release each slot as soon as it is consumed
+			mTail = sequence + 1;
+		}
+		return head - tail;
+	}
+
+	/**
+	 * Discards every pending record. Consumer thread only.
+	 */
+	public void skip() {
+		mTail = mHead;
+		if (mSpillCount != 0) {
+			synchronized (mSpillLock) {
+				mTail = mHead;
+				mSpill.skip();
+				mSpillCount = 0;
+			}
+		}
+	}
+}
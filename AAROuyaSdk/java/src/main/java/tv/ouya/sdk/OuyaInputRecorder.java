@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.sdk;
+
+import android.util.Log;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Records every value handed to lib-ouya-ndk into a compact binary file.
+ * <p>
+ * The file starts with a 16 byte header followed by fixed-size records,
+ * all little endian:
+ * <pre>
+ * header:  int magic, int version, int recordSize, int reserved
+ * record:  byte type, byte player, short code, int action, float value,
+ *          long timestampNanos
+ * </pre>
+ * Key records carry the key code and action, axis records the axis id and
+ * value, and turret records the mouse info index in code and the value in
+ * action. Timestamps are System.nanoTime() at the moment of dispatch.
+ * <p>
+ * Records come from the input, Unity and Turret threads and are put in one
+ * direct buffer under a lock. A full buffer is handed to a writer thread,
+ * which writes it through a FileChannel and returns it for reuse, so no
+ * file IO happens while the lock is held.
+ */
+public class OuyaInputRecorder {
+
+	private static final String TAG = OuyaInputRecorder.class.getSimpleName();
+
+	/** "OUYR" */
+	public static final int MAGIC = 0x5259554F;
+
+	public static final int VERSION = 1;
+
+	public static final int HEADER_SIZE = 16;
+
+	public static final int RECORD_SIZE = 20;
+
+	public static final byte TYPE_KEY = 1;
+	public static final byte TYPE_AXIS = 2;
+	public static final byte TYPE_TURRET = 3;
+
+	private static final int BUFFER_SIZE = RECORD_SIZE * 4096;
+
+	/**
+	 * One recording: the file, its writer thread and the full buffers
+	 * waiting to be written, in order.
+	 */
+	private static final class Session implements Runnable {
+		final FileOutputStream mOutputStream;
+		final FileChannel mChannel;
+		final LinkedBlockingQueue<ByteBuffer> mFull = new LinkedBlockingQueue<ByteBuffer>();
+		final Thread mWriter = new Thread(this, "OuyaInputRecorder");
+		// only touched by the writer until it is joined
+		long mRecordCount = 0;
+
+		Session(FileOutputStream outputStream) {
+			mOutputStream = outputStream;
+			mChannel = outputStream.getChannel();
+		}
+
+		public void run() {
+			boolean failed = false;
+			for (;;) {
+				ByteBuffer buffer;
+				try {
+					buffer = mFull.take();
+				} catch (InterruptedException e) {
+					continue;
+				}
+				if (buffer == END) {
+					break;
+				}
+				int recordCount = buffer.remaining() / RECORD_SIZE;
+				try {
+					while (!failed && buffer.hasRemaining()) {
+						mChannel.write(buffer);
+					}
+				} catch (IOException e) {
+					Log.e(TAG, "Failed to write input records, recording stopped", e);
+					failed = true;
+					sRecording = false;
+				}
+				if (!failed) {
+					mRecordCount += recordCount;
+				}
+				sFreeBuffers.add(buffer);
+			}
+			try {
+				mOutputStream.close();
+			} catch (IOException e) {
+				Log.e(TAG, "Failed to close recording", e);
+			}
+		}
+	}
+
+	private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+	private static volatile boolean sRecording = false;
+
+	// guards start and stop
+	private static final Object sLock = new Object();
+
+	// guards sSession and sBuffer, held by every record
+	private static final Object sBufferLock = new Object();
+
+	private static Session sSession = null;
+
+	// buffer records are put in, null while stopped
+	private static ByteBuffer sBuffer = null;
+
+	private static final ConcurrentLinkedQueue<ByteBuffer> sFreeBuffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+	public static boolean isRecording() {
+		return sRecording;
+	}
+
+	public static boolean start(String path) {
+		synchronized (sLock) {
+			Session previous;
+			synchronized (sBufferLock) {
+				previous = sSession;
+			}
+			if (null != previous) {
+				if (sRecording) {
+					Log.e(TAG, "start: Already recording");
+					return false;
+				}
+				// the writer failed, close what is left of that recording
+				stop();
+			}
+			FileOutputStream outputStream = null;
+			try {
+				outputStream = new FileOutputStream(path);
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.order(ByteOrder.LITTLE_ENDIAN);
+				header.putInt(MAGIC);
+				header.putInt(VERSION);
+				header.putInt(RECORD_SIZE);
+				header.putInt(0);
+				header.flip();
+				FileChannel channel = outputStream.getChannel();
+				while (header.hasRemaining()) {
+					channel.write(header);
+				}
+			} catch (IOException e) {
+				Log.e(TAG, "start: Failed to open " + path, e);
+				if (null != outputStream) {
+					try {
+						outputStream.close();
+					} catch (IOException closeException) {
+						Log.e(TAG, "Failed to close recording", closeException);
+					}
+				}
+				return false;
+			}
+			Session session = new Session(outputStream);
+			session.mWriter.start();
+			synchronized (sBufferLock) {
+				sSession = session;
+				sBuffer = obtainBuffer();
+			}
+			sRecording = true;
+			Log.i(TAG, "Recording input to " + path);
+			return true;
+		}
+	}
+
+	/**
+	 * Waits for the writer thread to write the records made so far.
+	 * @return number of records written
+	 */
+	public static long stop() {
+		synchronized (sLock) {
+			Session session;
+			synchronized (sBufferLock) {
+				session = sSession;
+				if (null == session) {
+					return 0;
+				}
+				sRecording = false;
+				ByteBuffer buffer = sBuffer;
+				buffer.flip();
+				session.mFull.add(buffer);
+				session.mFull.add(END);
+				sSession = null;
+				sBuffer = null;
+			}
+			try {
+				session.mWriter.join();
+			} catch (InterruptedException e) {
+				Log.e(TAG, "stop: Interrupted waiting for the writer", e);
+				Thread.currentThread().interrupt();
+			}
+			Log.i(TAG, "Recorded " + session.mRecordCount + " input records");
+			return session.mRecordCount;
+		}
+	}
+
+	public static void recordKey(int playerNum, int keyCode, int action) {
+		write(TYPE_KEY, playerNum, keyCode, action, 0f);
+	}
+
+	public static void recordAxis(int playerNum, int axis, float value) {
+		write(TYPE_AXIS, playerNum, axis, 0, value);
+	}
+
+	public static void recordTurret(int index, int value) {
+		write(TYPE_TURRET, 0, index, value, 0f);
+	}
+
+	private static void write(byte type, int playerNum, int code, int action, float value) {
+		if (!sRecording) {
+			return;
+		}
+		long timestamp = System.nanoTime();
+		synchronized (sBufferLock) {
+			ByteBuffer buffer = sBuffer;
+			if (null == buffer) {
+				return;
+			}
+			if (buffer.remaining() < RECORD_SIZE) {
+				buffer.flip();
+				sSession.mFull.add(buffer);
+				buffer = obtainBuffer();
+				sBuffer = buffer;
+			}
+			buffer.put(type);
+			buffer.put((byte) playerNum);
+			buffer.putShort((short) code);
+			buffer.putInt(action);
+			buffer.putFloat(value);
+			buffer.putLong(timestamp);
+		}
+	}
+
+	private static ByteBuffer obtainBuffer() {
+		ByteBuffer buffer = sFreeBuffers.poll();
+		if (null == buffer) {
+			buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+		}
+		buffer.clear();
+		return buffer;
+	}
+}
@@ -0,0 +1,228 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.sdk;
+
+import android.os.Handler;
+import android.util.Log;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * Feeds a file written by OuyaInputRecorder back through OuyaInputView and
+ * MainActivity on the looper that processes input, either at the recorded
+ * pace or as fast as possible. Fast replays yield to the looper every few
+ * hundred records so it keeps handling real events.
+ */
+public class OuyaInputReplay implements Runnable {
+
+	private static final String TAG = OuyaInputReplay.class.getSimpleName();
+
+	private static final int BUFFER_SIZE = OuyaInputRecorder.RECORD_SIZE * 4096;
+
+	private static final int MAX_RECORDS_PER_PASS = 256;
+
+	private static final int TIMESTAMP_OFFSET = 12;
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	private static final Object sLock = new Object();
+
+	private static OuyaInputReplay sActiveReplay = null;
+
+	private final Handler mHandler = new Handler(OuyaInputView.getInputLooper());
+
+	private final FileInputStream mInputStream;
+
+	private final FileChannel mChannel;
+
+	private final ByteBuffer mBuffer;
+
+	private final boolean mRealTime;
+
+	private boolean mStarted = false;
+
+	private long mFirstRecordNanos = 0;
+
+	private long mStartNanos = 0;
+
+	private long mReplayedCount = 0;
+
+	private volatile boolean mStopped = false;
+
+	private OuyaInputReplay(FileInputStream inputStream, ByteBuffer buffer, boolean realTime) {
+		mInputStream = inputStream;
+		mChannel = inputStream.getChannel();
+		mBuffer = buffer;
+		mRealTime = realTime;
+	}
+
+	/**
+	 * @param realTime true to keep the recorded timing, false to replay as
+	 * fast as the input looper allows
+	 */
+	public static boolean start(String path, boolean realTime) {
+		synchronized (sLock) {
+			if (null != sActiveReplay) {
+				Log.e(TAG, "start: A replay is already running");
+				return false;
+			}
+			FileInputStream inputStream = null;
+			try {
+				inputStream = new FileInputStream(path);
+				ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+				buffer.order(ByteOrder.LITTLE_ENDIAN);
+				FileChannel channel = inputStream.getChannel();
+				while (buffer.position() < OuyaInputRecorder.HEADER_SIZE) {
+					if (channel.read(buffer) < 0) {
+						break;
+					}
+				}
+				buffer.flip();
+				if (buffer.remaining() < OuyaInputRecorder.HEADER_SIZE ||
+					buffer.getInt() != OuyaInputRecorder.MAGIC ||
+					buffer.getInt() != OuyaInputRecorder.VERSION ||
+					buffer.getInt() != OuyaInputRecorder.RECORD_SIZE) {
+					Log.e(TAG, "start: " + path + " is not an input recording");
+					inputStream.close();
+					return false;
+				}
+				buffer.getInt();
+				sActiveReplay = new OuyaInputReplay(inputStream, buffer, realTime);
+			} catch (IOException e) {
+				Log.e(TAG, "start: Failed to open " + path, e);
+				if (null != inputStream) {
+					try {
+						inputStream.close();
+					} catch (IOException ignored) {
+					}
+				}
+				return false;
+			}
+			Log.i(TAG, "Replaying input from " + path);
+			sActiveReplay.mHandler.post(sActiveReplay);
+			return true;
+		}
+	}
+
+	public static void stop() {
+		synchronized (sLock) {
+			if (null != sActiveReplay) {
+				sActiveReplay.mStopped = true;
+			}
+		}
+	}
+
+	public static boolean isReplaying() {
+		synchronized (sLock) {
+			return null != sActiveReplay;
+		}
+	}
+
+	@Override
+	public void run() {
+		OuyaInputView inputView = OuyaInputView.getActiveInputView();
+		if (mStopped || null == inputView) {
+			finish();
+			return;
+		}
+		ByteBuffer buffer = mBuffer;
+		try {
+			for (int count = 0; count < MAX_RECORDS_PER_PASS; ++count) {
+				if (buffer.remaining() < OuyaInputRecorder.RECORD_SIZE && !fill()) {
+					finish();
+					return;
+				}
+				long timestamp = buffer.getLong(buffer.position() + TIMESTAMP_OFFSET);
+				if (!mStarted) {
+					mStarted = true;
+					mFirstRecordNanos = timestamp;
+					mStartNanos = System.nanoTime();
+				}
+				if (mRealTime) {
+					long wait = mStartNanos + (timestamp - mFirstRecordNanos) - System.nanoTime();
+					if (wait > 0) {
+						mHandler.postDelayed(this, (wait + NANOS_PER_MILLI - 1) / NANOS_PER_MILLI);
+						return;
+					}
+				}
+				replayRecord(inputView, buffer);
+			}
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to read input recording", e);
+			finish();
+			return;
+		}
+		mHandler.post(this);
+	}
+
+	private void replayRecord(OuyaInputView inputView, ByteBuffer buffer) {
+		byte type = buffer.get();
+		int playerNum = buffer.get();
+		int code = buffer.getShort() & 0xFFFF;
+		int action = buffer.getInt();
+		float value = buffer.getFloat();
+		buffer.getLong();
+		switch (type) {
+			case OuyaInputRecorder.TYPE_KEY:
+				inputView.replayKey(playerNum, code, action);
+				break;
+			case OuyaInputRecorder.TYPE_AXIS:
+				inputView.replayAxis(playerNum, code, value);
+				break;
+			case OuyaInputRecorder.TYPE_TURRET:
+				MainActivity mainActivity = IOuyaActivity.GetMainActivity();
+				if (null != mainActivity) {
+					mainActivity.setTurretMouseInfo(code, action);
+				}
+				break;
+			default:
+				Log.w(TAG, "Skipping unknown record type " + type);
+				break;
+		}
+		++mReplayedCount;
+	}
+
+	private boolean fill() throws IOException {
+		mBuffer.compact();
+		// a short read is not the end of the file
+		while (mBuffer.hasRemaining()) {
+			if (mChannel.read(mBuffer) < 0) {
+				break;
+			}
+		}
+		mBuffer.flip();
+		return mBuffer.remaining() >= OuyaInputRecorder.RECORD_SIZE;
+	}
+
+	private void finish() {
+		mHandler.removeCallbacks(this);
+		try {
+			mInputStream.close();
+		} catch (IOException e) {
+			Log.e(TAG, "Failed to close input recording", e);
+		}
+		synchronized (sLock) {
+			if (sActiveReplay == this) {
+				sActiveReplay = null;
+			}
+		}
+		Log.i(TAG, "Replayed " + mReplayedCount + " input records");
+	}
+}
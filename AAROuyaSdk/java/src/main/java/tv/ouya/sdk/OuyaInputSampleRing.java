@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.sdk;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single-producer, single-consumer ring of timestamped axis samples.
+ * <p>
+ * The UI thread offers every sample of a MotionEvent, historical ones
+ * included, and the Unity thread drains them once per frame. Head and tail
+ * are only ever written by one side each, so no locking is needed. When the
+ * ring is full new samples are dropped and counted.
+ */
+public class OuyaInputSampleRing {
+
+	private final int mAxesPerSample;
+
+	private final int mMask;
+
+	private final float[] mAxes;
+
+	private final long[] mTimestamps;
+
+	// next sequence to write, only written by the producer
+	private volatile int mHead = 0;
+
+	// next sequence to read, only written by the consumer
+	private volatile int mTail = 0;
+
+	// only written by the producer, published for other threads with lazySet
+	private long mDroppedCount = 0;
+	private final AtomicLong mPublishedDroppedCount = new AtomicLong();
+
+	/**
+	 * @param capacity number of samples, rounded up to a power of two
+	 * @param axesPerSample number of axis values stored with each sample
+	 */
+	public OuyaInputSampleRing(int capacity, int axesPerSample) {
+		int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+		mAxesPerSample = axesPerSample;
+		mMask = size - 1;
+		mAxes = new float[size * axesPerSample];
+		mTimestamps = new long[size];
+	}
+
+	public int getCapacity() {
+		return mMask + 1;
+	}
+
+	public int getAxesPerSample() {
+		return mAxesPerSample;
+	}
+
+	public long getDroppedCount() {
+		return mPublishedDroppedCount.get();
+	}
+
+	/**
+	 * Copies one sample into the ring. Producer thread only.
+	 * @return false when the ring is full and the sample was dropped
+	 */
+	public boolean offer(long timestampNanos, float[] axes) {
+		int head = mHead;
+		if (head - mTail > mMask) {
+			mPublishedDroppedCount.lazySet(++mDroppedCount);
+			return false;
+		}
+		int index = head & mMask;
+		mTimestamps[index] = timestampNanos;
+		System.arraycopy(axes, 0, mAxes, index * mAxesPerSample, mAxesPerSample);
+		mHead = head + 1;
+		return true;
+	}
+
+	/**
+	 * Moves the oldest pending samples into the arrays, as many as fit in
+	 * both. Consumer thread only.
+	 * @return number of samples copied
+	 */
+	public int drain(float[] axes, long[] timestamps) {
+		return drain(axes, timestamps, timestamps.length);
+	}
+
+	/**
+	 * Moves at most maxSamples of the oldest pending samples into the
+	 * arrays. Consumer thread only.
+	 * @return number of samples copied
+	 */
+	public int drain(float[] axes, long[] timestamps, int maxSamples) {
+		int tail = mTail;
+		int available = mHead - tail;
+		int count = Math.min(Math.min(available, maxSamples), Math.min(timestamps.length, axes.length / mAxesPerSample));
+		for (int sample = 0; sample < count; ++sample) {
+			int index = (tail + sample) & mMask;
+			timestamps[sample] = mTimestamps[index];
+			System.arraycopy(mAxes, index * mAxesPerSample, axes, sample * mAxesPerSample, mAxesPerSample);
+		}
+		mTail = tail + count;
+		return count;
+	}
+
+	/**
+	 * Discards every pending sample. Consumer thread only.
+	 */
+	public void skip() {
+		mTail = mHead;
+	}
+}
@@ -20,16 +20,23 @@ import tv.ouya.console.api.OuyaController;
 import tv.ouya.console.api.OuyaInputMapper;
 import android.app.Activity;
 import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Process;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.util.Log;
-import android.util.SparseArray;
 import android.view.InputDevice;
 import android.view.InputEvent;
 import android.view.KeyEvent;
 import android.view.MotionEvent;
 import android.view.View;
 import android.widget.FrameLayout;
-import java.util.HashMap;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class OuyaInputView extends View {
 
@@ -39,22 +46,176 @@ public class OuyaInputView extends View {
 
 	public static boolean sNativeInitialized = false;
 
-	private static SparseArray<HashMap<Integer, Float>> sAxisValues = new SparseArray<HashMap<Integer, Float>>();
-	private static SparseArray<HashMap<Integer, Boolean>> sButtonValues = new SparseArray<HashMap<Integer, Boolean>>();
+	/**
+	 * Player slots with input state, must match MAX_PLAYERS in jni.cpp.
+	 * Controllers beyond the ones OuyaController pairs get the free slots.
+	 */
+	public static final int MAX_PLAYERS = 8;
+
+	// set by lib-ouya-ndk when dispatchControllerStateNative is available
+	public static boolean sNativeBatchSupported = false;
+
+	private static final OuyaControllerState sControllerState = new OuyaControllerState(MAX_PLAYERS);
 
 	private static final float DEAD_ZONE = 0.25f;
 
+	// layout of the packed axis vector, must match g_packedAxes in jni.cpp
+	private static final int PACKED_HAT_X = 0;
+	private static final int PACKED_HAT_Y = 1;
+	private static final int PACKED_LS_X = 2;
+	private static final int PACKED_LS_Y = 3;
+	private static final int PACKED_RS_X = 4;
+	private static final int PACKED_RS_Y = 5;
+	private static final int PACKED_L2 = 6;
+	private static final int PACKED_R2 = 7;
+
+	// also the default axis map of OuyaControllerMapping
+	static final int[] PACKED_AXES = {
+		MotionEvent.AXIS_HAT_X,
+		MotionEvent.AXIS_HAT_Y,
+		OuyaController.AXIS_LS_X,
+		OuyaController.AXIS_LS_Y,
+		OuyaController.AXIS_RS_X,
+		OuyaController.AXIS_RS_Y,
+		OuyaController.AXIS_L2,
+		OuyaController.AXIS_R2
+	};
+
+	// layout of the dpad edge mask, the low nibble holds presses and the
+	// high nibble releases, must match g_dpadButtons in jni.cpp
+	private static final int DPAD_LEFT = 0;
+	private static final int DPAD_RIGHT = 1;
+	private static final int DPAD_DOWN = 2;
+	private static final int DPAD_UP = 3;
+
+	private static final int DPAD_RELEASE_SHIFT = 4;
+
+	private static final int[] DPAD_BUTTONS = {
+		OuyaController.BUTTON_DPAD_LEFT,
+		OuyaController.BUTTON_DPAD_RIGHT,
+		OuyaController.BUTTON_DPAD_DOWN,
+		OuyaController.BUTTON_DPAD_UP
+	};
+
+	// bit order of the button masks from getControllerSnapshot
+	private static final int[] SNAPSHOT_BUTTONS = {
+		OuyaController.BUTTON_O,
+		OuyaController.BUTTON_U,
+		OuyaController.BUTTON_Y,
+		OuyaController.BUTTON_A,
+		OuyaController.BUTTON_L1,
+		OuyaController.BUTTON_R1,
+		OuyaController.BUTTON_L3,
+		OuyaController.BUTTON_R3,
+		OuyaController.BUTTON_DPAD_UP,
+		OuyaController.BUTTON_DPAD_DOWN,
+		OuyaController.BUTTON_DPAD_RIGHT,
+		OuyaController.BUTTON_DPAD_LEFT,
+		OuyaController.BUTTON_MENU,
+		OuyaController.BUTTON_L2,
+		OuyaController.BUTTON_R2
+	};
+
+	private final float[] mPackedAxes = new float[PACKED_AXES.length];
+
+	// last packed axis values handed to native, per player
+	private static final float[][] sDispatchedAxes = new float[MAX_PLAYERS][PACKED_AXES.length];
+
+	// axis changes at or below this size are not dispatched
+	private static volatile float sAxisEpsilon = 0f;
+
+	// axis, dpad and key dispatches skipped because nothing changed, only
+	// written by the thread processing input and published with lazySet
+	private static long sSuppressedDispatchCount = 0;
+	private static final AtomicLong sPublishedSuppressedDispatchCount = new AtomicLong();
+
+	// auto-repeat key events are dropped unless the game asks for them
+	private static volatile boolean sKeyRepeatEnabled = false;
+
+	private static final OuyaSnapshotBuffer sSnapshotBuffer = new OuyaSnapshotBuffer(MAX_PLAYERS);
+
+	private static final int SAMPLE_RING_CAPACITY = 256;
+
+	private static final long NANOS_PER_MILLI = 1000000L;
+
+	// historical samples per player, in PACKED_AXES order
+	private static final OuyaInputSampleRing[] sSampleRings = createSampleRings(MAX_PLAYERS);
+
+	// drainInputSampleBuffer copies a ring here for C# to read without a JNI call per value
+	private static final OuyaSampleBuffer sSampleBuffer = new OuyaSampleBuffer(SAMPLE_RING_CAPACITY, PACKED_AXES.length);
+
+	// sampling starts with the first drain so games that never drain pay nothing
+	private static volatile boolean sSampleHistoryEnabled = false;
+
+	private final float[] mSampleAxes = new float[PACKED_AXES.length];
+
+	private static final int INPUT_QUEUE_CAPACITY = 1024;
+
+	// view whose queue pumpInputQueue drains
+	private static volatile OuyaInputView sActiveInputView = null;
+
+	private static volatile boolean sFrameAlignedInput = false;
+
+	private final OuyaInputQueue mInputQueue = new OuyaInputQueue(INPUT_QUEUE_CAPACITY, PACKED_AXES.length);
+
+	private final QueueSink mQueueSink = new QueueSink();
+
+	// packed axes of replayed records, only the masked value is read
+	private final float[] mReplayAxes = new float[PACKED_AXES.length];
+
+	private static final OuyaDeviceRegistry sDeviceRegistry = new OuyaDeviceRegistry(MAX_PLAYERS);
+
+	private static final OuyaStickProcessor sStickProcessor = new OuyaStickProcessor(MAX_PLAYERS);
+
+	// scratch x and y for the stick processor
+	private final float[] mStickValues = new float[2];
+
+	// all zero, sent when a player slot is released
+	private final float[] mRestAxes = new float[PACKED_AXES.length];
+
+	private final SlotReleaser mSlotReleaser = new SlotReleaser();
+
+	private static final int MSG_HANDOFF = 1;
+
+	// flags carried in the action of a handed off key
+	private static final int HANDOFF_ACTION_MASK = 0xFFFF;
+	private static final int HANDOFF_REPEAT = 1 << 16;
+	private static final int HANDOFF_PLAYER_ONE = 1 << 17;
+
+	// every packed axis, so a spilled raw state merges whole
+	private static final int HANDOFF_AXIS_MASK = (1 << PACKED_AXES.length) - 1;
+
+	// events are processed on mInputThread instead of the UI thread
+	private static volatile boolean sInputThreadEnabled = false;
+
+	private HandlerThread mInputThread = null;
+
+	// wakes mInputThread to drain mHandoffQueue, null while the UI thread processes input
+	private volatile Handler mInputHandler = null;
+
+	private final InputHandlerCallback mInputHandlerCallback = new InputHandlerCallback();
+
+	// translated keys and raw packed axes, from the UI thread to mInputThread
+	private final OuyaInputQueue mHandoffQueue = new OuyaInputQueue(INPUT_QUEUE_CAPACITY, PACKED_AXES.length);
+
+	private final HandoffSink mHandoffSink = new HandoffSink();
+
+	// set while a MSG_HANDOFF is pending, so a burst of events sends one message
+	private final AtomicBoolean mHandoffPending = new AtomicBoolean(false);
+
+	// raw packed axes of the current motion event, UI thread only
+	private final float[] mRawAxes = new float[PACKED_AXES.length];
+
 	static {
-		for (int index = 0; index < OuyaController.MAX_CONTROLLERS; ++index) {
-			HashMap<Integer, Float> axisMap = new HashMap<Integer, Float>();
-			axisMap.put(MotionEvent.AXIS_HAT_X, 0f);
-			axisMap.put(MotionEvent.AXIS_HAT_Y, 0f);
-			sAxisValues.put(index, axisMap);
-			HashMap<Integer, Boolean> buttonMap = new HashMap<Integer, Boolean>();
-			sButtonValues.put(index, buttonMap);
-		}
     	Log.i(TAG, "Loading lib-ouya-ndk...");
-        System.loadLibrary("-ouya-ndk");
+        try {
+        	System.loadLibrary("-ouya-ndk");
+        	sSnapshotBuffer.register();
+        	sSampleBuffer.register();
+        } catch (UnsatisfiedLinkError e) {
+        	// lets the view load without the native library, e.g. in the benchmark module
+        	Log.e(TAG, "Failed to load lib-ouya-ndk", e);
+        }
     }
 
     public OuyaInputView(Context context, AttributeSet attrs) {
@@ -86,7 +247,13 @@ public class OuyaInputView extends View {
 				Log.e(TAG, "init: Content view is missing");
 			}
 			
-			OuyaInputMapper.init(activity);			
+			OuyaInputMapper.init(activity);
+			sDeviceRegistry.register(activity);
+			sDeviceRegistry.setSlotListener(mSlotReleaser);
+			sActiveInputView = this;
+			if (sInputThreadEnabled) {
+				startInputThread();
+			}
 			activity.takeKeyEvents(true);
 			setFocusable(true);
 			requestFocus();
@@ -98,12 +265,158 @@ public class OuyaInputView extends View {
 	public boolean isNativeInitialized() {
 		return sNativeInitialized;
 	}
+
+	public static OuyaControllerState getControllerState() {
+		return sControllerState;
+	}
+
+	public static OuyaSnapshotBuffer getSnapshotBuffer() {
+		return sSnapshotBuffer;
+	}
+
+	public static OuyaDeviceRegistry getDeviceRegistry() {
+		return sDeviceRegistry;
+	}
+
+	public static OuyaStickProcessor getStickProcessor() {
+		return sStickProcessor;
+	}
+
+	/**
+	 * Sets how far an axis has to move before the change is sent to the
+	 * native plugin. Returning to rest or reaching full travel is always sent.
+	 */
+	public static void setAxisEpsilon(float epsilon) {
+		if (epsilon < 0f || Float.isNaN(epsilon)) {
+			Log.e(TAG, "setAxisEpsilon: Epsilon must not be negative");
+			return;
+		}
+		sAxisEpsilon = epsilon;
+	}
+
+	public static float getAxisEpsilon() {
+		return sAxisEpsilon;
+	}
+
+	public static long getSuppressedDispatchCount() {
+		return sPublishedSuppressedDispatchCount.get();
+	}
+
+	/**
+	 * Forwards auto-repeat key events from held buttons to the native
+	 * plugin. Off by default, held buttons are already tracked as pressed.
+	 */
+	public static void setKeyRepeatEnabled(boolean enabled) {
+		sKeyRepeatEnabled = enabled;
+	}
+
+	public static boolean isKeyRepeatEnabled() {
+		return sKeyRepeatEnabled;
+	}
+
+	private static OuyaInputSampleRing[] createSampleRings(int playerCount) {
+		OuyaInputSampleRing[] rings = new OuyaInputSampleRing[playerCount];
+		for (int index = 0; index < playerCount; ++index) {
+			rings[index] = new OuyaInputSampleRing(SAMPLE_RING_CAPACITY, PACKED_AXES.length);
+		}
+		return rings;
+	}
+
+	/**
+	 * Moves every axis sample received for the player since the last call
+	 * into the arrays, oldest first. Each sample holds the HAT_X, HAT_Y,
+	 * LS_X, LS_Y, RS_X, RS_Y, L2 and R2 values and its event time in
+	 * nanoseconds on the SystemClock.uptimeMillis() time base. The first call
+	 * enables sampling and returns 0.
+	 * @return number of samples copied
+	 */
+	public static int drainInputSamples(int playerNum, float[] axes, long[] timestamps) {
+		if (playerNum < 0 || playerNum >= sSampleRings.length) {
+			Log.e(TAG, "drainInputSamples: Invalid player " + playerNum);
+			return 0;
+		}
+		if (null == axes || null == timestamps) {
+			Log.e(TAG, "drainInputSamples: Arrays must not be null");
+			return 0;
+		}
+		if (!sSampleHistoryEnabled) {
+			sSampleHistoryEnabled = true;
+			return 0;
+		}
+		return sSampleRings[playerNum].drain(axes, timestamps);
+	}
+
+	/**
+	 * Same as drainInputSamples, but copies into the shared OuyaSampleBuffer,
+	 * which C# reads with Marshal.Copy. Unity thread only.
+	 * @return number of samples copied, -1 when lib-ouya-ndk does not share
+	 * the buffer
+	 */
+	public static int drainInputSampleBuffer(int playerNum, int maxSamples) {
+		if (!sSampleBuffer.isRegistered()) {
+			return -1;
+		}
+		if (playerNum < 0 || playerNum >= sSampleRings.length) {
+			Log.e(TAG, "drainInputSampleBuffer: Invalid player " + playerNum);
+			return 0;
+		}
+		if (!sSampleHistoryEnabled) {
+			sSampleHistoryEnabled = true;
+			return 0;
+		}
+		return sSampleBuffer.fill(sSampleRings[playerNum], maxSamples);
+	}
+
+	public static int getSampleAxisCount() {
+		return PACKED_AXES.length;
+	}
+
+	public static long getDroppedSampleCount(int playerNum) {
+		if (playerNum < 0 || playerNum >= sSampleRings.length) {
+			return 0;
+		}
+		return sSampleRings[playerNum].getDroppedCount();
+	}
+
+	/**
+	 * Copies the current state of every player in one call, for readers
+	 * that would otherwise ask for each axis and button. axes receives the
+	 * HAT_X, HAT_Y, LS_X, LS_Y, RS_X, RS_Y, L2 and R2 values per player and
+	 * buttons a mask per player with bits in the order O, U, Y, A, L1, R1,
+	 * L3, R3, DPAD_UP, DPAD_DOWN, DPAD_RIGHT, DPAD_LEFT, MENU, L2, R2.
+	 * @return number of players copied, 0 while OuyaNativeInputQueue
+	 * bypasses the snapshot buffer, -1 when a player's state changed during
+	 * every read attempt and the arrays must not be used
+	 */
+	public static int getControllerSnapshot(float[] axes, int[] buttons) {
+		if (null == axes || null == buttons) {
+			Log.e(TAG, "getControllerSnapshot: Arrays must not be null");
+			return 0;
+		}
+		if (OuyaNativeInputQueue.isRequested()) {
+			return 0;
+		}
+		int playerCount = Math.min(MAX_PLAYERS, Math.min(axes.length / PACKED_AXES.length, buttons.length));
+		for (int playerNum = 0; playerNum < playerCount; ++playerNum) {
+			if (!sSnapshotBuffer.read(playerNum, PACKED_AXES, axes,
+				playerNum * PACKED_AXES.length, SNAPSHOT_BUTTONS, buttons, playerNum)) {
+				return -1;
+			}
+		}
+		return playerCount;
+	}
 	
 	public void shutdown() {
 		try {
 			Activity activity = ((Activity)getContext());		
 			if (null != activity) {
+				stopInputThread();
 				OuyaInputMapper.shutdown(activity);
+				sDeviceRegistry.unregister();
+				if (sActiveInputView == this) {
+					sDeviceRegistry.setSlotListener(null);
+					sActiveInputView = null;
+				}
 			} else {
 				Log.e(TAG, "shutdown: Activity was not found.");
 			}
@@ -116,6 +429,10 @@ public class OuyaInputView extends View {
     public boolean dispatchGenericMotionEvent(MotionEvent motionEvent) {
     	//Log.i(TAG, "dispatchGenericMotionEvent");
     	//DebugInput.debugMotionEvent(motionEvent);
+		if (null != sDeviceRegistry.getMapping(motionEvent.getDeviceId())) {
+			// known controllers are translated in onGenericMotionEvent
+			return onGenericMotionEvent(motionEvent);
+		}
     	Activity activity = ((Activity)getContext());		
 		if (null != activity) {
 		    if (OuyaInputMapper.shouldHandleInputEvent(motionEvent)) {
@@ -130,6 +447,19 @@ public class OuyaInputView extends View {
 	@Override
     public boolean dispatchKeyEvent(KeyEvent keyEvent) {
 		//Log.i(TAG, "dispatchKeyEvent");
+		OuyaControllerMapping mapping = sDeviceRegistry.getMapping(keyEvent.getDeviceId());
+		if (null != mapping) {
+			int keyCode = mapping.mapKey(keyEvent.getKeyCode());
+			if (keyCode == OuyaControllerMapping.KEY_DEFAULT) {
+				return super.dispatchKeyEvent(keyEvent);
+			}
+			if (keyEvent.getAction() == KeyEvent.ACTION_DOWN) {
+				return onKeyDown(keyCode, keyEvent);
+			} else if (keyEvent.getAction() == KeyEvent.ACTION_UP) {
+				return onKeyUp(keyCode, keyEvent);
+			}
+			return true;
+		}
 		Activity activity = ((Activity)getContext());		
 		if (null != activity) {
 	    	if (OuyaInputMapper.shouldHandleInputEvent(keyEvent)) {
@@ -141,8 +471,55 @@ public class OuyaInputView extends View {
 	    return super.dispatchKeyEvent(keyEvent);
     }
 
+	/**
+	 * Delivers a key that MainActivity routed by device profile.
+	 * @param route packed OuyaDeviceProfile route
+	 */
+	void dispatchRoutedKey(KeyEvent keyEvent, int route) {
+		switch (OuyaDeviceProfile.getRouteAction(route)) {
+		case OuyaDeviceProfile.ROUTE_PLAYER_ONE:
+			// not marked as known, player one's own controller may still need dpad synthesis
+			Handler inputHandler = mInputHandler;
+			if (null != inputHandler) {
+				handOffKey(inputHandler, 0, keyEvent.getKeyCode(), keyEvent.getAction() | HANDOFF_PLAYER_ONE,
+					keyEvent.getSource(), keyEvent.getEventTime());
+			} else {
+				publishKey(0, keyEvent.getKeyCode(), keyEvent.getAction(), keyEvent.getSource(), keyEvent.getEventTime());
+			}
+			break;
+		case OuyaDeviceProfile.ROUTE_REMAP:
+		case OuyaDeviceProfile.ROUTE_REMAP_SHARED:
+			int keyCode = OuyaDeviceProfile.getRouteKeyCode(route);
+			if (keyEvent.getAction() == KeyEvent.ACTION_DOWN) {
+				onKeyDown(keyCode, keyEvent);
+			} else if (keyEvent.getAction() == KeyEvent.ACTION_UP) {
+				onKeyUp(keyCode, keyEvent);
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Queues a translated key for mInputThread.
+	 * @param action key action, with the HANDOFF flags
+	 */
+	private void handOffKey(Handler inputHandler, int playerNum, int keyCode, int action, int source, long eventTime) {
+		mHandoffQueue.offerKey(playerNum, keyCode, action, source, eventTime);
+		wakeInputThread(inputHandler);
+	}
+
+	private void wakeInputThread(Handler inputHandler) {
+		if (!mHandoffPending.getAndSet(true)) {
+			// pooled message, nothing is allocated per event
+			inputHandler.sendEmptyMessage(MSG_HANDOFF);
+		}
+	}
+
 	public native void dispatchGenericMotionEventNative(int deviceId, int axis, float value);
     public native void dispatchKeyEventNative(int deviceId, int keyCode, int action);
+    public native void dispatchControllerStateNative(int deviceId, float[] axes, int axisMask, int dpadMask);
     
 	@Override
 	public boolean onGenericMotionEvent(MotionEvent motionEvent) {
@@ -156,129 +533,195 @@ public class OuyaInputView extends View {
 			return false;
 		}
 
-		int playerNum = OuyaController.getPlayerNumByDeviceId(motionEvent.getDeviceId());	    
-	    if (playerNum < 0 || playerNum >= OuyaController.MAX_CONTROLLERS) {
-	    	playerNum = 0;
-	    }
+		int playerNum = sDeviceRegistry.getPlayerNum(motionEvent.getDeviceId());
+		if (playerNum == OuyaDeviceRegistry.INVALID_PLAYER) {
+			return false;
+		}
 		
-		float dpadX = motionEvent.getAxisValue(MotionEvent.AXIS_HAT_X);
-		float dpadY = motionEvent.getAxisValue(MotionEvent.AXIS_HAT_Y);
-		sAxisValues.get(playerNum).put(MotionEvent.AXIS_HAT_X, dpadX);
-		sAxisValues.get(playerNum).put(MotionEvent.AXIS_HAT_Y, dpadY);
-
-		if (null == sButtonValues.get(playerNum).get(OuyaController.BUTTON_DPAD_LEFT) &&
-			null == sButtonValues.get(playerNum).get(OuyaController.BUTTON_DPAD_RIGHT)) {
-			if (dpadX < -DEAD_ZONE) {
-				dispatchKeyEventNative(playerNum, OuyaController.BUTTON_DPAD_LEFT, KeyEvent.ACTION_DOWN);
-			} else {
-				dispatchKeyEventNative(playerNum, OuyaController.BUTTON_DPAD_LEFT, KeyEvent.ACTION_UP);
-			}
+		OuyaControllerMapping mapping = sDeviceRegistry.getMapping(motionEvent.getDeviceId());
+		int[] axes = null != mapping ? mapping.getAxes() : PACKED_AXES;
 
-			if (dpadX > DEAD_ZONE) {
-				dispatchKeyEventNative(playerNum, OuyaController.BUTTON_DPAD_RIGHT, KeyEvent.ACTION_DOWN);
-			} else {
-				dispatchKeyEventNative(playerNum, OuyaController.BUTTON_DPAD_RIGHT, KeyEvent.ACTION_UP);
-			}
+		if (sSampleHistoryEnabled) {
+			recordSamples(playerNum, motionEvent, axes);
 		}
 
-		if (null == sButtonValues.get(playerNum).get(OuyaController.BUTTON_DPAD_DOWN) &&
-			null == sButtonValues.get(playerNum).get(OuyaController.BUTTON_DPAD_UP)) {
-			if (dpadY > DEAD_ZONE) {
-				dispatchKeyEventNative(playerNum, OuyaController.BUTTON_DPAD_DOWN, KeyEvent.ACTION_DOWN);
-			} else {
-				dispatchKeyEventNative(playerNum, OuyaController.BUTTON_DPAD_DOWN, KeyEvent.ACTION_UP);
-			}
-			if (dpadY < -DEAD_ZONE) {
-				dispatchKeyEventNative(playerNum, OuyaController.BUTTON_DPAD_UP, KeyEvent.ACTION_DOWN);
-			} else {
-				dispatchKeyEventNative(playerNum, OuyaController.BUTTON_DPAD_UP, KeyEvent.ACTION_UP);
-			}
+		float[] raw = mRawAxes;
+		for (int index = 0; index < PACKED_AXES.length; ++index) {
+			raw[index] = motionEvent.getAxisValue(axes[index]);
 		}
-
-		dispatchGenericMotionEventNative(playerNum, MotionEvent.AXIS_HAT_X, dpadX);
-		dispatchGenericMotionEventNative(playerNum, MotionEvent.AXIS_HAT_Y, dpadY);
-		if (motionEvent.getSource() != 8194) {
-			dispatchGenericMotionEventNative(playerNum, OuyaController.AXIS_LS_X, motionEvent.getAxisValue(OuyaController.AXIS_LS_X));
-			dispatchGenericMotionEventNative(playerNum, OuyaController.AXIS_LS_Y, motionEvent.getAxisValue(OuyaController.AXIS_LS_Y));
+		Handler inputHandler = mInputHandler;
+		if (null != inputHandler) {
+			mHandoffQueue.offerState(playerNum, raw, HANDOFF_AXIS_MASK, 0, motionEvent.getSource(), motionEvent.getEventTime());
+			wakeInputThread(inputHandler);
+			return false;
 		}
-		dispatchGenericMotionEventNative(playerNum, OuyaController.AXIS_RS_X, motionEvent.getAxisValue(OuyaController.AXIS_RS_X));
-		dispatchGenericMotionEventNative(playerNum, OuyaController.AXIS_RS_Y, motionEvent.getAxisValue(OuyaController.AXIS_RS_Y));
-		dispatchGenericMotionEventNative(playerNum, OuyaController.AXIS_L2, motionEvent.getAxisValue(OuyaController.AXIS_L2));
-		dispatchGenericMotionEventNative(playerNum, OuyaController.AXIS_R2, motionEvent.getAxisValue(OuyaController.AXIS_R2));
+		processMotion(playerNum, raw, motionEvent.getSource(), motionEvent.getEventTime());
 		return false;
 	}
 
-	@Override
-	public boolean onKeyUp(int keyCode, KeyEvent keyEvent) {
-		if (sEnableLogging) {
-			Log.i(TAG, "onKeyUp keyCode=" + DebugInput.debugGetButtonName(keyCode));
+	/**
+	 * Synthesizes the dpad, filters the sticks and dispatches what changed,
+	 * on the thread processing input.
+	 * @param raw the controller's axes in PACKED_AXES order
+	 */
+	private void processMotion(int playerNum, float[] raw, int source, long eventTime) {
+		float dpadX = raw[PACKED_HAT_X];
+		float dpadY = raw[PACKED_HAT_Y];
+
+		int dpadMask = 0;
+		if (!sControllerState.isKnown(playerNum, OuyaController.BUTTON_DPAD_LEFT) &&
+			!sControllerState.isKnown(playerNum, OuyaController.BUTTON_DPAD_RIGHT)) {
+			dpadMask |= getDpadEdge(playerNum, DPAD_LEFT, dpadX < -DEAD_ZONE);
+			dpadMask |= getDpadEdge(playerNum, DPAD_RIGHT, dpadX > DEAD_ZONE);
 		}
 
-		if (!sNativeInitialized) {
-			Log.e(TAG, "Native Plugin has not yet initialized...");
-			return false;
+		if (!sControllerState.isKnown(playerNum, OuyaController.BUTTON_DPAD_DOWN) &&
+			!sControllerState.isKnown(playerNum, OuyaController.BUTTON_DPAD_UP)) {
+			dpadMask |= getDpadEdge(playerNum, DPAD_DOWN, dpadY > DEAD_ZONE);
+			dpadMask |= getDpadEdge(playerNum, DPAD_UP, dpadY < -DEAD_ZONE);
 		}
 
-		if (keyEvent.getSource() == InputDevice.SOURCE_JOYSTICK) {
-			return false;
+		int axisMask = 0;
+		axisMask |= packAxis(playerNum, PACKED_HAT_X, dpadX);
+		axisMask |= packAxis(playerNum, PACKED_HAT_Y, dpadY);
+		float[] stick = mStickValues;
+		if (source != 8194) {
+			stick[0] = raw[PACKED_LS_X];
+			stick[1] = raw[PACKED_LS_Y];
+			sStickProcessor.process(playerNum, OuyaStickProcessor.STICK_LEFT, stick, 0, 1);
+			axisMask |= packAxis(playerNum, PACKED_LS_X, stick[0]);
+			axisMask |= packAxis(playerNum, PACKED_LS_Y, stick[1]);
 		}
+		stick[0] = raw[PACKED_RS_X];
+		stick[1] = raw[PACKED_RS_Y];
+		sStickProcessor.process(playerNum, OuyaStickProcessor.STICK_RIGHT, stick, 0, 1);
+		axisMask |= packAxis(playerNum, PACKED_RS_X, stick[0]);
+		axisMask |= packAxis(playerNum, PACKED_RS_Y, stick[1]);
+		axisMask |= packAxis(playerNum, PACKED_L2, raw[PACKED_L2]);
+		axisMask |= packAxis(playerNum, PACKED_R2, raw[PACKED_R2]);
 
-		int playerNum = OuyaController.getPlayerNumByDeviceId(keyEvent.getDeviceId());	    
-	    if (playerNum < 0 || playerNum >= OuyaController.MAX_CONTROLLERS) {
-	    	playerNum = 0;
-	    }
+		if (axisMask == 0 && dpadMask == 0) {
+			return;
+		}
+		dispatchControllerState(playerNum, axisMask, dpadMask, source, eventTime);
+	}
 
-		int action = keyEvent.getAction();
-		switch (keyCode) {
-			case OuyaController.BUTTON_DPAD_DOWN:
-				if (keyEvent.getSource() == InputDevice.SOURCE_JOYSTICK ) {
-					if (sAxisValues.get(playerNum).get(MotionEvent.AXIS_HAT_Y) > DEAD_ZONE) {
-						dispatchKeyEventNative(playerNum, keyCode, action);
-					}
-					return true;
-				} else {
-					sButtonValues.get(playerNum).put(keyCode, true);
-				}
-				break;
-			case OuyaController.BUTTON_DPAD_LEFT:
-				if (keyEvent.getSource() == InputDevice.SOURCE_JOYSTICK ) {
-					if (sAxisValues.get(playerNum).get(MotionEvent.AXIS_HAT_X) < -DEAD_ZONE) {
-						dispatchKeyEventNative(playerNum, keyCode, action);
-					}
-					return true;
+	/**
+	 * Queues the batched historical samples and the current one for
+	 * drainInputSamples.
+	 * @param axes source axis for each packed axis
+	 */
+	private void recordSamples(int playerNum, MotionEvent motionEvent, int[] axes) {
+		OuyaInputSampleRing ring = sSampleRings[playerNum];
+		float[] sample = mSampleAxes;
+		boolean hasLeftStick = motionEvent.getSource() != 8194;
+		int historySize = motionEvent.getHistorySize();
+		for (int pos = 0; pos <= historySize; ++pos) {
+			boolean historical = pos < historySize;
+			for (int index = 0; index < PACKED_AXES.length; ++index) {
+				int axis = axes[index];
+				if (!hasLeftStick && (index == PACKED_LS_X || index == PACKED_LS_Y)) {
+					sample[index] = sControllerState.getAxis(playerNum, PACKED_AXES[index]);
+				} else if (historical) {
+					sample[index] = motionEvent.getHistoricalAxisValue(axis, pos);
 				} else {
-					sButtonValues.get(playerNum).put(keyCode, true);
+					sample[index] = motionEvent.getAxisValue(axis);
 				}
-				break;
-			case OuyaController.BUTTON_DPAD_RIGHT:
-				if (keyEvent.getSource() == InputDevice.SOURCE_JOYSTICK ) {
-					if (sAxisValues.get(playerNum).get(MotionEvent.AXIS_HAT_X) > DEAD_ZONE) {
-						dispatchKeyEventNative(playerNum, keyCode, action);
-					}
-					return true;
-				} else {
-					sButtonValues.get(playerNum).put(keyCode, true);
-				}
-				break;
-			case OuyaController.BUTTON_DPAD_UP:
-				if (keyEvent.getSource() == InputDevice.SOURCE_JOYSTICK ) {
-					if (sAxisValues.get(playerNum).get(MotionEvent.AXIS_HAT_Y) < -DEAD_ZONE) {
-						dispatchKeyEventNative(playerNum, keyCode, action);
-					}
-					return true;
-				} else {
-					sButtonValues.get(playerNum).put(keyCode, true);
-				}
-				break;
-			case OuyaController.BUTTON_L2:
-				sAxisValues.get(playerNum).put(OuyaController.AXIS_L2, 0f);
-				break;
-			case OuyaController.BUTTON_R2:
-				sAxisValues.get(playerNum).put(OuyaController.AXIS_R2, 0f);
-				break;
+			}
+			if (hasLeftStick) {
+				sStickProcessor.process(playerNum, OuyaStickProcessor.STICK_LEFT, sample, PACKED_LS_X, PACKED_LS_Y);
+			}
+			sStickProcessor.process(playerNum, OuyaStickProcessor.STICK_RIGHT, sample, PACKED_RS_X, PACKED_RS_Y);
+			long eventTime = historical ? motionEvent.getHistoricalEventTime(pos) : motionEvent.getEventTime();
+			ring.offer(eventTime * NANOS_PER_MILLI, sample);
 		}
-		dispatchKeyEventNative(playerNum, keyCode, action);
-		return true;
+	}
+
+	/**
+	 * @return the press or release bit for the direction, or 0 when the
+	 * synthesized button is already in that state
+	 */
+	private static int getDpadEdge(int playerNum, int dpadIndex, boolean pressed) {
+		if (sControllerState.isPressed(playerNum, DPAD_BUTTONS[dpadIndex]) == pressed) {
+			sPublishedSuppressedDispatchCount.lazySet(++sSuppressedDispatchCount);
+			return 0;
+		}
+		return pressed ? (1 << dpadIndex) : (1 << (dpadIndex + DPAD_RELEASE_SHIFT));
+	}
+
+	/**
+	 * @return the axis bit when the value differs enough from the one last
+	 * dispatched for the player, otherwise 0
+	 */
+	private int packAxis(int playerNum, int packedIndex, float value) {
+		sControllerState.setAxis(playerNum, PACKED_AXES[packedIndex], value);
+		mPackedAxes[packedIndex] = value;
+		float[] dispatched = sDispatchedAxes[playerNum];
+		float previous = dispatched[packedIndex];
+		if (value == previous ||
+			(Math.abs(value - previous) <= sAxisEpsilon && value != 0f && Math.abs(value) != 1f)) {
+			sPublishedSuppressedDispatchCount.lazySet(++sSuppressedDispatchCount);
+			return 0;
+		}
+		dispatched[packedIndex] = value;
+		return 1 << packedIndex;
+	}
+
+	/**
+	 * Hands the packed axes and dpad edges to the native plugin, with a single
+	 * JNI call when the loaded lib-ouya-ndk supports it.
+	 */
+	private void dispatchControllerState(int playerNum, int axisMask, int dpadMask, int source, long eventTime) {
+		for (int index = 0; index < DPAD_BUTTONS.length; ++index) {
+			if ((dpadMask & (1 << index)) != 0) {
+				sControllerState.setPressed(playerNum, DPAD_BUTTONS[index], true);
+			} else if ((dpadMask & (1 << (index + DPAD_RELEASE_SHIFT))) != 0) {
+				sControllerState.setPressed(playerNum, DPAD_BUTTONS[index], false);
+			}
+		}
+		sSnapshotBuffer.publish(playerNum, sControllerState, eventTime);
+		sendControllerState(playerNum, mPackedAxes, axisMask, dpadMask, source, eventTime);
+	}
+
+	private void sendControllerState(int playerNum, float[] packedAxes, int axisMask, int dpadMask, int source, long eventTime) {
+		if (sFrameAlignedInput) {
+			mInputQueue.offerState(playerNum, packedAxes, axisMask, dpadMask, source, eventTime);
+			return;
+		}
+		dispatchControllerStateNow(playerNum, packedAxes, axisMask, dpadMask, source, eventTime);
+	}
+
+	private void dispatchControllerStateNow(int playerNum, float[] packedAxes, int axisMask, int dpadMask, int source, long eventTime) {
+		if (OuyaInputLatency.isEnabled()) {
+			OuyaInputLatency.record(playerNum, source, eventTime);
+		}
+		if (OuyaInputRecorder.isRecording()) {
+			recordControllerState(playerNum, packedAxes, axisMask, dpadMask);
+		}
+		if (sNativeBatchSupported) {
+			dispatchControllerStateNative(playerNum, packedAxes, axisMask, dpadMask);
+			return;
+		}
+		for (int index = 0; index < DPAD_BUTTONS.length; ++index) {
+			if ((dpadMask & (1 << index)) != 0) {
+				dispatchKeyEventNative(playerNum, DPAD_BUTTONS[index], KeyEvent.ACTION_DOWN);
+			} else if ((dpadMask & (1 << (index + DPAD_RELEASE_SHIFT))) != 0) {
+				dispatchKeyEventNative(playerNum, DPAD_BUTTONS[index], KeyEvent.ACTION_UP);
+			}
+		}
+		for (int index = 0; index < PACKED_AXES.length; ++index) {
+			if ((axisMask & (1 << index)) != 0) {
+				dispatchGenericMotionEventNative(playerNum, PACKED_AXES[index], packedAxes[index]);
+			}
+		}
+	}
+
+	@Override
+	public boolean onKeyUp(int keyCode, KeyEvent keyEvent) {
+		if (sEnableLogging) {
+			Log.i(TAG, "onKeyUp keyCode=" + DebugInput.debugGetButtonName(keyCode));
+		}
+		return onControllerKey(keyCode, keyEvent);
 	}
 	
 	@Override
@@ -286,7 +729,14 @@ public class OuyaInputView extends View {
 		if (sEnableLogging) {
 			Log.i(TAG, "onKeyDown keyCode=" + DebugInput.debugGetButtonName(keyCode));
 		}
+		return onControllerKey(keyCode, keyEvent);
+	}
 
+	/**
+	 * Decides on the calling thread whether a translated key is handled, and
+	 * processes it there or hands it to mInputThread.
+	 */
+	private boolean onControllerKey(int keyCode, KeyEvent keyEvent) {
 		if (!sNativeInitialized) {
 			Log.e(TAG, "Native Plugin has not yet initialized...");
 			return false;
@@ -296,61 +746,385 @@ public class OuyaInputView extends View {
 			return false;
 		}
 
-		int playerNum = OuyaController.getPlayerNumByDeviceId(keyEvent.getDeviceId());	    
-	    if (playerNum < 0 || playerNum >= OuyaController.MAX_CONTROLLERS) {
-	    	playerNum = 0;
-	    }
+		int playerNum = sDeviceRegistry.getPlayerNum(keyEvent.getDeviceId());
+		if (playerNum == OuyaDeviceRegistry.INVALID_PLAYER) {
+			return false;
+		}
 
 		int action = keyEvent.getAction();
+		boolean repeat = keyEvent.getRepeatCount() > 0;
+		Handler inputHandler = mInputHandler;
+		if (null != inputHandler) {
+			handOffKey(inputHandler, playerNum, keyCode, repeat ? action | HANDOFF_REPEAT : action,
+				keyEvent.getSource(), keyEvent.getEventTime());
+			return true;
+		}
+		processKey(playerNum, keyCode, action, repeat, keyEvent.getSource(), keyEvent.getEventTime());
+		return true;
+	}
+
+	private void processKey(int playerNum, int keyCode, int action, boolean repeat, int source, long eventTime) {
+		if (isRedundantKey(playerNum, keyCode, action, repeat)) {
+			sPublishedSuppressedDispatchCount.lazySet(++sSuppressedDispatchCount);
+			return;
+		}
+
 		switch (keyCode) {
 			case OuyaController.BUTTON_DPAD_DOWN:
-				if (keyEvent.getSource() == InputDevice.SOURCE_JOYSTICK ) {
-					if (sAxisValues.get(playerNum).get(MotionEvent.AXIS_HAT_Y) > DEAD_ZONE) {
+				if (source == InputDevice.SOURCE_JOYSTICK ) {
+					if (sControllerState.getAxis(playerNum, MotionEvent.AXIS_HAT_Y) > DEAD_ZONE) {
 						dispatchKeyEventNative(playerNum, keyCode, action);
 					}
-					return true;
-				} else {
-					sButtonValues.get(playerNum).put(keyCode, false);
+					return;
 				}
 				break;
 			case OuyaController.BUTTON_DPAD_LEFT:
-				if (keyEvent.getSource() == InputDevice.SOURCE_JOYSTICK ) {
-					if (sAxisValues.get(playerNum).get(MotionEvent.AXIS_HAT_X) < -DEAD_ZONE) {
+				if (source == InputDevice.SOURCE_JOYSTICK ) {
+					if (sControllerState.getAxis(playerNum, MotionEvent.AXIS_HAT_X) < -DEAD_ZONE) {
 						dispatchKeyEventNative(playerNum, keyCode, action);
 					}
-					return true;
-				} else {
-					sButtonValues.get(playerNum).put(keyCode, false);
+					return;
 				}
 				break;
 			case OuyaController.BUTTON_DPAD_RIGHT:
-				if (keyEvent.getSource() == InputDevice.SOURCE_JOYSTICK ) {
-					if (sAxisValues.get(playerNum).get(MotionEvent.AXIS_HAT_X) > DEAD_ZONE) {
+				if (source == InputDevice.SOURCE_JOYSTICK ) {
+					if (sControllerState.getAxis(playerNum, MotionEvent.AXIS_HAT_X) > DEAD_ZONE) {
 						dispatchKeyEventNative(playerNum, keyCode, action);
 					}
-					return true;
-				} else {
-					sButtonValues.get(playerNum).put(keyCode, false);
+					return;
 				}
 				break;
 			case OuyaController.BUTTON_DPAD_UP:
-				if (keyEvent.getSource() == InputDevice.SOURCE_JOYSTICK ) {
-					if (sAxisValues.get(playerNum).get(MotionEvent.AXIS_HAT_Y) < -DEAD_ZONE) {
+				if (source == InputDevice.SOURCE_JOYSTICK ) {
+					if (sControllerState.getAxis(playerNum, MotionEvent.AXIS_HAT_Y) < -DEAD_ZONE) {
 						dispatchKeyEventNative(playerNum, keyCode, action);
 					}
-					return true;
-				} else {
-					sButtonValues.get(playerNum).put(keyCode, false);
+					return;
 				}
 				break;
 			case OuyaController.BUTTON_L2:
-				sAxisValues.get(playerNum).put(OuyaController.AXIS_L2, 1f);
+				sControllerState.setAxis(playerNum, OuyaController.AXIS_L2, action == KeyEvent.ACTION_DOWN ? 1f : 0f);
 				break;
 			case OuyaController.BUTTON_R2:
-				sAxisValues.get(playerNum).put(OuyaController.AXIS_R2, 1f);
+				sControllerState.setAxis(playerNum, OuyaController.AXIS_R2, action == KeyEvent.ACTION_DOWN ? 1f : 0f);
 				break;
 		}
+		dispatchKey(playerNum, keyCode, action, source, eventTime);
+	}
+
+	/**
+	 * @return true for auto-repeats, unless enabled, and for a down or up
+	 * that matches the state already sent for the key
+	 */
+	private static boolean isRedundantKey(int playerNum, int keyCode, int action, boolean repeat) {
+		if (repeat) {
+			return !sKeyRepeatEnabled;
+		}
+		return sControllerState.isKnown(playerNum, keyCode) &&
+			sControllerState.isPressed(playerNum, keyCode) == (action == KeyEvent.ACTION_DOWN);
+	}
+
+	private void dispatchKey(int playerNum, int keyCode, int action, int source, long eventTime) {
+		sControllerState.setKnown(playerNum, keyCode);
+		publishKey(playerNum, keyCode, action, source, eventTime);
+	}
+
+	/**
+	 * Updates the held state and the snapshot for a key and hands it on,
+	 * without marking it as sent by the player's controller.
+	 */
+	private void publishKey(int playerNum, int keyCode, int action, int source, long eventTime) {
+		sControllerState.setPressed(playerNum, keyCode, action == KeyEvent.ACTION_DOWN);
+		sSnapshotBuffer.publish(playerNum, sControllerState, eventTime);
+		sendKey(playerNum, keyCode, action, source, eventTime);
+	}
+
+	/**
+	 * Hands a key to the native plugin, or queues it for the next frame when
+	 * frame-aligned input is enabled. A full queue spills in order rather
+	 * than dispatching ahead of the records still queued.
+	 */
+	void sendKey(int playerNum, int keyCode, int action, int source, long eventTime) {
+		if (sFrameAlignedInput) {
+			mInputQueue.offerKey(playerNum, keyCode, action, source, eventTime);
+			return;
+		}
+		dispatchKeyNow(playerNum, keyCode, action, source, eventTime);
+	}
+
+	private void dispatchKeyNow(int playerNum, int keyCode, int action, int source, long eventTime) {
+		if (OuyaInputLatency.isEnabled()) {
+			OuyaInputLatency.record(playerNum, source, eventTime);
+		}
+		if (OuyaInputRecorder.isRecording()) {
+			OuyaInputRecorder.recordKey(playerNum, keyCode, action);
+		}
 		dispatchKeyEventNative(playerNum, keyCode, action);
-		return true;
+	}
+
+	// recordings store the individual keys and axes so they replay on any native library
+	private static void recordControllerState(int playerNum, float[] packedAxes, int axisMask, int dpadMask) {
+		for (int index = 0; index < DPAD_BUTTONS.length; ++index) {
+			if ((dpadMask & (1 << index)) != 0) {
+				OuyaInputRecorder.recordKey(playerNum, DPAD_BUTTONS[index], KeyEvent.ACTION_DOWN);
+			} else if ((dpadMask & (1 << (index + DPAD_RELEASE_SHIFT))) != 0) {
+				OuyaInputRecorder.recordKey(playerNum, DPAD_BUTTONS[index], KeyEvent.ACTION_UP);
+			}
+		}
+		for (int index = 0; index < PACKED_AXES.length; ++index) {
+			if ((axisMask & (1 << index)) != 0) {
+				OuyaInputRecorder.recordAxis(playerNum, PACKED_AXES[index], packedAxes[index]);
+			}
+		}
+	}
+
+	/**
+	 * Applies a recorded key on the input looper, see OuyaInputReplay.
+	 */
+	void replayKey(int playerNum, int keyCode, int action) {
+		if (playerNum < 0 || playerNum >= MAX_PLAYERS) {
+			return;
+		}
+		publishKey(playerNum, keyCode, action, InputDevice.SOURCE_GAMEPAD, SystemClock.uptimeMillis());
+	}
+
+	/**
+	 * Applies a recorded axis on the input looper, see OuyaInputReplay.
+	 */
+	void replayAxis(int playerNum, int axis, float value) {
+		if (playerNum < 0 || playerNum >= MAX_PLAYERS) {
+			return;
+		}
+		long eventTime = SystemClock.uptimeMillis();
+		sControllerState.setAxis(playerNum, axis, value);
+		sSnapshotBuffer.publish(playerNum, sControllerState, eventTime);
+		for (int index = 0; index < PACKED_AXES.length; ++index) {
+			if (PACKED_AXES[index] == axis) {
+				sDispatchedAxes[playerNum][index] = value;
+				mReplayAxes[index] = value;
+				sendControllerState(playerNum, mReplayAxes, 1 << index, 0, InputDevice.SOURCE_GAMEPAD, eventTime);
+				return;
+			}
+		}
+		dispatchGenericMotionEventNative(playerNum, axis, value);
+	}
+
+	static OuyaInputView getActiveInputView() {
+		return sActiveInputView;
+	}
+
+	/**
+	 * Dispatches every queued record to the native plugin. Called by Unity
+	 * once per frame from its own thread.
+	 * @return number of records dispatched
+	 */
+	public static int pumpInputQueue() {
+		OuyaInputView inputView = sActiveInputView;
+		if (null == inputView) {
+			return 0;
+		}
+		return inputView.mInputQueue.drain(inputView.mQueueSink);
+	}
+
+	/**
+	 * While enabled, input reaches the native plugin only when Unity calls
+	 * pumpInputQueue. Must be called from the Unity thread.
+	 */
+	public static void setFrameAlignedInput(boolean enabled) {
+		OuyaInputView inputView = sActiveInputView;
+		if (enabled) {
+			if (null != inputView) {
+				inputView.mInputQueue.skip();
+			}
+			sFrameAlignedInput = true;
+		} else {
+			sFrameAlignedInput = false;
+			pumpInputQueue();
+		}
+	}
+
+	public static boolean isFrameAlignedInput() {
+		return sFrameAlignedInput;
+	}
+
+	public static long getInputQueueOverflowCount() {
+		OuyaInputView inputView = sActiveInputView;
+		if (null == inputView) {
+			return 0;
+		}
+		return inputView.mInputQueue.getOverflowCount();
+	}
+
+	public static long getInputQueueDroppedCount() {
+		OuyaInputView inputView = sActiveInputView;
+		if (null == inputView) {
+			return 0;
+		}
+		return inputView.mInputQueue.getDroppedCount();
+	}
+
+	/**
+	 * Moves controller state, filtering and native dispatch from the UI
+	 * thread to a dedicated thread at display priority, so layout and other
+	 * UI work no longer delays controller input. The UI thread still decides
+	 * which events are handled and translates known controllers, then hands
+	 * the keys and raw axes over through a preallocated queue. Must be
+	 * called on the UI thread, and not while an input replay is running.
+	 */
+	public static void setInputThreadEnabled(boolean enabled) {
+		if (OuyaInputReplay.isReplaying()) {
+			Log.e(TAG, "setInputThreadEnabled: Not available while replaying input");
+			return;
+		}
+		sInputThreadEnabled = enabled;
+		OuyaInputView inputView = sActiveInputView;
+		if (null == inputView) {
+			return;
+		}
+		if (enabled) {
+			inputView.startInputThread();
+		} else {
+			inputView.stopInputThread();
+		}
+	}
+
+	public static boolean isInputThreadEnabled() {
+		return sInputThreadEnabled;
+	}
+
+	/**
+	 * @return the looper that processes input, the input thread's when it
+	 * is enabled, otherwise the main looper
+	 */
+	static Looper getInputLooper() {
+		OuyaInputView inputView = sActiveInputView;
+		if (null != inputView) {
+			Handler inputHandler = inputView.mInputHandler;
+			if (null != inputHandler) {
+				return inputHandler.getLooper();
+			}
+		}
+		return Looper.getMainLooper();
+	}
+
+	private void startInputThread() {
+		if (null != mInputThread) {
+			return;
+		}
+		mInputThread = new HandlerThread("OuyaInput", Process.THREAD_PRIORITY_URGENT_DISPLAY);
+		mInputThread.start();
+		Handler inputHandler = new Handler(mInputThread.getLooper(), mInputHandlerCallback);
+		// device changes release player state, keep them on the same thread
+		sDeviceRegistry.setListenerHandler(inputHandler);
+		mInputHandler = inputHandler;
+		Log.i(TAG, "Processing input on " + mInputThread.getName());
+	}
+
+	private void stopInputThread() {
+		if (null == mInputThread) {
+			return;
+		}
+		mInputHandler = null;
+		// let the thread finish the events already handed off before the UI thread takes over
+		mInputThread.quitSafely();
+		try {
+			mInputThread.join();
+		} catch (InterruptedException e) {
+			Log.e(TAG, "stopInputThread: Interrupted waiting for the input thread", e);
+			Thread.currentThread().interrupt();
+		}
+		mInputThread = null;
+		sDeviceRegistry.setListenerHandler(null);
+		// the thread is gone, anything offered after its last drain is processed here
+		mHandoffPending.set(false);
+		mHandoffQueue.drain(mHandoffSink);
+	}
+
+	/**
+	 * Releases the held buttons and centers the axes of a player whose
+	 * controller was removed, so the next device in the slot starts clean.
+	 */
+	private void releasePlayer(int playerNum) {
+		long eventTime = SystemClock.uptimeMillis();
+		long[] buttons = sControllerState.getButtonRow(playerNum);
+		for (int word = 0; word < buttons.length; ++word) {
+			long pressed = buttons[word];
+			while (pressed != 0) {
+				int bit = Long.numberOfTrailingZeros(pressed);
+				pressed &= pressed - 1;
+				sendKey(playerNum, (word << 6) + bit, KeyEvent.ACTION_UP, InputDevice.SOURCE_GAMEPAD, eventTime);
+			}
+		}
+		float[] dispatched = sDispatchedAxes[playerNum];
+		int axisMask = 0;
+		for (int index = 0; index < dispatched.length; ++index) {
+			if (dispatched[index] != 0f) {
+				dispatched[index] = 0f;
+				axisMask |= 1 << index;
+			}
+		}
+		if (axisMask != 0) {
+			sendControllerState(playerNum, mRestAxes, axisMask, 0, InputDevice.SOURCE_GAMEPAD, eventTime);
+		}
+		sControllerState.clear(playerNum);
+		sSnapshotBuffer.publish(playerNum, sControllerState, eventTime);
+	}
+
+	private final class SlotReleaser implements OuyaDeviceRegistry.SlotListener {
+		@Override
+		public void onSlotReleased(int playerNum) {
+			releasePlayer(playerNum);
+		}
+	}
+
+	private final class InputHandlerCallback implements Handler.Callback {
+		@Override
+		public boolean handleMessage(Message msg) {
+			switch (msg.what) {
+			case MSG_HANDOFF:
+				// cleared first, a record offered during the drain posts another message
+				mHandoffPending.set(false);
+				mHandoffQueue.drain(mHandoffSink);
+				return true;
+			default:
+				return false;
+			}
+		}
+	}
+
+	private final class HandoffSink implements OuyaInputQueue.Sink {
+		// consumer side copy of a raw state's axes
+		private final float[] mAxes = new float[PACKED_AXES.length];
+
+		@Override
+		public void onKey(int playerNum, int keyCode, int action, int source, long eventTime) {
+			if ((action & HANDOFF_PLAYER_ONE) != 0) {
+				publishKey(playerNum, keyCode, action & HANDOFF_ACTION_MASK, source, eventTime);
+				return;
+			}
+			processKey(playerNum, keyCode, action & HANDOFF_ACTION_MASK, (action & HANDOFF_REPEAT) != 0, source, eventTime);
+		}
+
+		@Override
+		public void onState(int playerNum, float[] axes, int axesOffset, int axisMask, int dpadMask, int source, long eventTime) {
+			System.arraycopy(axes, axesOffset, mAxes, 0, mAxes.length);
+			processMotion(playerNum, mAxes, source, eventTime);
+		}
+	}
+
+	private final class QueueSink implements OuyaInputQueue.Sink {
+		// consumer side copy of a state record's axes
+		private final float[] mAxes = new float[PACKED_AXES.length];
+
+		@Override
+		public void onKey(int playerNum, int keyCode, int action, int source, long eventTime) {
+			dispatchKeyNow(playerNum, keyCode, action, source, eventTime);
+		}
+
+		@Override
+		public void onState(int playerNum, float[] axes, int axesOffset, int axisMask, int dpadMask, int source, long eventTime) {
+			System.arraycopy(axes, axesOffset, mAxes, 0, mAxes.length);
+			dispatchControllerStateNow(playerNum, mAxes, axisMask, dpadMask, source, eventTime);
+		}
 	}
 }
@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.sdk;
+
+import android.util.Log;
+import android.view.InputDevice;
+import android.view.InputQueue;
+import android.view.Window;
+import java.lang.reflect.Method;
+
+/**
+ * Takes the window's input queue so controller events are read by a native
+ * thread instead of going through the view hierarchy.
+ * <p>
+ * The native thread updates the state behind getAxis and isPressed directly
+ * for controllers that have an OuyaControllerMapping. Every other event is
+ * finished as unhandled and the framework delivers it to OuyaInputView and
+ * MainActivity as before. Stick processing, recording, latency tracking and
+ * the snapshot buffer only see events that take the view path, so the
+ * snapshot buffer is turned off and Unity reads state per axis and button.
+ * <p>
+ * The queue has to be taken before the window is attached, so the mode is
+ * enabled with the tv.ouya.sdk.native_input_queue meta-data in the manifest
+ * and read in MainActivity.onCreate.
+ */
+public class OuyaNativeInputQueue implements InputQueue.Callback, OuyaDeviceRegistry.MappingListener {
+
+	private static final String TAG = OuyaNativeInputQueue.class.getSimpleName();
+
+	private static final boolean sEnableLogging = false;
+
+	public static final String META_DATA_ENABLED = "tv.ouya.sdk.native_input_queue";
+
+	private static native void requestInputQueueNative();
+
+	private static native void attachInputQueueNative(long queuePtr);
+
+	private static native void detachInputQueueNative();
+
+	private static native void setQueueDeviceNative(int deviceId, int playerNum, int[] axes, int[] keyRemaps);
+
+	private static volatile boolean sRequested = false;
+
+	private static volatile boolean sActive = false;
+
+	private final Method mGetNativePtr;
+
+	private final OuyaDeviceRegistry mDeviceRegistry;
+
+	private OuyaNativeInputQueue(Method getNativePtr, OuyaDeviceRegistry deviceRegistry) {
+		mGetNativePtr = getNativePtr;
+		mDeviceRegistry = deviceRegistry;
+	}
+
+	/**
+	 * Takes the window's input queue. Call from onCreate before the content
+	 * view is attached.
+	 * @return false when the platform does not expose the queue, events then
+	 * take the view path
+	 */
+	public static boolean install(Window window) {
+		// loads lib-ouya-ndk, which registers the natives
+		OuyaDeviceRegistry deviceRegistry = OuyaInputView.getDeviceRegistry();
+		if (!OuyaInputView.sNativeInitialized) {
+			Log.e(TAG, "install: lib-ouya-ndk is not loaded");
+			return false;
+		}
+		Method getNativePtr;
+		try {
+			// hidden, but present since the queue was added in API 9
+			getNativePtr = InputQueue.class.getDeclaredMethod("getNativePtr");
+			getNativePtr.setAccessible(true);
+		} catch (Exception e) {
+			Log.e(TAG, "install: InputQueue.getNativePtr is not available", e);
+			return false;
+		}
+		OuyaNativeInputQueue inputQueue = new OuyaNativeInputQueue(getNativePtr, deviceRegistry);
+		try {
+			requestInputQueueNative();
+		} catch (UnsatisfiedLinkError e) {
+			Log.e(TAG, "install: Native input queue is not supported by lib-ouya-ndk", e);
+			return false;
+		}
+		sRequested = true;
+		window.takeInputQueue(inputQueue);
+		return true;
+	}
+
+	/**
+	 * @return true once install succeeded, snapshots are disabled from then on
+	 */
+	public static boolean isRequested() {
+		return sRequested;
+	}
+
+	/**
+	 * @return true while the native thread is reading the queue
+	 */
+	public static boolean isActive() {
+		return sActive;
+	}
+
+	@Override
+	public void onInputQueueCreated(InputQueue queue) {
+		long queuePtr;
+		try {
+			queuePtr = ((Long) mGetNativePtr.invoke(queue)).longValue();
+		} catch (Exception e) {
+			Log.e(TAG, "onInputQueueCreated: Failed to get the native queue", e);
+			return;
+		}
+		attachInputQueueNative(queuePtr);
+		sActive = true;
+		mDeviceRegistry.setMappingListener(this);
+		if (sEnableLogging) {
+			Log.i(TAG, "Native input queue attached");
+		}
+	}
+
+	@Override
+	public void onInputQueueDestroyed(InputQueue queue) {
+		mDeviceRegistry.setMappingListener(null);
+		sActive = false;
+		// the queue is disposed once this returns, so the thread is joined here
+		detachInputQueueNative();
+		if (sEnableLogging) {
+			Log.i(TAG, "Native input queue detached");
+		}
+	}
+
+	@Override
+	public void onMappedDevice(int deviceId, int playerNum, OuyaControllerMapping mapping) {
+		if (sEnableLogging) {
+			InputDevice device = InputDevice.getDevice(deviceId);
+			Log.i(TAG, "Device " + deviceId + (null != device ? " " + device.getName() : "") + " is native player " + playerNum);
+		}
+		if (playerNum == OuyaDeviceRegistry.INVALID_PLAYER) {
+			setQueueDeviceNative(deviceId, playerNum, null, null);
+		} else {
+			setQueueDeviceNative(deviceId, playerNum, mapping.getAxes(), mapping.getKeyRemaps());
+		}
+	}
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.sdk;
+
+import android.util.Log;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+
+/**
+ * Off-heap copy of the samples drained from an OuyaInputSampleRing, so C#
+ * can take them with Marshal.Copy instead of a JNI call per value.
+ * <p>
+ * Only the Unity thread uses it: fill returns the sample count through
+ * the one JNI call C# makes, then C# copies the samples from the address
+ * lib-ouya-ndk hands out.
+ * <p>
+ * Layout, in native byte order:
+ * <pre>
+ * header:     int magic, int capacity, int axesPerSample, int timestampsOffset
+ * axes:       float axes[capacity * axesPerSample]
+ * timestamps: long timestampNanos[capacity]
+ * </pre>
+ */
+public class OuyaSampleBuffer {
+
+	private static final String TAG = OuyaSampleBuffer.class.getSimpleName();
+
+	/** Identifies the layout version, "OUS1". */
+	public static final int MAGIC = 0x4F555331;
+
+	public static final int HEADER_SIZE = 16;
+
+	private final int mCapacity;
+
+	private final int mAxesPerSample;
+
+	private final ByteBuffer mBuffer;
+
+	private final FloatBuffer mAxes;
+
+	private final LongBuffer mTimestamps;
+
+	// the ring drains into these before one bulk put each
+	private final float[] mDrainedAxes;
+	private final long[] mDrainedTimestamps;
+
+	private boolean mRegistered = false;
+
+	/**
+	 * @param capacity most samples one fill copies
+	 */
+	public OuyaSampleBuffer(int capacity, int axesPerSample) {
+		mCapacity = capacity;
+		mAxesPerSample = axesPerSample;
+		int timestampsOffset = HEADER_SIZE + capacity * axesPerSample * 4;
+		// keeps the timestamps 8 byte aligned
+		timestampsOffset = (timestampsOffset + 7) & ~7;
+		mBuffer = ByteBuffer.allocateDirect(timestampsOffset + capacity * 8);
+		mBuffer.order(ByteOrder.nativeOrder());
+		mBuffer.putInt(0, MAGIC);
+		mBuffer.putInt(4, capacity);
+		mBuffer.putInt(8, axesPerSample);
+		mBuffer.putInt(12, timestampsOffset);
+
+		mBuffer.position(HEADER_SIZE);
+		mAxes = mBuffer.slice().order(ByteOrder.nativeOrder()).asFloatBuffer();
+		mBuffer.position(timestampsOffset);
+		mTimestamps = mBuffer.slice().order(ByteOrder.nativeOrder()).asLongBuffer();
+		mBuffer.position(0);
+
+		mDrainedAxes = new float[capacity * axesPerSample];
+		mDrainedTimestamps = new long[capacity];
+	}
+
+	public int getCapacity() {
+		return mCapacity;
+	}
+
+	public ByteBuffer getBuffer() {
+		return mBuffer;
+	}
+
+	public boolean isRegistered() {
+		return mRegistered;
+	}
+
+	/**
+	 * Hands the buffer address to lib-ouya-ndk. Older native libraries do not
+	 * export the method, in which case C# keeps draining through Java arrays.
+	 */
+	public void register() {
+		try {
+			registerSampleBufferNative(mBuffer);
+			mRegistered = true;
+		} catch (UnsatisfiedLinkError e) {
+			Log.w(TAG, "lib-ouya-ndk does not support the input sample buffer");
+		}
+	}
+
+	/**
+	 * Moves the oldest pending samples of the ring into the buffer,
+	 * replacing the previous fill. Consumer thread of the ring only.
+	 * @return number of samples copied
+	 */
+	public int fill(OuyaInputSampleRing ring, int maxSamples) {
+		int count = ring.drain(mDrainedAxes, mDrainedTimestamps, Math.min(maxSamples, mCapacity));
+		mAxes.clear();
+		mAxes.put(mDrainedAxes, 0, count * mAxesPerSample);
+		mTimestamps.clear();
+		mTimestamps.put(mDrainedTimestamps, 0, count);
+		return count;
+	}
+
+	private static native void registerSampleBufferNative(ByteBuffer buffer);
+}
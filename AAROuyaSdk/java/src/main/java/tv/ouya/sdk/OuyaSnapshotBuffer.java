@@ -0,0 +1,225 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.sdk;
+
+import android.util.Log;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Off-heap, double-buffered copy of every player's controller state.
+ * <p>
+ * OuyaInputView publishes into the buffer after each event, and lib-ouya-ndk
+ * and the C# side read it straight from memory instead of making a call per
+ * axis or button. Each player owns two slots; the writer fills the inactive
+ * slot under a sequence lock and then flips the active index. Readers read
+ * the active slot and retry while its sequence is odd or has changed.
+ * <p>
+ * Java orders the sequence and data accesses with a volatile store followed
+ * by a volatile load, which ART compiles to full barriers, so publishing
+ * makes no JNI call. Native and C# readers fence their loads with hardware
+ * barriers.
+ * <p>
+ * Layout, in native byte order:
+ * <pre>
+ * header:  int magic, int playerCount, int axisCount, int buttonWords
+ * player:  int activeSlot, int reserved, slot[2]
+ * slot:    int sequence, int reserved, long timestampNanos,
+ *          float axes[axisCount], int buttons[buttonWords]
+ * </pre>
+ */
+public class OuyaSnapshotBuffer {
+
+	private static final String TAG = OuyaSnapshotBuffer.class.getSimpleName();
+
+	/** Identifies the layout version, "OUY1". */
+	public static final int MAGIC = 0x4F555931;
+
+	public static final int AXIS_COUNT = OuyaControllerState.AXIS_COUNT;
+
+	/** Buttons are stored as 32-bit words so C# can read them with Marshal.ReadInt32. */
+	public static final int BUTTON_WORDS = OuyaControllerState.BUTTON_WORDS * 2;
+
+	public static final int HEADER_SIZE = 16;
+
+	public static final int SLOT_SEQUENCE_OFFSET = 0;
+	public static final int SLOT_TIMESTAMP_OFFSET = 8;
+	public static final int SLOT_AXES_OFFSET = 16;
+	public static final int SLOT_BUTTONS_OFFSET = SLOT_AXES_OFFSET + AXIS_COUNT * 4;
+	public static final int SLOT_SIZE = SLOT_BUTTONS_OFFSET + BUTTON_WORDS * 4;
+
+	public static final int PLAYER_ACTIVE_SLOT_OFFSET = 0;
+	public static final int PLAYER_SLOTS_OFFSET = 8;
+	public static final int PLAYER_SIZE = PLAYER_SLOTS_OFFSET + SLOT_SIZE * 2;
+
+	private static final int MAX_READ_RETRIES = 8;
+
+	private final int mPlayerCount;
+
+	private final ByteBuffer mBuffer;
+
+	// only touched by writerFence and readerFence
+	private volatile int mWriterFence = 0;
+	private volatile int mReaderFence = 0;
+
+	// set once by register, from OuyaInputView's static initializer before anything is published
+	private boolean mRegistered = false;
+
+	public OuyaSnapshotBuffer(int playerCount) {
+		mPlayerCount = playerCount;
+		mBuffer = ByteBuffer.allocateDirect(HEADER_SIZE + PLAYER_SIZE * playerCount);
+		mBuffer.order(ByteOrder.nativeOrder());
+		mBuffer.putInt(0, MAGIC);
+		mBuffer.putInt(4, playerCount);
+		mBuffer.putInt(8, AXIS_COUNT);
+		mBuffer.putInt(12, BUTTON_WORDS);
+	}
+
+	public int getPlayerCount() {
+		return mPlayerCount;
+	}
+
+	public ByteBuffer getBuffer() {
+		return mBuffer;
+	}
+
+	public boolean isRegistered() {
+		return mRegistered;
+	}
+
+	/**
+	 * Hands the buffer address to lib-ouya-ndk. Older native libraries do not
+	 * export the method, in which case readers keep using the per-axis calls.
+	 */
+	public void register() {
+		try {
+			registerSnapshotBufferNative(mBuffer);
+			mRegistered = true;
+		} catch (UnsatisfiedLinkError e) {
+			Log.w(TAG, "lib-ouya-ndk does not support the controller snapshot buffer");
+		}
+	}
+
+	/**
+	 * Copies the player's current state into its inactive slot and makes it
+	 * the active one. Must only be called from one thread at a time.
+	 */
+	public void publish(int playerNum, OuyaControllerState state, long eventTimeMillis) {
+		if (playerNum < 0 || playerNum >= mPlayerCount ||
+			playerNum >= state.getPlayerCount()) {
+			return;
+		}
+		writeSlot(playerNum, state, eventTimeMillis);
+	}
+
+	private void writeSlot(int playerNum, OuyaControllerState state, long eventTimeMillis) {
+		ByteBuffer buffer = mBuffer;
+		int playerOffset = HEADER_SIZE + PLAYER_SIZE * playerNum;
+		int activeSlot = buffer.getInt(playerOffset + PLAYER_ACTIVE_SLOT_OFFSET);
+		int backSlot = activeSlot ^ 1;
+		int slotOffset = playerOffset + PLAYER_SLOTS_OFFSET + SLOT_SIZE * backSlot;
+
+		int sequence = buffer.getInt(slotOffset + SLOT_SEQUENCE_OFFSET);
+		buffer.putInt(slotOffset + SLOT_SEQUENCE_OFFSET, sequence + 1);
+		// the odd sequence is visible before any of the data changes
+		writerFence();
+
+		buffer.putLong(slotOffset + SLOT_TIMESTAMP_OFFSET, eventTimeMillis * 1000000L);
+		float[] axes = state.getAxisRow(playerNum);
+		int offset = slotOffset + SLOT_AXES_OFFSET;
+		for (int axis = 0; axis < AXIS_COUNT; ++axis) {
+			buffer.putFloat(offset, axes[axis]);
+			offset += 4;
+		}
+		long[] buttons = state.getButtonRow(playerNum);
+		offset = slotOffset + SLOT_BUTTONS_OFFSET;
+		for (int word = 0; word < buttons.length; ++word) {
+			buffer.putInt(offset, (int) buttons[word]);
+			buffer.putInt(offset + 4, (int) (buttons[word] >>> 32));
+			offset += 8;
+		}
+
+		// the data is visible before the even sequence and the flip
+		writerFence();
+		buffer.putInt(slotOffset + SLOT_SEQUENCE_OFFSET, sequence + 2);
+		buffer.putInt(playerOffset + PLAYER_ACTIVE_SLOT_OFFSET, backSlot);
+	}
+
+	/**
+	 * Copies the listed axes of the player into axesOut from axesOffset on,
+	 * and a mask with bit n set when keyCodes[n] is pressed into
+	 * masksOut[maskIndex], from any thread. Retries while the writer updates
+	 * the slot.
+	 * @param keyCodes buttons to report, at most 32
+	 * @return false when the slot did not settle, the copied values are then
+	 * inconsistent and must not be used
+	 */
+	public boolean read(int playerNum, int[] axisIds, float[] axesOut, int axesOffset,
+		int[] keyCodes, int[] masksOut, int maskIndex) {
+		if (playerNum < 0 || playerNum >= mPlayerCount) {
+			return false;
+		}
+		for (int retry = 0; retry < MAX_READ_RETRIES; ++retry) {
+			if (readSlot(playerNum, axisIds, axesOut, axesOffset, keyCodes, masksOut, maskIndex)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean readSlot(int playerNum, int[] axisIds, float[] axesOut, int axesOffset,
+		int[] keyCodes, int[] masksOut, int maskIndex) {
+		ByteBuffer buffer = mBuffer;
+		int playerOffset = HEADER_SIZE + PLAYER_SIZE * playerNum;
+		int activeSlot = buffer.getInt(playerOffset + PLAYER_ACTIVE_SLOT_OFFSET) & 1;
+		int slotOffset = playerOffset + PLAYER_SLOTS_OFFSET + SLOT_SIZE * activeSlot;
+		int sequence = buffer.getInt(slotOffset + SLOT_SEQUENCE_OFFSET);
+		if ((sequence & 1) != 0) {
+			return false;
+		}
+		readerFence();
+		for (int index = 0; index < axisIds.length; ++index) {
+			axesOut[axesOffset + index] = buffer.getFloat(slotOffset + SLOT_AXES_OFFSET + axisIds[index] * 4);
+		}
+		int mask = 0;
+		for (int index = 0; index < keyCodes.length; ++index) {
+			int keyCode = keyCodes[index];
+			int word = buffer.getInt(slotOffset + SLOT_BUTTONS_OFFSET + (keyCode >>> 5) * 4);
+			if ((word & (1 << (keyCode & 31))) != 0) {
+				mask |= 1 << index;
+			}
+		}
+		masksOut[maskIndex] = mask;
+		// the data is read before the sequence is checked again
+		readerFence();
+		return buffer.getInt(slotOffset + SLOT_SEQUENCE_OFFSET) == sequence;
+	}
+
+	// plain accesses can not move across a volatile store followed by a volatile load
+	private int writerFence() {
+		mWriterFence = 0;
+		return mWriterFence;
+	}
+
+	// a field of its own, so readers never contend with the writer
+	private int readerFence() {
+		mReaderFence = 0;
+		return mReaderFence;
+	}
+
+	private static native void registerSnapshotBufferNative(ByteBuffer buffer);
+}
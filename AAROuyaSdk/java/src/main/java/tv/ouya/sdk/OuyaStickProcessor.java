@@ -0,0 +1,224 @@
+/*
+ * Copyright (C) 2012-2017 Razer, Inc.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package tv.ouya.sdk;
+
+import android.util.Log;
+
+/**
+ * Per-player, per-stick dead zone and response curve stage.
+ * <p>
+ * Every configuration is baked into a table of output magnitudes when it
+ * is set, so processing an event is an interpolated table lookup per axis.
+ * Axial tables are indexed by the absolute axis value. Radial tables are
+ * indexed by the stick magnitude and the result is applied as a scale, which
+ * keeps the stick direction unchanged. Interpolating keeps the steps near
+ * the center as fine as everywhere else, so a stick without a dead zone
+ * moves as soon as it leaves 0. Values inside the dead zone are zeroed
+ * before the lookup, since the dead zone edge falls between two entries.
+ */
+public class OuyaStickProcessor {
+
+	private static final String TAG = OuyaStickProcessor.class.getSimpleName();
+
+	public static final int STICK_LEFT = 0;
+	public static final int STICK_RIGHT = 1;
+	public static final int STICK_COUNT = 2;
+
+	/** No dead zone, only the response curve is applied to the magnitude. */
+	public static final int DEAD_ZONE_NONE = 0;
+
+	/** Each axis is zeroed on its own while inside the dead zone. */
+	public static final int DEAD_ZONE_AXIAL = 1;
+
+	/** The stick is zeroed while its magnitude is inside the dead zone. */
+	public static final int DEAD_ZONE_RADIAL = 2;
+
+	/** Like radial, with the remaining range rescaled to start at 0. */
+	public static final int DEAD_ZONE_SCALED_RADIAL = 3;
+
+	// one more than a power of two so 1.0 lands exactly on an entry
+	private static final int TABLE_SIZE = 1025;
+
+	private static final float AXIAL_INDEX_SCALE = TABLE_SIZE - 1;
+
+	// magnitudes reach the square root of 2 in the corners of a square gate
+	private static final float RADIAL_MAX_MAGNITUDE = (float) Math.sqrt(2.0);
+
+	private static final float RADIAL_INDEX_SCALE = (TABLE_SIZE - 1) / RADIAL_MAX_MAGNITUDE;
+
+	private static final class Table {
+		final int mType;
+
+		final float mDeadZone;
+
+		// output magnitude per entry, null when the stick passes through unchanged
+		final float[] mResponse;
+
+		Table(int type, float deadZone, float[] response) {
+			mType = type;
+			mDeadZone = deadZone;
+			mResponse = response;
+		}
+	}
+
+	private static final Table IDENTITY = new Table(DEAD_ZONE_NONE, 0f, null);
+
+	private final int mPlayerCount;
+
+	// replaced as a whole so the input thread never sees a partial update
+	private volatile Table[] mTables;
+
+	public OuyaStickProcessor(int playerCount) {
+		mPlayerCount = playerCount;
+		Table[] tables = new Table[playerCount * STICK_COUNT];
+		for (int index = 0; index < tables.length; ++index) {
+			tables[index] = IDENTITY;
+		}
+		mTables = tables;
+	}
+
+	/**
+	 * @param playerNum player to configure, or -1 for every player
+	 * @param stick STICK_LEFT or STICK_RIGHT
+	 * @param deadZoneType one of the DEAD_ZONE_ constants
+	 * @param deadZone dead zone size in [0, 1)
+	 * @param exponent response curve exponent, 1 is linear
+	 * @return false when a parameter is out of range
+	 */
+	public synchronized boolean configure(int playerNum, int stick, int deadZoneType, float deadZone, float exponent) {
+		if (playerNum < -1 || playerNum >= mPlayerCount) {
+			Log.e(TAG, "configure: Invalid player " + playerNum);
+			return false;
+		}
+		if (stick < 0 || stick >= STICK_COUNT) {
+			Log.e(TAG, "configure: Invalid stick " + stick);
+			return false;
+		}
+		if (deadZoneType < DEAD_ZONE_NONE || deadZoneType > DEAD_ZONE_SCALED_RADIAL) {
+			Log.e(TAG, "configure: Invalid dead zone type " + deadZoneType);
+			return false;
+		}
+		if (!(deadZone >= 0f && deadZone < 1f)) {
+			Log.e(TAG, "configure: Dead zone must be in [0, 1)");
+			return false;
+		}
+		if (!(exponent > 0f) || Float.isInfinite(exponent)) {
+			Log.e(TAG, "configure: Exponent must be positive");
+			return false;
+		}
+
+		Table table;
+		if (deadZone == 0f) {
+			// every type is the same curve without a dead zone
+			deadZoneType = deadZoneType == DEAD_ZONE_AXIAL ? DEAD_ZONE_AXIAL : DEAD_ZONE_NONE;
+		}
+		if (exponent == 1f && deadZoneType == DEAD_ZONE_NONE) {
+			table = IDENTITY;
+		} else {
+			table = new Table(deadZoneType, deadZone, buildTable(deadZoneType, deadZone, exponent));
+		}
+
+		Table[] tables = mTables.clone();
+		for (int player = 0; player < mPlayerCount; ++player) {
+			if (playerNum == -1 || playerNum == player) {
+				tables[player * STICK_COUNT + stick] = table;
+			}
+		}
+		mTables = tables;
+		return true;
+	}
+
+	/**
+	 * Processes the stick values at xIndex and yIndex in place.
+	 */
+	public void process(int playerNum, int stick, float[] values, int xIndex, int yIndex) {
+		if (playerNum < 0 || playerNum >= mPlayerCount || stick < 0 || stick >= STICK_COUNT) {
+			return;
+		}
+		Table table = mTables[playerNum * STICK_COUNT + stick];
+		float[] response = table.mResponse;
+		if (null == response) {
+			return;
+		}
+		float x = values[xIndex];
+		float y = values[yIndex];
+		float deadZone = table.mDeadZone;
+		if (table.mType == DEAD_ZONE_AXIAL) {
+			values[xIndex] = processAxis(response, deadZone, x);
+			values[yIndex] = processAxis(response, deadZone, y);
+		} else {
+			float magnitude = (float) Math.sqrt(x * x + y * y);
+			if (magnitude < deadZone) {
+				values[xIndex] = 0f;
+				values[yIndex] = 0f;
+			} else if (magnitude > 0f) {
+				float factor = lookup(response, magnitude * RADIAL_INDEX_SCALE) / magnitude;
+				values[xIndex] = x * factor;
+				values[yIndex] = y * factor;
+			}
+		}
+	}
+
+	private static float processAxis(float[] response, float deadZone, float value) {
+		float magnitude = Math.abs(value);
+		if (magnitude < deadZone) {
+			return 0f;
+		}
+		return Math.copySign(lookup(response, magnitude * AXIAL_INDEX_SCALE), value);
+	}
+
+	private static float lookup(float[] response, float position) {
+		if (position >= TABLE_SIZE - 1) {
+			return response[TABLE_SIZE - 1];
+		}
+		int index = (int) position;
+		float low = response[index];
+		return low + (response[index + 1] - low) * (position - index);
+	}
+
+	private static float[] buildTable(int deadZoneType, float deadZone, float exponent) {
+		float[] table = new float[TABLE_SIZE];
+		for (int index = 1; index < TABLE_SIZE; ++index) {
+			float magnitude;
+			if (deadZoneType == DEAD_ZONE_AXIAL) {
+				magnitude = index / AXIAL_INDEX_SCALE;
+			} else {
+				magnitude = index / RADIAL_INDEX_SCALE;
+			}
+
+			// process zeroes values inside the dead zone, the entries there hold the
+			// response at its edge so values just past it interpolate from the edge
+			if (deadZoneType != DEAD_ZONE_NONE && magnitude < deadZone) {
+				magnitude = deadZone;
+			}
+
+			float response;
+			if (deadZoneType == DEAD_ZONE_SCALED_RADIAL) {
+				response = Math.min((magnitude - deadZone) / (1f - deadZone), 1f);
+			} else {
+				response = magnitude;
+			}
+
+			// the curve shapes the unit range, corner values past 1 are left as is
+			if (response > 0f && response <= 1f) {
+				response = (float) Math.pow(response, exponent);
+			}
+			table[index] = response;
+		}
+		return table;
+	}
+}
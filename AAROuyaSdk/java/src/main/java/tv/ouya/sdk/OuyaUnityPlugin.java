@@ -681,6 +681,15 @@ public class OuyaUnityPlugin
 		mainActivity.useDefaultInput();
 	}
 
+	public static boolean isNativeInputQueueActive() {
+		final MainActivity mainActivity = IOuyaActivity.GetMainActivity();
+		if (null == mainActivity) {
+			Log.e(TAG, "isNativeInputQueueActive: MainActivity is null!");
+			return false;
+		}
+		return mainActivity.isNativeInputQueueActive();
+	}
+
 	public static void enableQuitOnPause() {
 		final MainActivity mainActivity = IOuyaActivity.GetMainActivity();
 		if (null == mainActivity) {
@@ -698,4 +707,107 @@ public class OuyaUnityPlugin
         }
         mainActivity.enableGenericAsTurretMouse();
     }
+
+	public static int getTurretMouseConnectionState() {
+		final MainActivity mainActivity = IOuyaActivity.GetMainActivity();
+		if (null == mainActivity) {
+			Log.e(TAG, "getTurretMouseConnectionState: MainActivity is null!");
+			return -1;
+		}
+		return mainActivity.getTurretMouseConnectionState();
+	}
+
+	public static void setAxisEpsilon(float epsilon) {
+		OuyaInputView.setAxisEpsilon(epsilon);
+	}
+
+	public static long getSuppressedInputDispatchCount() {
+		return OuyaInputView.getSuppressedDispatchCount();
+	}
+
+	public static void setKeyRepeatEnabled(boolean enabled) {
+		OuyaInputView.setKeyRepeatEnabled(enabled);
+	}
+
+	public static int getActivePlayerMask() {
+		return OuyaInputView.getDeviceRegistry().getActivePlayerMask();
+	}
+
+	public static int drainInputSamples(int playerNum, float[] axes, long[] timestamps) {
+		return OuyaInputView.drainInputSamples(playerNum, axes, timestamps);
+	}
+
+	public static int drainInputSampleBuffer(int playerNum, int maxSamples) {
+		return OuyaInputView.drainInputSampleBuffer(playerNum, maxSamples);
+	}
+
+	public static int getControllerSnapshot(float[] axes, int[] buttons) {
+		return OuyaInputView.getControllerSnapshot(axes, buttons);
+	}
+
+	public static void setInputLatencyTracking(boolean enabled) {
+		OuyaInputLatency.setEnabled(enabled);
+	}
+
+	public static String getInputLatencyJson() {
+		return OuyaInputLatency.getSnapshotJson();
+	}
+
+	public static void resetInputLatency() {
+		OuyaInputLatency.reset();
+	}
+
+	public static boolean setStickResponse(int playerNum, int stick, int deadZoneType, float deadZone, float exponent) {
+		return OuyaInputView.getStickProcessor().configure(playerNum, stick, deadZoneType, deadZone, exponent);
+	}
+
+	public static void setFrameAlignedInput(boolean enabled) {
+		OuyaInputView.setFrameAlignedInput(enabled);
+	}
+
+	public static int pumpInputQueue() {
+		return OuyaInputView.pumpInputQueue();
+	}
+
+	public static void setInputThreadEnabled(final boolean enabled) {
+		try {
+			Activity activity = IOuyaActivity.GetActivity();
+			if (null != activity) {
+				Runnable runnable = new Runnable()
+				{
+					public void run()
+					{
+						OuyaInputView.setInputThreadEnabled(enabled);
+					}
+				};
+				activity.runOnUiThread(runnable);
+			}
+		} catch (Exception e) {
+			Log.e(TAG, "setInputThreadEnabled: exception=" + e.toString());
+		}
+	}
+
+	public static void setControllerEventsEnabled(boolean enabled) {
+		OuyaControllerEvents.setEnabled(enabled);
+	}
+
+	public static boolean startInputRecording(String path) {
+		return OuyaInputRecorder.start(path);
+	}
+
+	public static long stopInputRecording() {
+		return OuyaInputRecorder.stop();
+	}
+
+	public static boolean startInputReplay(String path, boolean realTime) {
+		return OuyaInputReplay.start(path, realTime);
+	}
+
+	public static void stopInputReplay() {
+		OuyaInputReplay.stop();
+	}
+
+	public static boolean isInputReplaying() {
+		return OuyaInputReplay.isReplaying();
+	}
 }
@@ -15,7 +15,10 @@
  */
 
 #include <jni.h>
+#include <android/input.h>
 #include <android/log.h>
+#include <android/looper.h>
+#include <pthread.h>
 
 #include <map>
 #include <string>
@@ -29,7 +32,8 @@
 
 #define VERBOSE_LOGGING false
 
-#define MAX_CONTROLLERS 4
+//player slots, must match OuyaInputView.MAX_PLAYERS
+#define MAX_PLAYERS 8
 
 //axis states
 static std::vector< std::map<int, float> > g_axis;
@@ -41,7 +45,58 @@ static std::vector< std::map<int, bool> > g_buttonUp;
 static std::vector< std::map<int, bool> > g_lastButtonDown;
 static std::vector< std::map<int, bool> > g_lastButtonUp;
 static int g_sdk_version = -1;
-static int g_turretMouseInfo[6] = {0};
+#define TURRET_MOUSE_INFO_COUNT 6
+static int g_turretMouseInfo[TURRET_MOUSE_INFO_COUNT] = {0};
+
+//guards the axis and button maps, written from Java and the input queue thread and read by Unity
+static pthread_mutex_t g_stateMutex = PTHREAD_MUTEX_INITIALIZER;
+
+class StateLock
+{
+public:
+	StateLock() { pthread_mutex_lock(&g_stateMutex); }
+	~StateLock() { pthread_mutex_unlock(&g_stateMutex); }
+};
+
+//controller snapshot buffer, see OuyaSnapshotBuffer.java for the layout
+#define SNAPSHOT_MAGIC 0x4F555931
+#define SNAPSHOT_HEADER_SIZE 16
+#define SNAPSHOT_SLOT_TIMESTAMP_OFFSET 8
+#define SNAPSHOT_SLOT_AXES_OFFSET 16
+#define SNAPSHOT_PLAYER_SLOTS_OFFSET 8
+#define SNAPSHOT_MAX_RETRIES 8
+static jobject g_snapshotBufferRef = NULL;
+static unsigned char* g_snapshotBuffer = NULL;
+static jlong g_snapshotBufferSize = 0;
+
+//drained input samples for C#, see OuyaSampleBuffer.java for the layout
+#define SAMPLE_BUFFER_MAGIC 0x4F555331
+#define SAMPLE_BUFFER_HEADER_SIZE 16
+static jobject g_sampleBufferRef = NULL;
+static unsigned char* g_sampleBuffer = NULL;
+
+//layout of the packed axis vector, must match PACKED_AXES in OuyaInputView
+#define PACKED_AXIS_COUNT 8
+static const int g_packedAxes[PACKED_AXIS_COUNT] = {
+	15, //AXIS_HAT_X
+	16, //AXIS_HAT_Y
+	0,  //AXIS_LS_X
+	1,  //AXIS_LS_Y
+	11, //AXIS_RS_X
+	14, //AXIS_RS_Y
+	17, //AXIS_L2
+	18  //AXIS_R2
+};
+
+//layout of the dpad edge mask, must match DPAD_BUTTONS in OuyaInputView
+#define DPAD_BUTTON_COUNT 4
+#define DPAD_RELEASE_SHIFT 4
+static const int g_dpadButtons[DPAD_BUTTON_COUNT] = {
+	21, //BUTTON_DPAD_LEFT
+	22, //BUTTON_DPAD_RIGHT
+	20, //BUTTON_DPAD_DOWN
+	19  //BUTTON_DPAD_UP
+};
 
 void dispatchGenericMotionEventNative(JNIEnv* env, jobject thiz,
 									  jint deviceId,
@@ -52,13 +107,30 @@ void dispatchGenericMotionEventNative(JNIEnv* env, jobject thiz,
 	__android_log_print(ANDROID_LOG_INFO, LOG_TAG, "Device=%d axis=%d val=%f", deviceId, axis, val);
 #endif
 	if (deviceId < 0 ||
-		deviceId >= MAX_CONTROLLERS)
+		deviceId >= MAX_PLAYERS)
 	{
 		deviceId = 0;
 	}
+	StateLock lock;
 	g_axis[deviceId][axis] = val;
 }
 
+static void setButtonState(int deviceId, int keyCode, bool buttonDown)
+{
+	if (g_button[deviceId][keyCode] != buttonDown)
+	{
+		g_button[deviceId][keyCode] = buttonDown;
+		if (buttonDown)
+		{
+			g_buttonDown[deviceId][keyCode] = true;
+		}
+		else
+		{
+			g_buttonUp[deviceId][keyCode] = true;
+		}
+	}
+}
+
 void dispatchKeyEventNative(JNIEnv* env, jobject thiz,
 							jint deviceId,
 							jint keyCode,
@@ -68,25 +140,407 @@ void dispatchKeyEventNative(JNIEnv* env, jobject thiz,
 	__android_log_print(ANDROID_LOG_INFO, LOG_TAG, "Device=%d KeyCode=%d Action=%d", deviceId, keyCode, action);
 #endif
 	if (deviceId < 0 ||
-		deviceId >= MAX_CONTROLLERS)
+		deviceId >= MAX_PLAYERS)
 	{
 		deviceId = 0;
 	}
 
-	bool buttonDown = action == 0;
+	StateLock lock;
+	setButtonState(deviceId, keyCode, action == 0);
+}
 
-	if (g_button[deviceId][keyCode] != buttonDown)
+void dispatchControllerStateNative(JNIEnv* env, jobject thiz,
+								   jint deviceId,
+								   jfloatArray axes,
+								   jint axisMask,
+								   jint dpadMask)
+{
+#if VERBOSE_LOGGING
+	__android_log_print(ANDROID_LOG_INFO, LOG_TAG, "Device=%d axisMask=%d dpadMask=%d", deviceId, axisMask, dpadMask);
+#endif
+	if (deviceId < 0 ||
+		deviceId >= MAX_PLAYERS)
 	{
-		g_button[deviceId][keyCode] = buttonDown;
-		if (buttonDown)
+		deviceId = 0;
+	}
+
+	StateLock lock;
+	for (int index = 0; index < DPAD_BUTTON_COUNT; ++index)
+	{
+		if (dpadMask & (1 << index))
 		{
-			g_buttonDown[deviceId][keyCode] = true;
+			setButtonState(deviceId, g_dpadButtons[index], true);
 		}
-		else
+		else if (dpadMask & (1 << (index + DPAD_RELEASE_SHIFT)))
 		{
-			g_buttonUp[deviceId][keyCode] = true;
+			setButtonState(deviceId, g_dpadButtons[index], false);
+		}
+	}
+
+	if (NULL == axes ||
+		0 == axisMask)
+	{
+		return;
+	}
+
+	jfloat values[PACKED_AXIS_COUNT];
+	jsize count = env->GetArrayLength(axes);
+	if (count > PACKED_AXIS_COUNT)
+	{
+		count = PACKED_AXIS_COUNT;
+	}
+	env->GetFloatArrayRegion(axes, 0, count, values);
+	for (int index = 0; index < count; ++index)
+	{
+		if (axisMask & (1 << index))
+		{
+			g_axis[deviceId][g_packedAxes[index]] = values[index];
+		}
+	}
+}
+
+void registerSnapshotBufferNative(JNIEnv* env, jclass clazz, jobject buffer)
+{
+	if (NULL != g_snapshotBufferRef)
+	{
+		g_snapshotBuffer = NULL;
+		g_snapshotBufferSize = 0;
+		env->DeleteGlobalRef(g_snapshotBufferRef);
+		g_snapshotBufferRef = NULL;
+	}
+
+	if (NULL == buffer)
+	{
+		return;
+	}
+
+	unsigned char* address = (unsigned char*)env->GetDirectBufferAddress(buffer);
+	jlong capacity = env->GetDirectBufferCapacity(buffer);
+	if (NULL == address ||
+		capacity < SNAPSHOT_HEADER_SIZE ||
+		*((int*)address) != SNAPSHOT_MAGIC)
+	{
+		__android_log_print(ANDROID_LOG_ERROR, LOG_TAG, "Invalid controller snapshot buffer");
+		return;
+	}
+
+	//keep the buffer reachable for as long as native code reads from it
+	g_snapshotBufferRef = env->NewGlobalRef(buffer);
+	g_snapshotBufferSize = capacity;
+	g_snapshotBuffer = address;
+}
+
+void registerSampleBufferNative(JNIEnv* env, jclass clazz, jobject buffer)
+{
+	if (NULL != g_sampleBufferRef)
+	{
+		g_sampleBuffer = NULL;
+		env->DeleteGlobalRef(g_sampleBufferRef);
+		g_sampleBufferRef = NULL;
+	}
+
+	if (NULL == buffer)
+	{
+		return;
+	}
+
+	unsigned char* address = (unsigned char*)env->GetDirectBufferAddress(buffer);
+	jlong capacity = env->GetDirectBufferCapacity(buffer);
+	if (NULL == address ||
+		capacity < SAMPLE_BUFFER_HEADER_SIZE ||
+		*((int*)address) != SAMPLE_BUFFER_MAGIC)
+	{
+		__android_log_print(ANDROID_LOG_ERROR, LOG_TAG, "Invalid input sample buffer");
+		return;
+	}
+
+	//keep the buffer reachable for as long as C# reads from it
+	g_sampleBufferRef = env->NewGlobalRef(buffer);
+	g_sampleBuffer = address;
+}
+
+//native input queue, see OuyaNativeInputQueue.java
+#define INPUT_QUEUE_LOOPER_ID 1
+#define MAX_QUEUE_DEVICES 16
+#define MAX_QUEUE_KEY_REMAPS 8
+#define QUEUE_DEAD_ZONE 0.25f
+
+//a known controller whose events are handled here, pushed from OuyaDeviceRegistry
+struct QueueDevice
+{
+	int deviceId;
+	int playerNum;
+	int axes[PACKED_AXIS_COUNT];	//source axis per packed axis
+	int keyRemaps[MAX_QUEUE_KEY_REMAPS * 2];	//device and OUYA key code pairs
+	int keyRemapCount;
+	bool dpadKeys;	//the device reports the dpad as keys, do not synthesize them from the hat
+};
+
+//guards the device table, taken before g_stateMutex
+static pthread_mutex_t g_queueMutex = PTHREAD_MUTEX_INITIALIZER;
+static QueueDevice g_queueDevices[MAX_QUEUE_DEVICES];
+static int g_queueDeviceCount = 0;
+static volatile bool g_inputQueueRequested = false;
+
+static pthread_mutex_t g_queueThreadMutex = PTHREAD_MUTEX_INITIALIZER;
+static pthread_cond_t g_queueThreadCond = PTHREAD_COND_INITIALIZER;
+static AInputQueue* g_inputQueue = NULL;
+static ALooper* g_inputLooper = NULL;
+static pthread_t g_inputThread;
+static volatile bool g_inputThreadRunning = false;
+
+static bool isQueueKey(int keyCode)
+{
+	return (keyCode >= 19 && keyCode <= 23) ||	//dpad and center
+		4 == keyCode ||	//back
+		82 == keyCode ||	//menu
+		(keyCode >= 96 && keyCode <= 110) ||	//BUTTON_A to BUTTON_MODE
+		(keyCode >= 188 && keyCode <= 203);	//BUTTON_1 to BUTTON_16
+}
+
+//caller holds g_queueMutex
+static QueueDevice* findQueueDevice(int deviceId)
+{
+	for (int index = 0; index < g_queueDeviceCount; ++index)
+	{
+		if (g_queueDevices[index].deviceId == deviceId)
+		{
+			return &g_queueDevices[index];
+		}
+	}
+	return NULL;
+}
+
+//caller holds g_stateMutex
+static void releaseQueuePlayer(int playerNum)
+{
+	for (std::map<int, bool>::iterator it = g_button[playerNum].begin(); it != g_button[playerNum].end(); ++it)
+	{
+		if (it->second)
+		{
+			g_buttonUp[playerNum][it->first] = true;
+			it->second = false;
+		}
+	}
+	for (int index = 0; index < PACKED_AXIS_COUNT; ++index)
+	{
+		g_axis[playerNum][g_packedAxes[index]] = 0.0f;
+	}
+}
+
+//returns 1 when the event was applied, 0 to let the view hierarchy have it
+static int handleQueueEvent(AInputEvent* event)
+{
+	pthread_mutex_lock(&g_queueMutex);
+	QueueDevice* device = findQueueDevice(AInputEvent_getDeviceId(event));
+	if (NULL == device)
+	{
+		pthread_mutex_unlock(&g_queueMutex);
+		return 0;
+	}
+
+	int handled = 0;
+	int playerNum = device->playerNum;
+	int type = AInputEvent_getType(event);
+	if (AINPUT_EVENT_TYPE_KEY == type)
+	{
+		int keyCode = AKeyEvent_getKeyCode(event);
+		int action = AKeyEvent_getAction(event);
+		if (isQueueKey(keyCode))
+		{
+			for (int index = 0; index < device->keyRemapCount; ++index)
+			{
+				if (device->keyRemaps[index * 2] == keyCode)
+				{
+					keyCode = device->keyRemaps[index * 2 + 1];
+					break;
+				}
+			}
+			if (keyCode >= 19 && keyCode <= 22)
+			{
+				device->dpadKeys = true;
+			}
+			if (AKEY_EVENT_ACTION_DOWN == action ||
+				AKEY_EVENT_ACTION_UP == action)
+			{
+				StateLock lock;
+				setButtonState(playerNum, keyCode, AKEY_EVENT_ACTION_DOWN == action);
+			}
+			handled = 1;
+		}
+	}
+	else if (AINPUT_EVENT_TYPE_MOTION == type &&
+		(AInputEvent_getSource(event) & AINPUT_SOURCE_CLASS_JOYSTICK) != 0)
+	{
+		float values[PACKED_AXIS_COUNT];
+		for (int index = 0; index < PACKED_AXIS_COUNT; ++index)
+		{
+			values[index] = AMotionEvent_getAxisValue(event, device->axes[index], 0);
+		}
+		StateLock lock;
+		for (int index = 0; index < PACKED_AXIS_COUNT; ++index)
+		{
+			g_axis[playerNum][g_packedAxes[index]] = values[index];
+		}
+		if (!device->dpadKeys)
+		{
+			//values 0 and 1 are HAT_X and HAT_Y, matching OuyaInputView
+			setButtonState(playerNum, g_dpadButtons[0], values[0] < -QUEUE_DEAD_ZONE);
+			setButtonState(playerNum, g_dpadButtons[1], values[0] > QUEUE_DEAD_ZONE);
+			setButtonState(playerNum, g_dpadButtons[2], values[1] > QUEUE_DEAD_ZONE);
+			setButtonState(playerNum, g_dpadButtons[3], values[1] < -QUEUE_DEAD_ZONE);
+		}
+		handled = 1;
+	}
+	pthread_mutex_unlock(&g_queueMutex);
+	return handled;
+}
+
+static int onInputQueueEvents(int fd, int events, void* data)
+{
+	AInputQueue* queue = (AInputQueue*)data;
+	AInputEvent* event = NULL;
+	while (AInputQueue_getEvent(queue, &event) >= 0)
+	{
+		if (AInputQueue_preDispatchEvent(queue, event))
+		{
+			continue;
+		}
+		AInputQueue_finishEvent(queue, event, handleQueueEvent(event));
+	}
+	return 1;
+}
+
+static void* inputQueueThread(void* arg)
+{
+	AInputQueue* queue = (AInputQueue*)arg;
+	ALooper* looper = ALooper_prepare(ALOOPER_PREPARE_ALLOW_NON_CALLBACKS);
+	ALooper_acquire(looper);
+	AInputQueue_attachLooper(queue, looper, INPUT_QUEUE_LOOPER_ID, onInputQueueEvents, queue);
+
+	pthread_mutex_lock(&g_queueThreadMutex);
+	g_inputLooper = looper;
+	pthread_cond_broadcast(&g_queueThreadCond);
+	pthread_mutex_unlock(&g_queueThreadMutex);
+
+	while (g_inputThreadRunning)
+	{
+		ALooper_pollOnce(-1, NULL, NULL, NULL);
+	}
+
+	AInputQueue_detachLooper(queue);
+	ALooper_release(looper);
+	return NULL;
+}
+
+void requestInputQueueNative(JNIEnv* env, jclass clazz)
+{
+	g_inputQueueRequested = true;
+}
+
+void attachInputQueueNative(JNIEnv* env, jclass clazz, jlong queuePtr)
+{
+	if (g_inputThreadRunning ||
+		0 == queuePtr)
+	{
+		return;
+	}
+
+	g_inputQueue = (AInputQueue*)(intptr_t)queuePtr;
+	g_inputLooper = NULL;
+	g_inputThreadRunning = true;
+	if (0 != pthread_create(&g_inputThread, NULL, inputQueueThread, g_inputQueue))
+	{
+		__android_log_print(ANDROID_LOG_ERROR, LOG_TAG, "Failed to start the input queue thread");
+		g_inputThreadRunning = false;
+		g_inputQueue = NULL;
+		return;
+	}
+
+	//wait for the looper so a detach can always wake the thread
+	pthread_mutex_lock(&g_queueThreadMutex);
+	while (NULL == g_inputLooper)
+	{
+		pthread_cond_wait(&g_queueThreadCond, &g_queueThreadMutex);
+	}
+	pthread_mutex_unlock(&g_queueThreadMutex);
+#if VERBOSE_LOGGING
+	__android_log_print(ANDROID_LOG_INFO, LOG_TAG, "Input queue attached");
+#endif
+}
+
+void detachInputQueueNative(JNIEnv* env, jclass clazz)
+{
+	if (!g_inputThreadRunning)
+	{
+		return;
+	}
+
+	g_inputThreadRunning = false;
+	ALooper_wake(g_inputLooper);
+	pthread_join(g_inputThread, NULL);
+	g_inputLooper = NULL;
+	g_inputQueue = NULL;
+#if VERBOSE_LOGGING
+	__android_log_print(ANDROID_LOG_INFO, LOG_TAG, "Input queue detached");
+#endif
+}
+
+void setQueueDeviceNative(JNIEnv* env, jclass clazz,
+						  jint deviceId,
+						  jint playerNum,
+						  jintArray axes,
+						  jintArray keyRemaps)
+{
+	pthread_mutex_lock(&g_queueMutex);
+	QueueDevice* device = findQueueDevice(deviceId);
+	if (NULL != device)
+	{
+		StateLock lock;
+		releaseQueuePlayer(device->playerNum);
+	}
+
+	if (playerNum < 0 ||
+		playerNum >= MAX_PLAYERS ||
+		NULL == axes ||
+		env->GetArrayLength(axes) != PACKED_AXIS_COUNT)
+	{
+		//forget the device, its events go back to the view hierarchy
+		if (NULL != device)
+		{
+			*device = g_queueDevices[--g_queueDeviceCount];
+		}
+		pthread_mutex_unlock(&g_queueMutex);
+		return;
+	}
+
+	if (NULL == device)
+	{
+		if (g_queueDeviceCount == MAX_QUEUE_DEVICES)
+		{
+			__android_log_print(ANDROID_LOG_ERROR, LOG_TAG, "Too many input queue devices, skipping device %d", deviceId);
+			pthread_mutex_unlock(&g_queueMutex);
+			return;
+		}
+		device = &g_queueDevices[g_queueDeviceCount++];
+	}
+
+	device->deviceId = deviceId;
+	device->playerNum = playerNum;
+	device->dpadKeys = false;
+	env->GetIntArrayRegion(axes, 0, PACKED_AXIS_COUNT, device->axes);
+	device->keyRemapCount = 0;
+	if (NULL != keyRemaps)
+	{
+		jsize count = env->GetArrayLength(keyRemaps) / 2;
+		if (count > MAX_QUEUE_KEY_REMAPS)
+		{
+			count = MAX_QUEUE_KEY_REMAPS;
 		}
+		env->GetIntArrayRegion(keyRemaps, 0, count * 2, device->keyRemaps);
+		device->keyRemapCount = count;
 	}
+	pthread_mutex_unlock(&g_queueMutex);
 }
 
 static JNINativeMethod method_table[] = {
@@ -101,6 +555,12 @@ static JNINativeMethod method_table2[] = {
 
 static int method_table_size2 = sizeof(method_table2) / sizeof(method_table2[0]);
 
+static JNINativeMethod method_table7[] = {
+		{ "dispatchControllerStateNative", "(I[FII)V", (void *)dispatchControllerStateNative }
+};
+
+static int method_table_size7 = sizeof(method_table7) / sizeof(method_table7[0]);
+
 jint discoverMouseNative(JNIEnv* env, jobject obj);
 
 static JNINativeMethod method_table3[] = {
@@ -126,20 +586,43 @@ static JNINativeMethod method_table5[] = {
 static int method_table_size5 = sizeof(method_table5) / sizeof(method_table5[0]);
 
 void setTurretMouseInfoNative(JNIEnv* env, jobject obj, jint index, jint value);
+void setTurretMouseInfoBulkNative(JNIEnv* env, jobject obj, jint mask, jint buttons, jint deltaX, jint deltaY, jint wheel, jint x, jint y);
 
 static JNINativeMethod method_table6[] = {
-        { "setTurretMouseInfoNative", "(II)V", (void *)setTurretMouseInfoNative }
+        { "setTurretMouseInfoNative", "(II)V", (void *)setTurretMouseInfoNative },
+        { "setTurretMouseInfoBulkNative", "(IIIIIII)V", (void *)setTurretMouseInfoBulkNative }
 };
 
 static int method_table_size6 = sizeof(method_table6) / sizeof(method_table6[0]);
 
+static JNINativeMethod method_table8[] = {
+		{ "registerSnapshotBufferNative", "(Ljava/nio/ByteBuffer;)V", (void *)registerSnapshotBufferNative }
+};
+
+static int method_table_size8 = sizeof(method_table8) / sizeof(method_table8[0]);
+
+static JNINativeMethod method_table10[] = {
+		{ "registerSampleBufferNative", "(Ljava/nio/ByteBuffer;)V", (void *)registerSampleBufferNative }
+};
+
+static int method_table_size10 = sizeof(method_table10) / sizeof(method_table10[0]);
+
+static JNINativeMethod method_table9[] = {
+		{ "requestInputQueueNative", "()V", (void *)requestInputQueueNative },
+		{ "attachInputQueueNative", "(J)V", (void *)attachInputQueueNative },
+		{ "detachInputQueueNative", "()V", (void *)detachInputQueueNative },
+		{ "setQueueDeviceNative", "(II[I[I)V", (void *)setQueueDeviceNative }
+};
+
+static int method_table_size9 = sizeof(method_table9) / sizeof(method_table9[0]);
+
 jint JNI_OnLoad(JavaVM* vm, void* reserved)
 {
 #if VERBOSE_LOGGING
 	__android_log_print(ANDROID_LOG_INFO, LOG_TAG, "JNI_OnLoad");
 #endif
 
-	for (int index = 0; index < MAX_CONTROLLERS; ++index)
+	for (int index = 0; index < MAX_PLAYERS; ++index)
 	{
 		g_axis.push_back(std::map<int, float>());
 		g_button.push_back(std::map<int, bool>());
@@ -184,11 +667,64 @@ jint JNI_OnLoad(JavaVM* vm, void* reserved)
         return JNI_ERR;
     }
 
+	clazz = env->FindClass("tv/ouya/sdk/OuyaSnapshotBuffer");
+	if (clazz)
+	{
+		jint ret = env->RegisterNatives(clazz, method_table8, method_table_size8);
+		env->DeleteLocalRef(clazz);
+	}
+	else
+	{
+		env->ExceptionClear();
+		__android_log_print(ANDROID_LOG_ERROR, LOG_TAG, "Failed to find OuyaSnapshotBuffer class");
+	}
+
+	clazz = env->FindClass("tv/ouya/sdk/OuyaSampleBuffer");
+	if (clazz)
+	{
+		jint ret = env->RegisterNatives(clazz, method_table10, method_table_size10);
+		env->DeleteLocalRef(clazz);
+	}
+	else
+	{
+		env->ExceptionClear();
+		__android_log_print(ANDROID_LOG_ERROR, LOG_TAG, "Failed to find OuyaSampleBuffer class");
+	}
+
+	clazz = env->FindClass("tv/ouya/sdk/OuyaNativeInputQueue");
+	if (clazz)
+	{
+		jint ret = env->RegisterNatives(clazz, method_table9, method_table_size9);
+		env->DeleteLocalRef(clazz);
+	}
+	else
+	{
+		env->ExceptionClear();
+		__android_log_print(ANDROID_LOG_ERROR, LOG_TAG, "Failed to find OuyaNativeInputQueue class");
+	}
+
 	clazz = env->FindClass("tv/ouya/sdk/OuyaInputView");
 	if (clazz)
 	{
 		jint ret = env->RegisterNatives(clazz, method_table, method_table_size);
 		ret = env->RegisterNatives(clazz, method_table2, method_table_size2);
+		ret = env->RegisterNatives(clazz, method_table7, method_table_size7);
+		if (ret == JNI_OK)
+		{
+			jfieldID fieldNativeBatchSupported = env->GetStaticFieldID(clazz, "sNativeBatchSupported", "Z");
+			if (fieldNativeBatchSupported)
+			{
+				env->SetStaticBooleanField(clazz, fieldNativeBatchSupported, true);
+			}
+			else
+			{
+				env->ExceptionClear();
+			}
+		}
+		else
+		{
+			env->ExceptionClear();
+		}
 		jfieldID fieldNativeInitialized = env->GetStaticFieldID(clazz, "sNativeInitialized", "Z");
 		if (fieldNativeInitialized)
 		{
@@ -248,11 +784,12 @@ extern "C"
 	float getAxis(int deviceId, int axis)
 	{
 		if (deviceId < 0 ||
-			deviceId >= MAX_CONTROLLERS)
+			deviceId >= MAX_PLAYERS)
 		{
 			return 0.0f;
 		}
 
+		StateLock lock;
 		std::map<int, float>::const_iterator search = g_axis[deviceId].find(axis);
 		if (search != g_axis[deviceId].end())
 		{
@@ -265,11 +802,12 @@ extern "C"
 	bool isPressed(int deviceId, int keyCode)
 	{
 		if (deviceId < 0 ||
-			deviceId >= MAX_CONTROLLERS)
+			deviceId >= MAX_PLAYERS)
 		{
 			return false;
 		}
 
+		StateLock lock;
 		std::map<int, bool>::const_iterator search = g_button[deviceId].find(keyCode);
 		if (search != g_button[deviceId].end())
 		{
@@ -282,11 +820,12 @@ extern "C"
 	bool isPressedDown(int deviceId, int keyCode)
 	{
 		if (deviceId < 0 ||
-			deviceId >= MAX_CONTROLLERS)
+			deviceId >= MAX_PLAYERS)
 		{
 			return false;
 		}
 
+		StateLock lock;
 		std::map<int, bool>::const_iterator search = g_lastButtonDown[deviceId].find(keyCode);
 		if (search != g_lastButtonDown[deviceId].end())
 		{
@@ -299,11 +838,12 @@ extern "C"
 	bool isPressedUp(int deviceId, int keyCode)
 	{
 		if (deviceId < 0 ||
-			deviceId >= MAX_CONTROLLERS)
+			deviceId >= MAX_PLAYERS)
 		{
 			return false;
 		}
 
+		StateLock lock;
 		std::map<int, bool>::const_iterator search = g_lastButtonUp[deviceId].find(keyCode);
 		if (search != g_lastButtonUp[deviceId].end())
 		{
@@ -312,6 +852,94 @@ extern "C"
 		return false;
 	}
 
+	// get the controller snapshot buffer, NULL until OuyaInputView registers it
+	// and while the input queue bypasses it
+	void* getControllerSnapshotBuffer()
+	{
+		if (g_inputQueueRequested)
+		{
+			return NULL;
+		}
+		return g_snapshotBuffer;
+	}
+
+	// get the input sample buffer filled by OuyaInputView.drainInputSampleBuffer,
+	// NULL until OuyaInputView registers it
+	void* getInputSampleBuffer()
+	{
+		return g_sampleBuffer;
+	}
+
+	// copy a consistent snapshot of a player's axes and button words
+	bool readControllerSnapshot(int deviceId, float* axes, int axisCount, int* buttons, int buttonCount, long long* timestamp)
+	{
+		unsigned char* buffer = g_snapshotBuffer;
+		if (NULL == buffer)
+		{
+			return false;
+		}
+
+		int playerCount = ((int*)buffer)[1];
+		int snapshotAxisCount = ((int*)buffer)[2];
+		int snapshotButtonCount = ((int*)buffer)[3];
+		if (deviceId < 0 ||
+			deviceId >= playerCount)
+		{
+			return false;
+		}
+
+		int slotSize = SNAPSHOT_SLOT_AXES_OFFSET + snapshotAxisCount * 4 + snapshotButtonCount * 4;
+		int playerSize = SNAPSHOT_PLAYER_SLOTS_OFFSET + slotSize * 2;
+		unsigned char* player = buffer + SNAPSHOT_HEADER_SIZE + playerSize * deviceId;
+		if (player + playerSize > buffer + g_snapshotBufferSize)
+		{
+			return false;
+		}
+
+		if (axisCount > snapshotAxisCount)
+		{
+			axisCount = snapshotAxisCount;
+		}
+		if (buttonCount > snapshotButtonCount)
+		{
+			buttonCount = snapshotButtonCount;
+		}
+
+		for (int retry = 0; retry < SNAPSHOT_MAX_RETRIES; ++retry)
+		{
+			int activeSlot = *((volatile int*)player) & 1;
+			unsigned char* slot = player + SNAPSHOT_PLAYER_SLOTS_OFFSET + slotSize * activeSlot;
+			volatile int* sequence = (volatile int*)slot;
+
+			int before = *sequence;
+			if (before & 1)
+			{
+				continue;
+			}
+			__sync_synchronize();
+
+			if (NULL != axes)
+			{
+				memcpy(axes, slot + SNAPSHOT_SLOT_AXES_OFFSET, axisCount * 4);
+			}
+			if (NULL != buttons)
+			{
+				memcpy(buttons, slot + SNAPSHOT_SLOT_AXES_OFFSET + snapshotAxisCount * 4, buttonCount * 4);
+			}
+			if (NULL != timestamp)
+			{
+				memcpy(timestamp, slot + SNAPSHOT_SLOT_TIMESTAMP_OFFSET, sizeof(long long));
+			}
+
+			__sync_synchronize();
+			if (*sequence == before)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
 	// clear the button state for detecting up and down
 	void clearButtonStates()
 	{
@@ -324,7 +952,8 @@ extern "C"
 		if (g_buttonUp.size() == 0) {
 			return;
 		}
-		for (int deviceId = 0; deviceId < MAX_CONTROLLERS; ++deviceId)
+		StateLock lock;
+		for (int deviceId = 0; deviceId < MAX_PLAYERS; ++deviceId)
 		{
 			g_lastButtonDown[deviceId].clear();
 			g_lastButtonUp[deviceId].clear();
@@ -349,7 +978,8 @@ extern "C"
 		if (g_axis.size() == 0) {
 			return;
 		}
-		for (int deviceId = 0; deviceId < MAX_CONTROLLERS; ++deviceId) {
+		StateLock lock;
+		for (int deviceId = 0; deviceId < MAX_PLAYERS; ++deviceId) {
 			g_axis[deviceId].clear();
 		}
 	}
@@ -366,7 +996,8 @@ extern "C"
 		if (g_buttonUp.size() == 0) {
 			return;
 		}
-		for (int deviceId = 0; deviceId < MAX_CONTROLLERS; ++deviceId) {
+		StateLock lock;
+		for (int deviceId = 0; deviceId < MAX_PLAYERS; ++deviceId) {
 			g_button[deviceId].clear();
 			g_buttonDown[deviceId].clear();
 			g_buttonUp[deviceId].clear();
@@ -718,12 +1349,26 @@ bus_str(int bus)
 }
 
 void setTurretMouseInfoNative(JNIEnv* env, jobject obj, jint index, jint value) {
+    if (index < 0 ||
+        index >= TURRET_MOUSE_INFO_COUNT) {
+        return;
+    }
     g_turretMouseInfo[index] = value;
 }
 
+// sets the indexes in mask from one mouse report
+void setTurretMouseInfoBulkNative(JNIEnv* env, jobject obj, jint mask, jint buttons, jint deltaX, jint deltaY, jint wheel, jint x, jint y) {
+    const int values[TURRET_MOUSE_INFO_COUNT] = { buttons, deltaX, deltaY, wheel, x, y };
+    for (int index = 0; index < TURRET_MOUSE_INFO_COUNT; ++index) {
+        if (mask & (1 << index)) {
+            g_turretMouseInfo[index] = values[index];
+        }
+    }
+}
+
 extern "C" int getTurretMouseInfo(int index) {
     if (index < 0 ||
-        index > 6) {
+        index >= TURRET_MOUSE_INFO_COUNT) {
         return 0;
     }
     return g_turretMouseInfo[index];
@@ -96,6 +96,41 @@ public class OuyaGameObject : MonoBehaviour
         }
     }
 
+    private const int CONTROLLER_CONNECTED = 0;
+    private const int CONTROLLER_DISCONNECTED = 1;
+    private const int CONTROLLER_REASSIGNED = 2;
+
+    public void onControllerEvent(string data)
+    {
+        // event,player,deviceId,capabilities,name with the name last as it may hold commas
+        string[] fields = data.Split(new char[] { ',' }, 5);
+        if (fields.Length < 5)
+        {
+            Debug.LogError(string.Format("onControllerEvent: Malformed event {0}", data));
+            return;
+        }
+        int controllerEvent = int.Parse(fields[0]);
+        int playerNum = int.Parse(fields[1]);
+        int deviceId = int.Parse(fields[2]);
+        int capabilities = int.Parse(fields[3]);
+        string name = fields[4];
+        foreach (OuyaSDK.IControllerConnectionListener listener in OuyaSDK.getControllerConnectionListeners())
+        {
+            switch (controllerEvent)
+            {
+                case CONTROLLER_CONNECTED:
+                    listener.OuyaOnControllerConnected(playerNum, deviceId, capabilities, name);
+                    break;
+                case CONTROLLER_DISCONNECTED:
+                    listener.OuyaOnControllerDisconnected(playerNum, deviceId);
+                    break;
+                case CONTROLLER_REASSIGNED:
+                    listener.OuyaOnControllerReassigned(playerNum, deviceId, capabilities, name);
+                    break;
+            }
+        }
+    }
+
 #endif
 
     #endregion
@@ -143,6 +143,8 @@ namespace tv.ouya.console.api
         public const int AXIS_RS_Y = 14;
         public const int AXIS_L2 = 17;
         public const int AXIS_R2 = 18;
+        public const int AXIS_HAT_X = 15;
+        public const int AXIS_HAT_Y = 16;
 
         public const int BUTTON_O = 96;
         public const int BUTTON_U = 99;
@@ -150,6 +152,8 @@ namespace tv.ouya.console.api
         public const int BUTTON_A = 97;
         public const int BUTTON_L1 = 102;
         public const int BUTTON_R1 = 103;
+        public const int BUTTON_L2 = 104;
+        public const int BUTTON_R2 = 105;
         public const int BUTTON_L3 = 106;
         public const int BUTTON_R3 = 107;
         public const int BUTTON_DPAD_UP = 19;
@@ -160,6 +164,12 @@ namespace tv.ouya.console.api
 
         public const int MAX_CONTROLLERS = 4;
 
+        /// <summary>
+        /// Player slots with input state, controllers past the ones
+        /// OUYA pairs take the free slots
+        /// </summary>
+        public const int MAX_PLAYERS = 8;
+
 #if UNITY_ANDROID && !UNITY_EDITOR
 
         private static IntPtr _jcOuyaController = IntPtr.Zero;
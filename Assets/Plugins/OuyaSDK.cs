@@ -92,6 +92,14 @@ public static class OuyaSDK
         [DllImport("lib-ouya-ndk")]
         // EXPORT_API int getTurretMouseInfo(int index)
         public static extern int getTurretMouseInfo(int index);
+
+        [DllImport("lib-ouya-ndk")]
+        // EXPORT_API void* getControllerSnapshotBuffer()
+        public static extern IntPtr getControllerSnapshotBuffer();
+
+        [DllImport("lib-ouya-ndk")]
+        // EXPORT_API void* getInputSampleBuffer()
+        public static extern IntPtr getInputSampleBuffer();
     }
 #endif
 
@@ -107,9 +115,300 @@ public static class OuyaSDK
         private static List<Dictionary<int, bool>> m_buttonDownStates = new List<Dictionary<int, bool>>();
         private static List<Dictionary<int, bool>> m_buttonUpStates = new List<Dictionary<int, bool>>();
 
+        #region Frame Aligned Input
+
+        private static bool m_frameAlignedInput = false;
+
+        /// <summary>
+        /// When enabled, input events are queued on the Java side and applied
+        /// once per frame at the start of UpdateInputFrame
+        /// </summary>
+        public static void SetFrameAlignedInput(bool enabled)
+        {
+            lock (m_lockObject)
+            {
+                OuyaUnityPlugin.setFrameAlignedInput(enabled);
+                m_frameAlignedInput = enabled;
+            }
+        }
+
+        public static bool IsFrameAlignedInput()
+        {
+            return m_frameAlignedInput;
+        }
+
+        #endregion
+
+        #region Input Samples
+
+        // layout of the sample buffer written by OuyaSampleBuffer.java
+        private const int SAMPLE_BUFFER_MAGIC = 0x4F555331;
+        private const int SAMPLE_BUFFER_HEADER_SIZE = 16;
+
+        private static bool m_sampleBufferChecked = false;
+        private static IntPtr m_sampleBuffer = IntPtr.Zero;
+        private static int m_sampleBufferCapacity = 0;
+        private static int m_sampleBufferAxisCount = 0;
+        private static int m_sampleBufferTimestampsOffset = 0;
+
+        private static bool InitSampleBuffer()
+        {
+            if (m_sampleBufferChecked)
+            {
+                return m_sampleBuffer != IntPtr.Zero;
+            }
+
+            IntPtr buffer = IntPtr.Zero;
+            try
+            {
+                buffer = NdkWrapper.getInputSampleBuffer();
+            }
+            catch (EntryPointNotFoundException)
+            {
+                // older lib-ouya-ndk, keep draining through Java arrays
+                m_sampleBufferChecked = true;
+                return false;
+            }
+
+            m_sampleBufferChecked = true;
+            if (buffer == IntPtr.Zero)
+            {
+                return false;
+            }
+            if (Marshal.ReadInt32(buffer, 0) != SAMPLE_BUFFER_MAGIC)
+            {
+                Debug.LogError("Input sample buffer has an unknown layout");
+                return false;
+            }
+
+            m_sampleBufferCapacity = Marshal.ReadInt32(buffer, 4);
+            m_sampleBufferAxisCount = Marshal.ReadInt32(buffer, 8);
+            m_sampleBufferTimestampsOffset = Marshal.ReadInt32(buffer, 12);
+            m_sampleBuffer = buffer;
+            return true;
+        }
+
+        /// <summary>
+        /// Drain a player's samples with one JNI call and copy them out of the
+        /// shared sample buffer with plain memory reads
+        /// </summary>
+        /// <returns>number of samples copied, or -1 when the buffer is not available</returns>
+        public static int DrainSampleBuffer(int playerNum, float[] axes, long[] timestamps)
+        {
+            if (!InitSampleBuffer() ||
+                m_sampleBufferAxisCount != OuyaUnityPlugin.SAMPLE_AXIS_COUNT)
+            {
+                return -1;
+            }
+
+            int capacity = Math.Min(timestamps.Length, axes.Length / m_sampleBufferAxisCount);
+            int count = OuyaUnityPlugin.drainInputSampleBuffer(playerNum, Math.Min(capacity, m_sampleBufferCapacity));
+            if (count > 0)
+            {
+                Marshal.Copy(new IntPtr(m_sampleBuffer.ToInt64() + SAMPLE_BUFFER_HEADER_SIZE), axes, 0, count * m_sampleBufferAxisCount);
+                Marshal.Copy(new IntPtr(m_sampleBuffer.ToInt64() + m_sampleBufferTimestampsOffset), timestamps, 0, count);
+            }
+            return count;
+        }
+
+        #endregion
+
+        #region Controller Snapshot
+
+        // layout of the snapshot buffer written by OuyaSnapshotBuffer.java
+        private const int SNAPSHOT_MAGIC = 0x4F555931;
+        private const int SNAPSHOT_HEADER_SIZE = 16;
+        private const int SNAPSHOT_SLOT_AXES_OFFSET = 16;
+        private const int SNAPSHOT_PLAYER_SLOTS_OFFSET = 8;
+        private const int SNAPSHOT_MAX_RETRIES = 8;
+
+        private static bool m_snapshotChecked = false;
+        private static IntPtr m_snapshotBuffer = IntPtr.Zero;
+        private static int m_snapshotPlayerCount = 0;
+        private static int m_snapshotAxisCount = 0;
+        private static int m_snapshotButtonWords = 0;
+        private static float[] m_snapshotAxes = null;
+        private static int[] m_snapshotButtons = null;
+
+        // every player's state copied with one call when the shared buffer is not available
+        private static float[] m_pulledAxes = new float[OuyaController.MAX_PLAYERS * OuyaUnityPlugin.SNAPSHOT_AXIS_COUNT];
+        private static int[] m_pulledButtons = new int[OuyaController.MAX_PLAYERS];
+        private static int m_pulledPlayerCount = 0;
+        private static bool m_snapshotDisabled = false;
+
+        private static bool InitSnapshotBuffer()
+        {
+            if (m_snapshotChecked)
+            {
+                return m_snapshotBuffer != IntPtr.Zero;
+            }
+
+            IntPtr buffer = IntPtr.Zero;
+            try
+            {
+                buffer = NdkWrapper.getControllerSnapshotBuffer();
+            }
+            catch (EntryPointNotFoundException)
+            {
+                // older lib-ouya-ndk, keep reading through getAxis and isPressed
+                m_snapshotChecked = true;
+                return false;
+            }
+
+            // OuyaInputView registers the buffer once the native plugin loads
+            if (buffer == IntPtr.Zero)
+            {
+                return false;
+            }
+
+            m_snapshotChecked = true;
+            if (Marshal.ReadInt32(buffer, 0) != SNAPSHOT_MAGIC)
+            {
+                Debug.LogError("Controller snapshot buffer has an unknown layout");
+                return false;
+            }
+
+            m_snapshotPlayerCount = Marshal.ReadInt32(buffer, 4);
+            m_snapshotAxisCount = Marshal.ReadInt32(buffer, 8);
+            m_snapshotButtonWords = Marshal.ReadInt32(buffer, 12);
+            m_snapshotAxes = new float[m_snapshotAxisCount];
+            m_snapshotButtons = new int[m_snapshotButtonWords];
+            m_snapshotBuffer = buffer;
+            return true;
+        }
+
+        /// <summary>
+        /// Copy a player's state out of the shared snapshot buffer with plain memory reads
+        /// </summary>
+        private static bool ReadSnapshot(int deviceId)
+        {
+            if (!InitSnapshotBuffer() ||
+                deviceId < 0 ||
+                deviceId >= m_snapshotPlayerCount)
+            {
+                return false;
+            }
+
+            int slotSize = SNAPSHOT_SLOT_AXES_OFFSET + (m_snapshotAxisCount + m_snapshotButtonWords) * 4;
+            int playerSize = SNAPSHOT_PLAYER_SLOTS_OFFSET + slotSize * 2;
+            IntPtr player = new IntPtr(m_snapshotBuffer.ToInt64() + SNAPSHOT_HEADER_SIZE + playerSize * deviceId);
+
+            for (int retry = 0; retry < SNAPSHOT_MAX_RETRIES; ++retry)
+            {
+                int activeSlot = Marshal.ReadInt32(player, 0) & 1;
+                IntPtr slot = new IntPtr(player.ToInt64() + SNAPSHOT_PLAYER_SLOTS_OFFSET + slotSize * activeSlot);
+                int before = Marshal.ReadInt32(slot, 0);
+                if ((before & 1) != 0)
+                {
+                    continue;
+                }
+                System.Threading.Thread.MemoryBarrier();
+                Marshal.Copy(new IntPtr(slot.ToInt64() + SNAPSHOT_SLOT_AXES_OFFSET), m_snapshotAxes, 0, m_snapshotAxisCount);
+                Marshal.Copy(new IntPtr(slot.ToInt64() + SNAPSHOT_SLOT_AXES_OFFSET + m_snapshotAxisCount * 4), m_snapshotButtons, 0, m_snapshotButtonWords);
+                System.Threading.Thread.MemoryBarrier();
+                if (Marshal.ReadInt32(slot, 0) == before)
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /// <summary>
+        /// Copy every player's axes and button mask out of the shared snapshot
+        /// buffer in the OuyaUnityPlugin.getControllerSnapshot layout, without a JNI call
+        /// </summary>
+        /// <returns>number of players copied, 0 when the buffer is not available, or -1 when a player changed during every read attempt</returns>
+        public static int CopySnapshot(float[] axes, int[] buttons)
+        {
+            lock (m_lockObject)
+            {
+                if (m_snapshotDisabled ||
+                    !InitSnapshotBuffer())
+                {
+                    return 0;
+                }
+
+                int playerCount = Math.Min(m_snapshotPlayerCount, Math.Min(buttons.Length, axes.Length / OuyaUnityPlugin.SNAPSHOT_AXIS_COUNT));
+                for (int deviceId = 0; deviceId < playerCount; ++deviceId)
+                {
+                    if (!ReadSnapshot(deviceId))
+                    {
+                        return -1;
+                    }
+                    int offset = deviceId * OuyaUnityPlugin.SNAPSHOT_AXIS_COUNT;
+                    for (int index = 0; index < OuyaUnityPlugin.SNAPSHOT_AXIS_COUNT; ++index)
+                    {
+                        axes[offset + index] = m_snapshotAxes[OuyaUnityPlugin.SNAPSHOT_AXES[index]];
+                    }
+                    int mask = 0;
+                    for (int bit = 0; bit < OuyaUnityPlugin.SNAPSHOT_BUTTONS.Length; ++bit)
+                    {
+                        int keyCode = OuyaUnityPlugin.SNAPSHOT_BUTTONS[bit];
+                        if ((m_snapshotButtons[keyCode >> 5] & (1 << (keyCode & 31))) != 0)
+                        {
+                            mask |= 1 << bit;
+                        }
+                    }
+                    buttons[deviceId] = mask;
+                }
+                return playerCount;
+            }
+        }
+
+        /// <summary>
+        /// Stop reading the snapshot buffer, used when the plugin input is bypassed
+        /// </summary>
+        public static void DisableSnapshot()
+        {
+            m_snapshotChecked = true;
+            m_snapshotBuffer = IntPtr.Zero;
+            m_snapshotDisabled = true;
+        }
+
+        private static float ReadAxis(bool hasSnapshot, int deviceId, int axis)
+        {
+            if (hasSnapshot &&
+                axis >= 0 &&
+                axis < m_snapshotAxisCount)
+            {
+                return m_snapshotAxes[axis];
+            }
+            if (deviceId < m_pulledPlayerCount)
+            {
+                int index = Array.IndexOf(OuyaUnityPlugin.SNAPSHOT_AXES, axis);
+                if (index >= 0)
+                {
+                    return m_pulledAxes[deviceId * OuyaUnityPlugin.SNAPSHOT_AXIS_COUNT + index];
+                }
+            }
+            return NdkWrapper.getAxis(deviceId, axis);
+        }
+
+        private static bool ReadButton(bool hasSnapshot, int deviceId, int keyCode)
+        {
+            if (hasSnapshot &&
+                keyCode >= 0 &&
+                (keyCode >> 5) < m_snapshotButtonWords)
+            {
+                return (m_snapshotButtons[keyCode >> 5] & (1 << (keyCode & 31))) != 0;
+            }
+            if (deviceId < m_pulledPlayerCount)
+            {
+                int bit = Array.IndexOf(OuyaUnityPlugin.SNAPSHOT_BUTTONS, keyCode);
+                if (bit >= 0)
+                {
+                    return (m_pulledButtons[deviceId] & (1 << bit)) != 0;
+                }
+            }
+            return NdkWrapper.isPressed(deviceId, keyCode);
+        }
+
+        #endregion
+
         static OuyaInput()
         {
-            for (int deviceId = 0; deviceId < OuyaController.MAX_CONTROLLERS; ++deviceId)
+            for (int deviceId = 0; deviceId < OuyaController.MAX_PLAYERS; ++deviceId)
             {
                 m_axisStates.Add(new Dictionary<int, float>());
                 m_buttonStates.Add(new Dictionary<int, bool>());
@@ -178,17 +477,44 @@ public static class OuyaSDK
 
             lock (m_lockObject)
             {
-                for (int deviceId = 0; deviceId < OuyaController.MAX_CONTROLLERS; ++deviceId)
+                if (m_frameAlignedInput)
+                {
+                    OuyaUnityPlugin.pumpInputQueue();
+                }
+
+                // without the shared buffer, one call copies every player instead of one per axis and button
+                m_pulledPlayerCount = 0;
+                if (!m_frameAlignedInput &&
+                    !m_snapshotDisabled &&
+                    !InitSnapshotBuffer())
+                {
+                    m_pulledPlayerCount = OuyaUnityPlugin.getControllerSnapshot(m_pulledAxes, m_pulledButtons);
+                    // nothing is pulled while the native input queue updates the state behind getAxis and isPressed
+                    if (m_pulledPlayerCount == 0)
+                    {
+                        DisableSnapshot();
+                    }
+                    // a player changed during every read attempt, read per axis and button this frame
+                    else if (m_pulledPlayerCount < 0)
+                    {
+                        m_pulledPlayerCount = 0;
+                    }
+                }
+
+                for (int deviceId = 0; deviceId < OuyaController.MAX_PLAYERS; ++deviceId)
                 {
+                    // the snapshot runs ahead of the queued events, so read the native state instead
+                    bool hasSnapshot = !m_frameAlignedInput && ReadSnapshot(deviceId);
+
     #region Track Axis States
 
                     Dictionary<int, float> axisState = m_axisStates[deviceId];
-                    axisState[OuyaController.AXIS_LS_X] = NdkWrapper.getAxis(deviceId, OuyaController.AXIS_LS_X);
-                    axisState[OuyaController.AXIS_LS_Y] = NdkWrapper.getAxis(deviceId, OuyaController.AXIS_LS_Y);
-                    axisState[OuyaController.AXIS_RS_X] = NdkWrapper.getAxis(deviceId, OuyaController.AXIS_RS_X);
-                    axisState[OuyaController.AXIS_RS_Y] = NdkWrapper.getAxis(deviceId, OuyaController.AXIS_RS_Y);
-                    axisState[OuyaController.AXIS_L2] = NdkWrapper.getAxis(deviceId, OuyaController.AXIS_L2);
-                    axisState[OuyaController.AXIS_R2] = NdkWrapper.getAxis(deviceId, OuyaController.AXIS_R2);
+                    axisState[OuyaController.AXIS_LS_X] = ReadAxis(hasSnapshot, deviceId, OuyaController.AXIS_LS_X);
+                    axisState[OuyaController.AXIS_LS_Y] = ReadAxis(hasSnapshot, deviceId, OuyaController.AXIS_LS_Y);
+                    axisState[OuyaController.AXIS_RS_X] = ReadAxis(hasSnapshot, deviceId, OuyaController.AXIS_RS_X);
+                    axisState[OuyaController.AXIS_RS_Y] = ReadAxis(hasSnapshot, deviceId, OuyaController.AXIS_RS_Y);
+                    axisState[OuyaController.AXIS_L2] = ReadAxis(hasSnapshot, deviceId, OuyaController.AXIS_L2);
+                    axisState[OuyaController.AXIS_R2] = ReadAxis(hasSnapshot, deviceId, OuyaController.AXIS_R2);
 
     #endregion
 
@@ -198,19 +524,19 @@ public static class OuyaSDK
                     Dictionary<int, bool> buttonDownState = m_buttonDownStates[deviceId];
                     Dictionary<int, bool> buttonUpState = m_buttonUpStates[deviceId];
 
-                    buttonState[OuyaController.BUTTON_O] = NdkWrapper.isPressed(deviceId, OuyaController.BUTTON_O);
-                    buttonState[OuyaController.BUTTON_U] = NdkWrapper.isPressed(deviceId, OuyaController.BUTTON_U);
-                    buttonState[OuyaController.BUTTON_Y] = NdkWrapper.isPressed(deviceId, OuyaController.BUTTON_Y);
-                    buttonState[OuyaController.BUTTON_A] = NdkWrapper.isPressed(deviceId, OuyaController.BUTTON_A);
-                    buttonState[OuyaController.BUTTON_L1] = NdkWrapper.isPressed(deviceId, OuyaController.BUTTON_L1);
-                    buttonState[OuyaController.BUTTON_R1] = NdkWrapper.isPressed(deviceId, OuyaController.BUTTON_R1);
-                    buttonState[OuyaController.BUTTON_L3] = NdkWrapper.isPressed(deviceId, OuyaController.BUTTON_L3);
-                    buttonState[OuyaController.BUTTON_R3] = NdkWrapper.isPressed(deviceId, OuyaController.BUTTON_R3);
-                    buttonState[OuyaController.BUTTON_DPAD_UP] = NdkWrapper.isPressed(deviceId, OuyaController.BUTTON_DPAD_UP);
-                    buttonState[OuyaController.BUTTON_DPAD_DOWN] = NdkWrapper.isPressed(deviceId, OuyaController.BUTTON_DPAD_DOWN);
-                    buttonState[OuyaController.BUTTON_DPAD_RIGHT] = NdkWrapper.isPressed(deviceId, OuyaController.BUTTON_DPAD_RIGHT);
-                    buttonState[OuyaController.BUTTON_DPAD_LEFT] = NdkWrapper.isPressed(deviceId, OuyaController.BUTTON_DPAD_LEFT);
-                    buttonState[OuyaController.BUTTON_MENU] = NdkWrapper.isPressed(deviceId, OuyaController.BUTTON_MENU);
+                    buttonState[OuyaController.BUTTON_O] = ReadButton(hasSnapshot, deviceId, OuyaController.BUTTON_O);
+                    buttonState[OuyaController.BUTTON_U] = ReadButton(hasSnapshot, deviceId, OuyaController.BUTTON_U);
+                    buttonState[OuyaController.BUTTON_Y] = ReadButton(hasSnapshot, deviceId, OuyaController.BUTTON_Y);
+                    buttonState[OuyaController.BUTTON_A] = ReadButton(hasSnapshot, deviceId, OuyaController.BUTTON_A);
+                    buttonState[OuyaController.BUTTON_L1] = ReadButton(hasSnapshot, deviceId, OuyaController.BUTTON_L1);
+                    buttonState[OuyaController.BUTTON_R1] = ReadButton(hasSnapshot, deviceId, OuyaController.BUTTON_R1);
+                    buttonState[OuyaController.BUTTON_L3] = ReadButton(hasSnapshot, deviceId, OuyaController.BUTTON_L3);
+                    buttonState[OuyaController.BUTTON_R3] = ReadButton(hasSnapshot, deviceId, OuyaController.BUTTON_R3);
+                    buttonState[OuyaController.BUTTON_DPAD_UP] = ReadButton(hasSnapshot, deviceId, OuyaController.BUTTON_DPAD_UP);
+                    buttonState[OuyaController.BUTTON_DPAD_DOWN] = ReadButton(hasSnapshot, deviceId, OuyaController.BUTTON_DPAD_DOWN);
+                    buttonState[OuyaController.BUTTON_DPAD_RIGHT] = ReadButton(hasSnapshot, deviceId, OuyaController.BUTTON_DPAD_RIGHT);
+                    buttonState[OuyaController.BUTTON_DPAD_LEFT] = ReadButton(hasSnapshot, deviceId, OuyaController.BUTTON_DPAD_LEFT);
+                    buttonState[OuyaController.BUTTON_MENU] = ReadButton(hasSnapshot, deviceId, OuyaController.BUTTON_MENU);
 
                     buttonDownState[OuyaController.BUTTON_O] = NdkWrapper.isPressedDown(deviceId, OuyaController.BUTTON_O);
                     buttonDownState[OuyaController.BUTTON_U] = NdkWrapper.isPressedDown(deviceId, OuyaController.BUTTON_U);
@@ -405,7 +731,7 @@ public static class OuyaSDK
 
         public static bool GetButton(int button)
         {
-            for (int playerNum = 0; playerNum < OuyaController.MAX_CONTROLLERS; ++playerNum)
+            for (int playerNum = 0; playerNum < OuyaController.MAX_PLAYERS; ++playerNum)
             {
                 if (GetButton(playerNum, button))
                 {
@@ -431,7 +757,7 @@ public static class OuyaSDK
 
         public static bool GetButtonDown(int button)
         {
-            for (int playerNum = 0; playerNum < OuyaController.MAX_CONTROLLERS; ++playerNum)
+            for (int playerNum = 0; playerNum < OuyaController.MAX_PLAYERS; ++playerNum)
             {
                 if (GetButtonDown(playerNum, button))
                 {
@@ -457,7 +783,7 @@ public static class OuyaSDK
 
         public static bool GetButtonUp(int button)
         {
-            for (int playerNum = 0; playerNum < OuyaController.MAX_CONTROLLERS; ++playerNum)
+            for (int playerNum = 0; playerNum < OuyaController.MAX_PLAYERS; ++playerNum)
             {
                 if (GetButtonUp(playerNum, button))
                 {
@@ -758,6 +1084,7 @@ public static class OuyaSDK
             return;
         }
         OuyaUnityPlugin.useDefaultInput();
+        OuyaInput.DisableSnapshot();
         OuyaInput.ClearAxes();
         OuyaInput.ClearButtons();
         OuyaInput.ClearButtonStates();
@@ -784,6 +1111,273 @@ public static class OuyaSDK
         OuyaUnityPlugin.enableGenericAsTurretMouse();
     }
 
+    /// <summary>
+    /// Axis changes at or below epsilon are not sent to the native plugin
+    /// </summary>
+    /// <param name="epsilon"></param>
+    public static void setAxisEpsilon(float epsilon)
+    {
+        if (!isIAPInitComplete())
+        {
+            return;
+        }
+        OuyaUnityPlugin.setAxisEpsilon(epsilon);
+    }
+
+    /// <summary>
+    /// Number of axis, dpad and key dispatches skipped because nothing changed
+    /// </summary>
+    public static long getSuppressedInputDispatchCount()
+    {
+        if (!isIAPInitComplete())
+        {
+            return 0;
+        }
+        return OuyaUnityPlugin.getSuppressedInputDispatchCount();
+    }
+
+    /// <summary>
+    /// Forwards auto-repeat key events while a button is held, off by default
+    /// </summary>
+    /// <param name="enabled"></param>
+    public static void setKeyRepeatEnabled(bool enabled)
+    {
+        if (!isIAPInitComplete())
+        {
+            return;
+        }
+        OuyaUnityPlugin.setKeyRepeatEnabled(enabled);
+    }
+
+    /// <summary>
+    /// One bit per player slot held by a controller, up to
+    /// OuyaController.MAX_PLAYERS
+    /// </summary>
+    public static int getActivePlayerMask()
+    {
+        if (!isIAPInitComplete())
+        {
+            return 0;
+        }
+        return OuyaUnityPlugin.getActivePlayerMask();
+    }
+
+    /// <summary>
+    /// Copies every controller sample received since the last call, oldest
+    /// first. axes holds OuyaUnityPlugin.SAMPLE_AXIS_COUNT values per sample
+    /// and timestamps are in nanoseconds. The first call starts sampling.
+    /// </summary>
+    /// <returns>number of samples copied</returns>
+    public static int drainInputSamples(int playerNum, float[] axes, long[] timestamps)
+    {
+        if (!isIAPInitComplete() ||
+            null == axes ||
+            null == timestamps)
+        {
+            return 0;
+        }
+        // one JNI call and plain memory copies from the shared buffer, Java arrays with an older lib-ouya-ndk
+        int count = OuyaInput.DrainSampleBuffer(playerNum, axes, timestamps);
+        if (count >= 0)
+        {
+            return count;
+        }
+        return OuyaUnityPlugin.drainInputSamples(playerNum, axes, timestamps);
+    }
+
+    /// <summary>
+    /// Copies every player's axes and button mask in one shot, see
+    /// OuyaUnityPlugin.SNAPSHOT_AXES and OuyaUnityPlugin.SNAPSHOT_BUTTONS for the layout
+    /// </summary>
+    /// <returns>number of players copied, or -1 when the state changed during the read and the arrays must not be used</returns>
+    public static int getControllerSnapshot(float[] axes, int[] buttons)
+    {
+        if (!isIAPInitComplete() ||
+            null == axes ||
+            null == buttons)
+        {
+            return 0;
+        }
+        // plain memory reads from the shared buffer, one JNI call with an older lib-ouya-ndk
+        int count = OuyaInput.CopySnapshot(axes, buttons);
+        if (count != 0)
+        {
+            return count;
+        }
+        return OuyaUnityPlugin.getControllerSnapshot(axes, buttons);
+    }
+
+    /// <summary>
+    /// Record how long input events take to reach the native plugin
+    /// </summary>
+    /// <param name="enabled"></param>
+    public static void setInputLatencyTracking(bool enabled)
+    {
+        if (!isIAPInitComplete())
+        {
+            return;
+        }
+        OuyaUnityPlugin.setInputLatencyTracking(enabled);
+    }
+
+    /// <summary>
+    /// Latency histograms per player and input source as JSON
+    /// </summary>
+    public static string getInputLatencyJson()
+    {
+        if (!isIAPInitComplete())
+        {
+            return null;
+        }
+        return OuyaUnityPlugin.getInputLatencyJson();
+    }
+
+    /// <summary>
+    /// Clear the latency histograms
+    /// </summary>
+    public static void resetInputLatency()
+    {
+        if (!isIAPInitComplete())
+        {
+            return;
+        }
+        OuyaUnityPlugin.resetInputLatency();
+    }
+
+    public const int STICK_LEFT = 0;
+    public const int STICK_RIGHT = 1;
+
+    public const int DEAD_ZONE_NONE = 0;
+    public const int DEAD_ZONE_AXIAL = 1;
+    public const int DEAD_ZONE_RADIAL = 2;
+    public const int DEAD_ZONE_SCALED_RADIAL = 3;
+
+    /// <summary>
+    /// Set the dead zone and response curve applied to a stick before its
+    /// axes reach OuyaInput. Use playerNum -1 for every player.
+    /// </summary>
+    /// <param name="exponent">response curve exponent, 1 is linear</param>
+    public static bool setStickResponse(int playerNum, int stick, int deadZoneType, float deadZone, float exponent)
+    {
+        if (!isIAPInitComplete())
+        {
+            return false;
+        }
+        return OuyaUnityPlugin.setStickResponse(playerNum, stick, deadZoneType, deadZone, exponent);
+    }
+
+    /// <summary>
+    /// Record every input value sent to the native plugin into a binary file
+    /// </summary>
+    public static bool startInputRecording(string path)
+    {
+        if (!isIAPInitComplete())
+        {
+            return false;
+        }
+        return OuyaUnityPlugin.startInputRecording(path);
+    }
+
+    /// <summary>
+    /// Stop recording and close the file
+    /// </summary>
+    /// <returns>number of records written</returns>
+    public static long stopInputRecording()
+    {
+        if (!isIAPInitComplete())
+        {
+            return 0;
+        }
+        return OuyaUnityPlugin.stopInputRecording();
+    }
+
+    /// <summary>
+    /// Replay a recording at its original timing, or as fast as possible
+    /// when realTime is false
+    /// </summary>
+    public static bool startInputReplay(string path, bool realTime)
+    {
+        if (!isIAPInitComplete())
+        {
+            return false;
+        }
+        return OuyaUnityPlugin.startInputReplay(path, realTime);
+    }
+
+    public static void stopInputReplay()
+    {
+        if (!isIAPInitComplete())
+        {
+            return;
+        }
+        OuyaUnityPlugin.stopInputReplay();
+    }
+
+    public static bool isInputReplaying()
+    {
+        if (!isIAPInitComplete())
+        {
+            return false;
+        }
+        return OuyaUnityPlugin.isInputReplaying();
+    }
+
+    /// <summary>
+    /// Processes controller input on a dedicated high priority thread
+    /// instead of the Android UI thread, off by default
+    /// </summary>
+    /// <param name="enabled"></param>
+    public static void setInputThreadEnabled(bool enabled)
+    {
+        if (!isIAPInitComplete())
+        {
+            return;
+        }
+        OuyaUnityPlugin.setInputThreadEnabled(enabled);
+    }
+
+    /// <summary>
+    /// True when controller events are read by the native input queue,
+    /// enabled with the tv.ouya.sdk.native_input_queue activity meta-data
+    /// </summary>
+    public static bool isNativeInputQueueActive()
+    {
+        if (!isIAPInitComplete())
+        {
+            return false;
+        }
+        return OuyaUnityPlugin.isNativeInputQueueActive();
+    }
+
+    /// <summary>
+    /// Pushes controller connect, disconnect and reassign events to the
+    /// IControllerConnectionListeners, starting with the controllers already
+    /// attached, so the player list does not have to be polled
+    /// </summary>
+    /// <param name="enabled"></param>
+    public static void setControllerEventsEnabled(bool enabled)
+    {
+        if (!isIAPInitComplete())
+        {
+            return;
+        }
+        OuyaUnityPlugin.setControllerEventsEnabled(enabled);
+    }
+
+    /// <summary>
+    /// Step the Turret mouse connection is in: 0 idle, 1 scanning, 2 bonding,
+    /// 3 connecting, 4 discovering, 5 reading info, 6 subscribing,
+    /// 7 connected, or -1 when the mouse service is not bound
+    /// </summary>
+    public static int getTurretMouseConnectionState()
+    {
+        if (!isIAPInitComplete())
+        {
+            return -1;
+        }
+        return OuyaUnityPlugin.getTurretMouseConnectionState();
+    }
+
 #endif
 
     #endregion
@@ -1044,6 +1638,45 @@ public static class OuyaSDK
 
     #endregion
 
+    #region Controller Connection Listeners
+
+    /// <summary>
+    /// Capability bits passed to IControllerConnectionListener
+    /// </summary>
+    public const int CONTROLLER_CAPABILITY_GAMEPAD = 1;
+    public const int CONTROLLER_CAPABILITY_JOYSTICK = 2;
+    public const int CONTROLLER_CAPABILITY_DPAD = 4;
+    public const int CONTROLLER_CAPABILITY_MAPPED = 8;
+    public const int CONTROLLER_CAPABILITY_VIBRATOR = 16;
+
+    public interface IControllerConnectionListener
+    {
+        void OuyaOnControllerConnected(int playerNum, int deviceId, int capabilities, string name);
+        void OuyaOnControllerDisconnected(int playerNum, int deviceId);
+        void OuyaOnControllerReassigned(int playerNum, int deviceId, int capabilities, string name);
+    }
+    private static List<IControllerConnectionListener> m_controllerConnectionListeners = new List<IControllerConnectionListener>();
+    public static List<IControllerConnectionListener> getControllerConnectionListeners()
+    {
+        return m_controllerConnectionListeners;
+    }
+    public static void registerControllerConnectionListener(IControllerConnectionListener listener)
+    {
+        if (!m_controllerConnectionListeners.Contains(listener))
+        {
+            m_controllerConnectionListeners.Add(listener);
+        }
+    }
+    public static void unregisterControllerConnectionListener(IControllerConnectionListener listener)
+    {
+        if (m_controllerConnectionListeners.Contains(listener))
+        {
+            m_controllerConnectionListeners.Remove(listener);
+        }
+    }
+
+    #endregion
+
     #region Content Initialized Listener
 
     public interface IContentInitializedListener
@@ -1444,6 +1444,812 @@ namespace tv.ouya.sdk
             AndroidJNI.CallStaticVoidMethod(_jcOuyaUnityPlugin, method, new jvalue[] { });
         }
 
+        public static void setAxisEpsilon(float epsilon)
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return;
+            }
+
+            string strMethod = "setAxisEpsilon";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "(F)V");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return;
+            }
+
+            AndroidJNI.CallStaticVoidMethod(_jcOuyaUnityPlugin, method, new jvalue[1] { new jvalue() { f = epsilon } });
+        }
+
+        public static long getSuppressedInputDispatchCount()
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return 0;
+            }
+
+            string strMethod = "getSuppressedInputDispatchCount";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "()J");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return 0;
+            }
+
+            return AndroidJNI.CallStaticLongMethod(_jcOuyaUnityPlugin, method, new jvalue[] { });
+        }
+
+        public static void setKeyRepeatEnabled(bool enabled)
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return;
+            }
+
+            string strMethod = "setKeyRepeatEnabled";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "(Z)V");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return;
+            }
+
+            AndroidJNI.CallStaticVoidMethod(_jcOuyaUnityPlugin, method, new jvalue[1] { new jvalue() { z = enabled } });
+        }
+
+        public static int getActivePlayerMask()
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return 0;
+            }
+
+            string strMethod = "getActivePlayerMask";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "()I");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return 0;
+            }
+
+            return AndroidJNI.CallStaticIntMethod(_jcOuyaUnityPlugin, method, new jvalue[] { });
+        }
+
+        /// <summary>
+        /// Values per input sample: HAT_X, HAT_Y, LS_X, LS_Y, RS_X, RS_Y, L2, R2
+        /// </summary>
+        public const int SAMPLE_AXIS_COUNT = 8;
+
+        private static IntPtr _jmDrainInputSamples = IntPtr.Zero;
+        private static IntPtr _jaSampleAxes = IntPtr.Zero;
+        private static IntPtr _jaSampleTimestamps = IntPtr.Zero;
+        private static int _sampleCapacity = 0;
+        private static jvalue[] _sampleArgs = new jvalue[3];
+
+        /// <summary>
+        /// Copies the samples received since the last call into the arrays,
+        /// axes holds SAMPLE_AXIS_COUNT values per timestamp. The first call
+        /// starts sampling and returns 0
+        /// </summary>
+        public static int drainInputSamples(int playerNum, float[] axes, long[] timestamps)
+        {
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return 0;
+            }
+
+            if (_jmDrainInputSamples == IntPtr.Zero)
+            {
+                string strMethod = "drainInputSamples";
+                _jmDrainInputSamples = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "(I[F[J)I");
+                if (_jmDrainInputSamples != IntPtr.Zero)
+                {
+#if VERBOSE_LOGGING
+                    Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+                }
+                else
+                {
+                    Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                    return 0;
+                }
+            }
+
+            int capacity = Math.Min(timestamps.Length, axes.Length / SAMPLE_AXIS_COUNT);
+            if (capacity <= 0)
+            {
+                return 0;
+            }
+
+            // the java arrays are kept between frames and only replaced when the size changes
+            if (_sampleCapacity != capacity)
+            {
+                if (_jaSampleAxes != IntPtr.Zero)
+                {
+                    AndroidJNI.DeleteGlobalRef(_jaSampleAxes);
+                    AndroidJNI.DeleteGlobalRef(_jaSampleTimestamps);
+                }
+                IntPtr localAxes = AndroidJNI.NewFloatArray(capacity * SAMPLE_AXIS_COUNT);
+                _jaSampleAxes = AndroidJNI.NewGlobalRef(localAxes);
+                AndroidJNI.DeleteLocalRef(localAxes);
+                IntPtr localTimestamps = AndroidJNI.NewLongArray(capacity);
+                _jaSampleTimestamps = AndroidJNI.NewGlobalRef(localTimestamps);
+                AndroidJNI.DeleteLocalRef(localTimestamps);
+                _sampleCapacity = capacity;
+            }
+
+            _sampleArgs[0].i = playerNum;
+            _sampleArgs[1].l = _jaSampleAxes;
+            _sampleArgs[2].l = _jaSampleTimestamps;
+            int count = AndroidJNI.CallStaticIntMethod(_jcOuyaUnityPlugin, _jmDrainInputSamples, _sampleArgs);
+            if (count > 0)
+            {
+                // one bulk copy per array, the copies are garbage but this only runs without the shared buffer
+                Array.Copy(AndroidJNI.FromFloatArray(_jaSampleAxes), axes, count * SAMPLE_AXIS_COUNT);
+                Array.Copy(AndroidJNI.FromLongArray(_jaSampleTimestamps), timestamps, count);
+            }
+            return count;
+        }
+
+        private static IntPtr _jmDrainInputSampleBuffer = IntPtr.Zero;
+        private static jvalue[] _sampleBufferArgs = new jvalue[2];
+
+        /// <summary>
+        /// Moves up to maxSamples samples into the shared input sample buffer,
+        /// which OuyaSDK copies out with Marshal.Copy. The first call starts
+        /// sampling and returns 0
+        /// </summary>
+        /// <returns>number of samples moved, or -1 when lib-ouya-ndk does not share the buffer</returns>
+        public static int drainInputSampleBuffer(int playerNum, int maxSamples)
+        {
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return -1;
+            }
+
+            if (_jmDrainInputSampleBuffer == IntPtr.Zero)
+            {
+                string strMethod = "drainInputSampleBuffer";
+                _jmDrainInputSampleBuffer = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "(II)I");
+                if (_jmDrainInputSampleBuffer != IntPtr.Zero)
+                {
+#if VERBOSE_LOGGING
+                    Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+                }
+                else
+                {
+                    Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                    return -1;
+                }
+            }
+
+            _sampleBufferArgs[0].i = playerNum;
+            _sampleBufferArgs[1].i = maxSamples;
+            return AndroidJNI.CallStaticIntMethod(_jcOuyaUnityPlugin, _jmDrainInputSampleBuffer, _sampleBufferArgs);
+        }
+
+        /// <summary>
+        /// Values per player from getControllerSnapshot: HAT_X, HAT_Y, LS_X, LS_Y, RS_X, RS_Y, L2, R2
+        /// </summary>
+        public const int SNAPSHOT_AXIS_COUNT = 8;
+
+        /// <summary>
+        /// Axis ids in the order getControllerSnapshot writes them
+        /// </summary>
+        public static readonly int[] SNAPSHOT_AXES =
+        {
+            OuyaController.AXIS_HAT_X,
+            OuyaController.AXIS_HAT_Y,
+            OuyaController.AXIS_LS_X,
+            OuyaController.AXIS_LS_Y,
+            OuyaController.AXIS_RS_X,
+            OuyaController.AXIS_RS_Y,
+            OuyaController.AXIS_L2,
+            OuyaController.AXIS_R2,
+        };
+
+        /// <summary>
+        /// Key codes by bit of the getControllerSnapshot button masks
+        /// </summary>
+        public static readonly int[] SNAPSHOT_BUTTONS =
+        {
+            OuyaController.BUTTON_O,
+            OuyaController.BUTTON_U,
+            OuyaController.BUTTON_Y,
+            OuyaController.BUTTON_A,
+            OuyaController.BUTTON_L1,
+            OuyaController.BUTTON_R1,
+            OuyaController.BUTTON_L3,
+            OuyaController.BUTTON_R3,
+            OuyaController.BUTTON_DPAD_UP,
+            OuyaController.BUTTON_DPAD_DOWN,
+            OuyaController.BUTTON_DPAD_RIGHT,
+            OuyaController.BUTTON_DPAD_LEFT,
+            OuyaController.BUTTON_MENU,
+            OuyaController.BUTTON_L2,
+            OuyaController.BUTTON_R2,
+        };
+
+        private static IntPtr _jmGetControllerSnapshot = IntPtr.Zero;
+        private static IntPtr _jaSnapshotAxes = IntPtr.Zero;
+        private static IntPtr _jaSnapshotButtons = IntPtr.Zero;
+        private static int _snapshotCapacity = 0;
+        private static jvalue[] _snapshotArgs = new jvalue[2];
+
+        /// <summary>
+        /// Copies every player's axes and button mask with a single JNI call,
+        /// axes holds SNAPSHOT_AXIS_COUNT values per player. OuyaSDK reads the
+        /// shared snapshot buffer instead when lib-ouya-ndk provides it
+        /// </summary>
+        /// <returns>number of players copied, or -1 when the state changed during the read</returns>
+        public static int getControllerSnapshot(float[] axes, int[] buttons)
+        {
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return 0;
+            }
+
+            if (_jmGetControllerSnapshot == IntPtr.Zero)
+            {
+                string strMethod = "getControllerSnapshot";
+                _jmGetControllerSnapshot = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "([F[I)I");
+                if (_jmGetControllerSnapshot != IntPtr.Zero)
+                {
+#if VERBOSE_LOGGING
+                    Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+                }
+                else
+                {
+                    Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                    return 0;
+                }
+            }
+
+            int capacity = Math.Min(buttons.Length, axes.Length / SNAPSHOT_AXIS_COUNT);
+            if (capacity <= 0)
+            {
+                return 0;
+            }
+
+            // the java arrays are kept between frames and only replaced when the size changes
+            if (_snapshotCapacity != capacity)
+            {
+                if (_jaSnapshotAxes != IntPtr.Zero)
+                {
+                    AndroidJNI.DeleteGlobalRef(_jaSnapshotAxes);
+                    AndroidJNI.DeleteGlobalRef(_jaSnapshotButtons);
+                }
+                IntPtr localAxes = AndroidJNI.NewFloatArray(capacity * SNAPSHOT_AXIS_COUNT);
+                _jaSnapshotAxes = AndroidJNI.NewGlobalRef(localAxes);
+                AndroidJNI.DeleteLocalRef(localAxes);
+                IntPtr localButtons = AndroidJNI.NewIntArray(capacity);
+                _jaSnapshotButtons = AndroidJNI.NewGlobalRef(localButtons);
+                AndroidJNI.DeleteLocalRef(localButtons);
+                _snapshotCapacity = capacity;
+            }
+
+            _snapshotArgs[0].l = _jaSnapshotAxes;
+            _snapshotArgs[1].l = _jaSnapshotButtons;
+            int count = AndroidJNI.CallStaticIntMethod(_jcOuyaUnityPlugin, _jmGetControllerSnapshot, _snapshotArgs);
+            if (count > 0)
+            {
+                // one bulk copy per array, the copies are garbage but this only runs without the shared buffer
+                Array.Copy(AndroidJNI.FromFloatArray(_jaSnapshotAxes), axes, count * SNAPSHOT_AXIS_COUNT);
+                Array.Copy(AndroidJNI.FromIntArray(_jaSnapshotButtons), buttons, count);
+            }
+            return count;
+        }
+
+        public static void setInputLatencyTracking(bool enabled)
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return;
+            }
+
+            string strMethod = "setInputLatencyTracking";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "(Z)V");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return;
+            }
+
+            AndroidJNI.CallStaticVoidMethod(_jcOuyaUnityPlugin, method, new jvalue[1] { new jvalue() { z = enabled } });
+        }
+
+        public static string getInputLatencyJson()
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return null;
+            }
+
+            string strMethod = "getInputLatencyJson";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "()Ljava/lang/String;");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return null;
+            }
+
+            IntPtr result = AndroidJNI.CallStaticObjectMethod(_jcOuyaUnityPlugin, method, new jvalue[0]);
+            if (result == IntPtr.Zero)
+            {
+                Debug.LogError("Failed to getInputLatencyJson");
+                return null;
+            }
+
+            String retVal = AndroidJNI.GetStringUTFChars(result);
+            AndroidJNI.DeleteLocalRef(result);
+            return retVal;
+        }
+
+        public static void resetInputLatency()
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return;
+            }
+
+            string strMethod = "resetInputLatency";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "()V");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return;
+            }
+
+            AndroidJNI.CallStaticVoidMethod(_jcOuyaUnityPlugin, method, new jvalue[] { });
+        }
+
+        public static bool setStickResponse(int playerNum, int stick, int deadZoneType, float deadZone, float exponent)
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return false;
+            }
+
+            string strMethod = "setStickResponse";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "(IIIFF)Z");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return false;
+            }
+
+            jvalue[] args = new jvalue[5];
+            args[0].i = playerNum;
+            args[1].i = stick;
+            args[2].i = deadZoneType;
+            args[3].f = deadZone;
+            args[4].f = exponent;
+            return AndroidJNI.CallStaticBooleanMethod(_jcOuyaUnityPlugin, method, args);
+        }
+
+        public static void setFrameAlignedInput(bool enabled)
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return;
+            }
+
+            string strMethod = "setFrameAlignedInput";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "(Z)V");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return;
+            }
+
+            AndroidJNI.CallStaticVoidMethod(_jcOuyaUnityPlugin, method, new jvalue[1] { new jvalue() { z = enabled } });
+        }
+
+        private static IntPtr _jmPumpInputQueue = IntPtr.Zero;
+        // called every frame, so the empty argument array is shared
+        private static jvalue[] _pumpInputQueueArgs = new jvalue[0];
+
+        public static int pumpInputQueue()
+        {
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return 0;
+            }
+
+            // called every frame, so the method is only looked up once
+            if (_jmPumpInputQueue == IntPtr.Zero)
+            {
+                string strMethod = "pumpInputQueue";
+                _jmPumpInputQueue = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "()I");
+                if (_jmPumpInputQueue != IntPtr.Zero)
+                {
+#if VERBOSE_LOGGING
+                    Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+                }
+                else
+                {
+                    Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                    return 0;
+                }
+            }
+
+            return AndroidJNI.CallStaticIntMethod(_jcOuyaUnityPlugin, _jmPumpInputQueue, _pumpInputQueueArgs);
+        }
+
+        public static bool startInputRecording(string path)
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return false;
+            }
+
+            string strMethod = "startInputRecording";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "(Ljava/lang/String;)Z");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return false;
+            }
+
+            IntPtr arg1 = AndroidJNI.NewStringUTF(path);
+            bool result = AndroidJNI.CallStaticBooleanMethod(_jcOuyaUnityPlugin, method, new jvalue[] { new jvalue() { l = arg1 } });
+            AndroidJNI.DeleteLocalRef(arg1);
+            return result;
+        }
+
+        public static long stopInputRecording()
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return 0;
+            }
+
+            string strMethod = "stopInputRecording";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "()J");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return 0;
+            }
+
+            return AndroidJNI.CallStaticLongMethod(_jcOuyaUnityPlugin, method, new jvalue[] { });
+        }
+
+        public static bool startInputReplay(string path, bool realTime)
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return false;
+            }
+
+            string strMethod = "startInputReplay";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "(Ljava/lang/String;Z)Z");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return false;
+            }
+
+            IntPtr arg1 = AndroidJNI.NewStringUTF(path);
+            bool result = AndroidJNI.CallStaticBooleanMethod(_jcOuyaUnityPlugin, method, new jvalue[] { new jvalue() { l = arg1 }, new jvalue() { z = realTime } });
+            AndroidJNI.DeleteLocalRef(arg1);
+            return result;
+        }
+
+        public static void stopInputReplay()
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return;
+            }
+
+            string strMethod = "stopInputReplay";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "()V");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return;
+            }
+
+            AndroidJNI.CallStaticVoidMethod(_jcOuyaUnityPlugin, method, new jvalue[] { });
+        }
+
+        public static bool isInputReplaying()
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return false;
+            }
+
+            string strMethod = "isInputReplaying";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "()Z");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return false;
+            }
+
+            return AndroidJNI.CallStaticBooleanMethod(_jcOuyaUnityPlugin, method, new jvalue[] { });
+        }
+
+        public static void setInputThreadEnabled(bool enabled)
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return;
+            }
+
+            string strMethod = "setInputThreadEnabled";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "(Z)V");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return;
+            }
+
+            AndroidJNI.CallStaticVoidMethod(_jcOuyaUnityPlugin, method, new jvalue[1] { new jvalue() { z = enabled } });
+        }
+
+        public static bool isNativeInputQueueActive()
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return false;
+            }
+
+            string strMethod = "isNativeInputQueueActive";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "()Z");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return false;
+            }
+
+            return AndroidJNI.CallStaticBooleanMethod(_jcOuyaUnityPlugin, method, new jvalue[] { });
+        }
+
+        public static void setControllerEventsEnabled(bool enabled)
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return;
+            }
+
+            string strMethod = "setControllerEventsEnabled";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "(Z)V");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return;
+            }
+
+            AndroidJNI.CallStaticVoidMethod(_jcOuyaUnityPlugin, method, new jvalue[1] { new jvalue() { z = enabled } });
+        }
+
+        public static int getTurretMouseConnectionState()
+        {
+#if VERBOSE_LOGGING
+            Debug.Log(string.Format("Invoking {0}...", MethodBase.GetCurrentMethod().Name));
+#endif
+
+            if (_jcOuyaUnityPlugin == IntPtr.Zero)
+            {
+                Debug.LogError("_jcOuyaUnityPlugin is not initialized");
+                return -1;
+            }
+
+            string strMethod = "getTurretMouseConnectionState";
+            IntPtr method = AndroidJNI.GetStaticMethodID(_jcOuyaUnityPlugin, strMethod, "()I");
+            if (method != IntPtr.Zero)
+            {
+#if VERBOSE_LOGGING
+                Debug.Log(string.Format("Found {0} method", strMethod));
+#endif
+            }
+            else
+            {
+                Debug.LogError(string.Format("Failed to find {0} method", strMethod));
+                return -1;
+            }
+
+            return AndroidJNI.CallStaticIntMethod(_jcOuyaUnityPlugin, method, new jvalue[] { });
+        }
+
     }
 }
 